@@ -0,0 +1,253 @@
+package com.example.perkmanager.codec;
+
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.event.*;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Event Codec: versioned binary format for the domain events in com.example.perkmanager.event
+ *
+ * Wire format: schema id (varint), schema version (byte), then the event's fields in schema
+ * order (see EventWriter for the field encodings). No field names, no type names: a vote event
+ * is under 20 bytes. Producers also put the schema id and version in the perk.schema header so
+ * consumers can route records without parsing them.
+ *
+ * Evolution rules (a schema's id never changes and is never reused):
+ * - new fields are only appended, and the schema version is bumped;
+ * - old readers ignore trailing fields they do not know, new readers get the field's default
+ *   (null / 0) from events written before it existed;
+ * - fields are never removed or reordered, and never change type; a field that is no longer
+ *   used keeps being written as null;
+ * - enum constants travel by name; a constant unknown to the reader is read as null.
+ *
+ * JSON (with the same schema header, plus perk.format=json) is available as a debugging
+ * fallback, see EventSerializer.
+ */
+public final class EventCodec {
+
+    /** Record header: schema id (2 bytes, big endian) and schema version (1 byte) */
+    public static final String SCHEMA_HEADER = "perk.schema";
+    /** Record header present (value "json") when the payload is JSON rather than binary */
+    public static final String FORMAT_HEADER = "perk.format";
+
+    public enum Format { BINARY, JSON }
+
+    private record Schema<T>(int id, int version, Class<T> type,
+                             BiConsumer<T, EventWriter> writer,
+                             Function<EventReader, T> reader) {
+
+        @SuppressWarnings("unchecked")
+        void write(Object event, EventWriter out) {
+            writer.accept((T) event, out);
+        }
+    }
+
+    private static final Map<Class<?>, Schema<?>> BY_TYPE = new HashMap<>();
+    private static final Map<Integer, Schema<?>> BY_ID = new HashMap<>();
+
+    private static final ObjectMapper JSON = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    static {
+        register(new Schema<>(1, 1, PerkCreatedEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getPerkId());
+                    out.writeString(event.getDescription());
+                    out.writeEnum(event.getMembership());
+                    out.writeEnum(event.getProduct());
+                    out.writeDate(event.getStartDate());
+                    out.writeDate(event.getEndDate());
+                    out.writeLong(event.getPostedByUserId());
+                    out.writeString(event.getPostedByEmail());
+                    out.writeDateTime(event.getTimestamp());
+                },
+                in -> {
+                    PerkCreatedEvent event = new PerkCreatedEvent(in.readLong(), in.readString(),
+                            in.readEnum(MembershipType.class), in.readEnum(ProductType.class),
+                            in.readDate(), in.readDate(), in.readLong(), null);
+                    event.setPostedByEmail(in.readString());
+                    event.setTimestamp(in.readDateTime());
+                    return event;
+                }));
+        register(new Schema<>(2, 1, PerkUpvotedEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getPerkId());
+                    out.writeInt(event.getNewUpvoteCount());
+                    out.writeInt(event.getDownvoteCount());
+                    out.writeDateTime(event.getTimestamp());
+                },
+                in -> new PerkUpvotedEvent(in.readLong(), in.readInt(), in.readInt(), in.readDateTime())));
+        register(new Schema<>(3, 1, PerkDownvotedEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getPerkId());
+                    out.writeInt(event.getNewDownvoteCount());
+                    out.writeInt(event.getUpvoteCount());
+                    out.writeDateTime(event.getTimestamp());
+                },
+                in -> new PerkDownvotedEvent(in.readLong(), in.readInt(), in.readInt(), in.readDateTime())));
+        register(new Schema<>(4, 1, UserRegisteredEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getUserId());
+                    out.writeString(event.getEmail());
+                    out.writeDateTime(event.getTimestamp());
+                },
+                in -> new UserRegisteredEvent(in.readLong(), in.readString(), in.readDateTime())));
+        register(new Schema<>(5, 1, MembershipAddedEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getUserId());
+                    out.writeLong(event.getProfileId());
+                    out.writeString(event.getMembership());
+                    out.writeDateTime(event.getTimestamp());
+                },
+                in -> new MembershipAddedEvent(in.readLong(), in.readLong(), in.readString(), in.readDateTime())));
+        register(new Schema<>(6, 1, PerkAddedEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getUserId());
+                    out.writeLong(event.getPerkId());
+                },
+                in -> new PerkAddedEvent(in.readLong(), in.readLong())));
+        register(new Schema<>(7, 1, PerkActivatedEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getPerkId());
+                    out.writeDateTime(event.getTimestamp());
+                },
+                in -> new PerkActivatedEvent(in.readLong(), in.readDateTime())));
+        register(new Schema<>(8, 1, PerkExpiredEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getPerkId());
+                    out.writeDateTime(event.getTimestamp());
+                },
+                in -> new PerkExpiredEvent(in.readLong(), in.readDateTime())));
+        register(new Schema<>(9, 1, PerkSnapshotEvent.class,
+                (event, out) -> {
+                    out.writeLong(event.getPerkId());
+                    out.writeString(event.getDescription());
+                    out.writeEnum(event.getMembership());
+                    out.writeEnum(event.getProduct());
+                    out.writeInt(event.getUpvotes());
+                    out.writeInt(event.getDownvotes());
+                    out.writeDate(event.getStartDate());
+                    out.writeDate(event.getEndDate());
+                    out.writeLong(event.getPostedByUserId());
+                    out.writeString(event.getPostedByEmail());
+                    out.writeDateTime(event.getTimestamp());
+                },
+                in -> new PerkSnapshotEvent(in.readLong(), in.readString(), in.readEnum(MembershipType.class),
+                        in.readEnum(ProductType.class), in.readInt(), in.readInt(), in.readDate(), in.readDate(),
+                        in.readLong(), in.readString(), in.readDateTime())));
+    }
+
+    private EventCodec() {}
+
+    private static void register(Schema<?> schema) {
+        BY_TYPE.put(schema.type(), schema);
+        BY_ID.put(schema.id(), schema);
+    }
+
+    /**
+     * Encode an event in the binary format
+     *
+     * @throws IllegalArgumentException if the event type has no schema
+     */
+    public static byte[] encode(Object event) {
+        Schema<?> schema = schemaOf(event);
+        EventWriter out = new EventWriter();
+        out.writeVarLong(schema.id());
+        out.writeByte(schema.version());
+        schema.write(event, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a binary event
+     *
+     * @throws IllegalArgumentException if the bytes are not a known event
+     */
+    public static Object decode(byte[] bytes) {
+        EventReader in = new EventReader(bytes);
+        int id = (int) in.readVarLong();
+        in.readByte(); // version: readers of any version read the fields they know (see evolution rules)
+        return schemaOf(id).reader().apply(in);
+    }
+
+    public static byte[] encodeJson(Object event) {
+        schemaOf(event);
+        try {
+            return JSON.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Event cannot be written as JSON: " + event, e);
+        }
+    }
+
+    public static Object decodeJson(int schemaId, byte[] bytes) {
+        return decodeJson(schemaOf(schemaId).type(), bytes);
+    }
+
+    /**
+     * Decode JSON written for a known event class (e.g. records of the former JsonSerializer,
+     * identified by their type header)
+     */
+    public static Object decodeJson(Class<?> type, byte[] bytes) {
+        if (!BY_TYPE.containsKey(type)) {
+            throw new IllegalArgumentException("Not an event type: " + type.getName());
+        }
+        try {
+            return JSON.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unreadable " + type.getSimpleName() + " JSON", e);
+        }
+    }
+
+    /**
+     * The perk.schema header value for an event: schema id (2 bytes) and version (1 byte)
+     */
+    public static byte[] schemaHeader(Object event) {
+        Schema<?> schema = schemaOf(event);
+        return new byte[]{(byte) (schema.id() >> 8), (byte) schema.id(), (byte) schema.version()};
+    }
+
+    /**
+     * The schema id in a perk.schema header value
+     */
+    public static int schemaId(byte[] header) {
+        if (header == null || header.length < 2) {
+            throw new IllegalArgumentException("Malformed " + SCHEMA_HEADER + " header");
+        }
+        return ((header[0] & 0xFF) << 8) | (header[1] & 0xFF);
+    }
+
+    public static boolean isEvent(Class<?> type) {
+        return BY_TYPE.containsKey(type);
+    }
+
+    private static Schema<?> schemaOf(Object event) {
+        Schema<?> schema = event == null ? null : BY_TYPE.get(event.getClass());
+        if (schema == null) {
+            throw new IllegalArgumentException("No event schema for "
+                    + (event == null ? "null" : event.getClass().getName()));
+        }
+        return schema;
+    }
+
+    private static Schema<?> schemaOf(int id) {
+        Schema<?> schema = BY_ID.get(id);
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown event schema id: " + id);
+        }
+        return schema;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.perkmanager.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kafka Deserializer: domain events with EventCodec
+ * Reads binary records, JSON records marked perk.format=json, and records written by the former
+ * JsonSerializer (its __TypeId__ header), limited to the known event classes.
+ */
+public class EventDeserializer implements Deserializer<Object> {
+
+    private static final String LEGACY_TYPE_HEADER = "__TypeId__";
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return EventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Unreadable event on " + topic, e);
+        }
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            Header format = headers.lastHeader(EventCodec.FORMAT_HEADER);
+            if (format != null && "json".equals(new String(format.value(), StandardCharsets.UTF_8))) {
+                Header schema = headers.lastHeader(EventCodec.SCHEMA_HEADER);
+                return EventCodec.decodeJson(EventCodec.schemaId(schema == null ? null : schema.value()), data);
+            }
+            Header legacyType = headers.lastHeader(LEGACY_TYPE_HEADER);
+            if (legacyType != null && headers.lastHeader(EventCodec.SCHEMA_HEADER) == null) {
+                return EventCodec.decodeJson(legacyClass(legacyType), data);
+            }
+            return EventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Unreadable event on " + topic, e);
+        }
+    }
+
+    private static Class<?> legacyClass(Header header) {
+        String name = new String(header.value(), StandardCharsets.UTF_8);
+        try {
+            Class<?> type = Class.forName(name, false, EventDeserializer.class.getClassLoader());
+            if (!EventCodec.isEvent(type)) {
+                throw new IllegalArgumentException("Not an event type: " + name);
+            }
+            return type;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown event type: " + name, e);
+        }
+    }
+}
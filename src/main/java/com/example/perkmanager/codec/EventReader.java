@@ -0,0 +1,104 @@
+package com.example.perkmanager.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Helper: reads event fields written by EventWriter
+ * Reading past the end yields the field's default (null, or 0 for ints): that is how a reader
+ * handles events written before a field was appended.
+ */
+final class EventReader {
+
+    private final byte[] bytes;
+    private int position;
+
+    EventReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    boolean hasMore() {
+        return position < bytes.length;
+    }
+
+    int readInt() {
+        if (!hasMore()) {
+            return 0;
+        }
+        long raw = readVarLong();
+        return (int) ((raw >>> 1) ^ -(raw & 1));
+    }
+
+    Long readLong() {
+        long raw = hasMore() ? readVarLong() : 0;
+        return raw == 0 ? null : unzigzag(raw - 1);
+    }
+
+    String readString() {
+        long raw = hasMore() ? readVarLong() : 0;
+        if (raw == 0) {
+            return null;
+        }
+        int length = (int) (raw - 1);
+        if (length > bytes.length - position) {
+            throw new IllegalArgumentException("Truncated event: string of " + length + " bytes");
+        }
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * @return the constant, or null if absent or unknown to this reader
+     */
+    <E extends Enum<E>> E readEnum(Class<E> type) {
+        String name = readString();
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    LocalDate readDate() {
+        Long epochDay = readLong();
+        return epochDay == null ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    LocalDateTime readDateTime() {
+        long raw = hasMore() ? readVarLong() : 0;
+        if (raw == 0) {
+            return null;
+        }
+        long seconds = unzigzag(raw - 1);
+        return LocalDateTime.ofEpochSecond(seconds, (int) readVarLong(), ZoneOffset.UTC);
+    }
+
+    int readByte() {
+        if (!hasMore()) {
+            throw new IllegalArgumentException("Truncated event");
+        }
+        return bytes[position++] & 0xFF;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long unzigzag(long raw) {
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
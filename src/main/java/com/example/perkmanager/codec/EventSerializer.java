@@ -0,0 +1,58 @@
+package com.example.perkmanager.codec;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Kafka Serializer: domain events with EventCodec
+ * Binary by default; set the producer property perk.events.format=json to put readable JSON on
+ * the wire while debugging. Either way the record carries the perk.schema header, and
+ * EventDeserializer reads both formats.
+ *
+ * A byte[] value is an already encoded record (a dead-lettered record that could not be read,
+ * or one being replayed) and is written unchanged, with its original headers.
+ */
+public class EventSerializer implements Serializer<Object> {
+
+    public static final String FORMAT_CONFIG = "perk.events.format";
+
+    private static final byte[] JSON_FORMAT = "json".getBytes(StandardCharsets.UTF_8);
+
+    private EventCodec.Format format = EventCodec.Format.BINARY;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(FORMAT_CONFIG);
+        if (configured != null) {
+            format = EventCodec.Format.valueOf(configured.toString().trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object event) {
+        if (event == null) {
+            return null;
+        }
+        if (event instanceof byte[] encoded) {
+            return encoded;
+        }
+        return format == EventCodec.Format.JSON ? EventCodec.encodeJson(event) : EventCodec.encode(event);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object event) {
+        if (event == null || event instanceof byte[]) {
+            return serialize(topic, event);
+        }
+        headers.remove(EventCodec.SCHEMA_HEADER);
+        headers.add(EventCodec.SCHEMA_HEADER, EventCodec.schemaHeader(event));
+        if (format == EventCodec.Format.JSON) {
+            headers.add(EventCodec.FORMAT_HEADER, JSON_FORMAT);
+        }
+        return serialize(topic, event);
+    }
+}
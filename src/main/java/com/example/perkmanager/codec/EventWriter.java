@@ -0,0 +1,83 @@
+package com.example.perkmanager.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Helper: appends event fields in the binary event format
+ * Integers are zigzag varints (small values take one byte). Nullable values reserve 0 for null:
+ * a nullable long is written as zigzag + 1, a string as UTF-8 length + 1 followed by the bytes.
+ */
+final class EventWriter {
+
+    private byte[] buffer = new byte[64];
+    private int size;
+
+    void writeInt(int value) {
+        writeVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    void writeLong(Long value) {
+        writeVarLong(value == null ? 0 : zigzag(value) + 1);
+    }
+
+    void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    void writeEnum(Enum<?> value) {
+        writeString(value == null ? null : value.name());
+    }
+
+    void writeDate(LocalDate value) {
+        writeLong(value == null ? null : value.toEpochDay());
+    }
+
+    void writeDateTime(LocalDateTime value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(zigzag(value.toEpochSecond(ZoneOffset.UTC)) + 1);
+        writeVarLong(value.getNano());
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.perkmanager.command;
+
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command: Create many perks at once
+ * Represents a partner posting a whole catalog of perk offers.
+ * Items are validated one by one, so invalid items are reported without rejecting the rest.
+ */
+public class CreatePerksBatchCommand {
+
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotEmpty(message = "At least one perk is required")
+    private List<Item> perks = new ArrayList<>();
+
+    /**
+     * One perk of the batch (same rules as CreatePerkCommand)
+     */
+    public static class Item {
+
+        @NotBlank(message = "Description is required")
+        private String description;
+
+        @NotNull(message = "Membership type is required")
+        private MembershipType membership;
+
+        @NotNull(message = "Product type is required")
+        private ProductType product;
+
+        @NotNull(message = "Start date is required")
+        private LocalDate startDate;
+
+        @NotNull(message = "End date is required")
+        @FutureOrPresent(message = "End date must be today or in the future")
+        private LocalDate endDate;
+
+        public Item() {}
+
+        public Item(String description, MembershipType membership, ProductType product,
+                    LocalDate startDate, LocalDate endDate) {
+            this.description = description;
+            this.membership = membership;
+            this.product = product;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+        public MembershipType getMembership() { return membership; }
+        public void setMembership(MembershipType membership) { this.membership = membership; }
+        public ProductType getProduct() { return product; }
+        public void setProduct(ProductType product) { this.product = product; }
+        public LocalDate getStartDate() { return startDate; }
+        public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    }
+
+    public CreatePerksBatchCommand() {}
+
+    public CreatePerksBatchCommand(Long userId, List<Item> perks) {
+        this.userId = userId;
+        this.perks = perks;
+    }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public List<Item> getPerks() { return perks; }
+    public void setPerks(List<Item> perks) { this.perks = perks; }
+}
@@ -1,12 +1,13 @@
 package com.example.perkmanager.command;
 
+import com.example.perkmanager.enumerations.VoteType;
 import jakarta.validation.constraints.NotNull;
 
 /**
  * Command: Downvote a perk
  * Represents the intention to increase the downvote count of a perk
  */
-public class DownvotePerkCommand {
+public class DownvotePerkCommand implements VoteCommand {
 
     @NotNull(message = "Perk ID is required")
     private Long perkId;
@@ -32,4 +33,7 @@ public class DownvotePerkCommand {
 
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
+
+    @Override
+    public VoteType getVoteType() { return VoteType.DOWNVOTE; }
 }
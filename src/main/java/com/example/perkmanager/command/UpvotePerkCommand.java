@@ -1,12 +1,13 @@
 package com.example.perkmanager.command;
 
+import com.example.perkmanager.enumerations.VoteType;
 import jakarta.validation.constraints.NotNull;
 
 /**
  * Command: Upvote a perk
  * Represents the intention to increase the upvote count of a perk
  */
-public class UpvotePerkCommand {
+public class UpvotePerkCommand implements VoteCommand {
 
     @NotNull(message = "Perk ID is required")
     private Long perkId;
@@ -34,4 +35,7 @@ public class UpvotePerkCommand {
 
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
+
+    @Override
+    public VoteType getVoteType() { return VoteType.UPVOTE; }
 }
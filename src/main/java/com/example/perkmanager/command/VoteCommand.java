@@ -0,0 +1,16 @@
+package com.example.perkmanager.command;
+
+import com.example.perkmanager.enumerations.VoteType;
+
+/**
+ * Command: A vote click on a perk (upvote or downvote)
+ * Common view of UpvotePerkCommand and DownvotePerkCommand for code that handles both
+ */
+public interface VoteCommand {
+
+    Long getPerkId();
+
+    Long getUserId();
+
+    VoteType getVoteType();
+}
@@ -0,0 +1,82 @@
+package com.example.perkmanager.config;
+
+import com.example.perkmanager.command.*;
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.dto.UserProfileReadModel;
+import com.example.perkmanager.service.CommandBus;
+import com.example.perkmanager.service.PerkBatchCommandHandler;
+import com.example.perkmanager.service.PerkCommandHandler;
+import com.example.perkmanager.service.UserCommandHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Command Bus Configuration
+ * One lane per command type. Workers and queue capacity default to perk.commands.workers /
+ * perk.commands.queue-capacity and can be set per lane, e.g. perk.commands.create-perk.workers.
+ *
+ * Up- and downvotes share the "vote" lane, sharded by perk id: each shard is the only writer
+ * for its perks and commits the votes that queued up meanwhile as one group
+ * (perk.commands.vote.shards, perk.commands.vote.max-batch).
+ */
+@Configuration
+public class CommandBusConfig {
+
+    private final Environment environment;
+
+    public CommandBusConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean
+    public CommandBus commandBus(MeterRegistry meterRegistry,
+                                 PerkCommandHandler perkCommandHandler,
+                                 PerkBatchCommandHandler perkBatchCommandHandler,
+                                 UserCommandHandler userCommandHandler) {
+        CommandBus bus = new CommandBus(meterRegistry,
+                Duration.ofMillis(environment.getProperty("perk.commands.status-retention-ms", Long.class, 600_000L)));
+
+        bus.register(CreateUserCommand.class, "create-user", workers("create-user"), capacity("create-user"),
+                command -> UserProfileReadModel.fromEntity(userCommandHandler.handle(command)));
+        bus.register(AddPerkCommand.class, "add-perk", workers("add-perk"), capacity("add-perk"),
+                command -> {
+                    userCommandHandler.handle(command);
+                    return "Perk added to user successfully";
+                });
+        bus.register(AddMembershipCommand.class, "add-membership", workers("add-membership"), capacity("add-membership"),
+                command -> {
+                    userCommandHandler.handle(command);
+                    return "Membership added successfully";
+                });
+        bus.register(CreatePerkCommand.class, "create-perk", workers("create-perk"), capacity("create-perk"),
+                command -> PerkReadModel.fromEntity(perkCommandHandler.handle(command)));
+        bus.register(CreatePerksBatchCommand.class, "create-perks-batch", workers("create-perks-batch"),
+                capacity("create-perks-batch"), perkBatchCommandHandler::handle);
+        bus.<VoteCommand>registerSharded(List.of(UpvotePerkCommand.class, DownvotePerkCommand.class), "vote",
+                environment.getProperty("perk.commands.vote.shards", Integer.class, 8),
+                capacity("vote"),
+                environment.getProperty("perk.commands.vote.max-batch", Integer.class, 64),
+                VoteCommand::getPerkId,
+                commands -> perkCommandHandler.handle(commands).stream()
+                        .map(outcome -> outcome.error() == null
+                                ? CommandBus.Outcome.success(outcome.vote())
+                                : CommandBus.Outcome.failure(outcome.error()))
+                        .toList());
+        return bus;
+    }
+
+    private int workers(String lane) {
+        return environment.getProperty("perk.commands." + lane + ".workers", Integer.class,
+                environment.getProperty("perk.commands.workers", Integer.class, 4));
+    }
+
+    private int capacity(String lane) {
+        return environment.getProperty("perk.commands." + lane + ".queue-capacity", Integer.class,
+                environment.getProperty("perk.commands.queue-capacity", Integer.class, 1000));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.perkmanager.config;
+
+import com.example.perkmanager.consumer.KeyOrderedLanes;
+import com.example.perkmanager.projection.ConsistencyTracker;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ContainerCustomizer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+/**
+ * Event Transport Configuration
+ * perk.events.transport=kafka (default) or in-process, see transport.EventTransport.
+ * In-process, the @KafkaListener methods are called by InProcessEventTransport, so their Kafka
+ * containers are kept stopped and the broker is never contacted (KafkaConfig declares no topics).
+ * With Kafka, record listeners move onto KeyOrderedLanes when perk.events.consumer.lanes > 0,
+ * and the outbox sequences of applied records are reported to the ConsistencyTracker.
+ */
+@Configuration
+public class EventTransportConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "perk.events.transport", havingValue = "in-process")
+    public ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> inProcessListenerContainers() {
+        return container -> container.setAutoStartup(false);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "perk.events.transport", havingValue = "kafka", matchIfMissing = true)
+    public ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> keyOrderedListenerContainers(
+            KeyOrderedLanes lanes, ConsistencyTracker consistencyTracker) {
+        return container -> {
+            // Tracking wraps the listener itself, so with lanes a record counts once its lane applied it
+            consistencyTracker.install(container);
+            lanes.install(container);
+        };
+    }
+}
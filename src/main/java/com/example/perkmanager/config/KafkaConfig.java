@@ -2,15 +2,17 @@ package com.example.perkmanager.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 /**
  * Kafka Configuration for CQRS Event Streaming
- * Creates all necessary topics for domain events
+ * Creates all necessary topics for domain events (not needed with perk.events.transport=in-process)
  */
 @Configuration
+@ConditionalOnProperty(name = "perk.events.transport", havingValue = "kafka", matchIfMissing = true)
 public class KafkaConfig {
 
     @Value("${kafka.topic.perk-created}")
@@ -28,6 +30,12 @@ public class KafkaConfig {
     @Value("${kafka.topic.membership-added}")
     private String membershipAddedTopic;
 
+    @Value("${kafka.topic.perk-added}")
+    private String perkAddedTopic;
+
+    @Value("${kafka.topic.perk-state}")
+    private String perkStateTopic;
+
     /**
      * Topic for Perk Creation events
      * Partitions: 3 for parallel processing
@@ -72,4 +80,25 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
+
+    @Bean
+    public NewTopic perkAddedTopic() {
+        return TopicBuilder.name(perkAddedTopic)
+                .partitions(2)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Topic for the latest full state of each perk (PerkStateLoader bootstraps read nodes from it)
+     * Log-compacted: only the newest snapshot per perk id is kept, whatever the vote history
+     */
+    @Bean
+    public NewTopic perkStateTopic() {
+        return TopicBuilder.name(perkStateTopic)
+                .partitions(3)
+                .replicas(1)
+                .compact()
+                .build();
+    }
 }
@@ -0,0 +1,113 @@
+package com.example.perkmanager.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.List;
+
+/**
+ * Kafka Configuration: retry and dead-letter topics for the projection consumers
+ * A record whose listener fails is not retried in place, which would hold up every record
+ * behind it in the partition. It moves on to <topic>-retry-N topics, served by their own
+ * containers with exponential backoff (perk.events.retry.*), and after the last attempt to
+ * <topic>-dlt. Records that can never succeed (an undeserializable payload, a wrong type) are
+ * dead-lettered at once. Consumers read values through an ErrorHandlingDeserializer, so an
+ * unreadable record reaches the error handling instead of failing the poll.
+ *
+ * The vote batch listener cannot use retry topics: a failed vote record is dead-lettered right
+ * away and the rest of the poll is redelivered. Vote events carry absolute counts, so the next
+ * vote on the perk repairs its projection anyway.
+ *
+ * Parked records are re-driven with consumer.DeadLetterReplayer.
+ */
+@Configuration
+@ConditionalOnProperty(name = "perk.events.transport", havingValue = "kafka", matchIfMissing = true)
+public class KafkaRetryConfig {
+
+    public static final String RETRY_SUFFIX = "-retry";
+    public static final String DLT_SUFFIX = "-dlt";
+
+    @Value("${kafka.topic.perk-created}")
+    private String perkCreatedTopic;
+
+    @Value("${kafka.topic.perk-upvoted}")
+    private String perkUpvotedTopic;
+
+    @Value("${kafka.topic.perk-downvoted}")
+    private String perkDownvotedTopic;
+
+    @Value("${kafka.topic.user-registered}")
+    private String userRegisteredTopic;
+
+    @Value("${kafka.topic.membership-added}")
+    private String membershipAddedTopic;
+
+    @Value("${kafka.topic.perk-added}")
+    private String perkAddedTopic;
+
+    /**
+     * Retry topics for the record listeners (PerkEventConsumer, UserEventConsumer)
+     */
+    @Bean
+    public RetryTopicConfiguration projectionRetryTopics(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            @Value("${perk.events.retry.attempts:4}") int attempts,
+            @Value("${perk.events.retry.initial-delay-ms:1000}") long initialDelayMs,
+            @Value("${perk.events.retry.multiplier:2.0}") double multiplier,
+            @Value("${perk.events.retry.max-delay-ms:30000}") long maxDelayMs) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopics(List.of(perkCreatedTopic, userRegisteredTopic, membershipAddedTopic, perkAddedTopic))
+                .maxAttempts(attempts)
+                .exponentialBackoff(initialDelayMs, multiplier, maxDelayMs)
+                .retryTopicSuffix(RETRY_SUFFIX)
+                .dltSuffix(DLT_SUFFIX)
+                .autoCreateTopicsWith(3, (short) 1) // Records keep their partition, as many as any main topic
+                .create(kafkaTemplate);
+    }
+
+    /**
+     * Parks a record in <topic>-dlt (any partition); undeserializable records keep their raw bytes
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, e) -> new TopicPartition(record.topic() + DLT_SUFFIX, -1));
+    }
+
+    /**
+     * Error handler of the containers without retry topics (the vote batch listener):
+     * no blocking retries, the failed record is dead-lettered and the rest of the poll redelivered
+     */
+    @Bean
+    public CommonErrorHandler kafkaErrorHandler(DeadLetterPublishingRecoverer deadLetterRecoverer) {
+        return new DefaultErrorHandler(deadLetterRecoverer, new FixedBackOff(0, 0));
+    }
+
+    @Bean
+    public NewTopic perkUpvotedDeadLetterTopic() {
+        return TopicBuilder.name(perkUpvotedTopic + DLT_SUFFIX)
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic perkDownvotedDeadLetterTopic() {
+        return TopicBuilder.name(perkDownvotedTopic + DLT_SUFFIX)
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.perkmanager.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling Configuration
+ * Enables @Scheduled background jobs (e.g. perk activation/expiry)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
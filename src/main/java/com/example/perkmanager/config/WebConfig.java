@@ -0,0 +1,25 @@
+package com.example.perkmanager.config;
+
+import com.example.perkmanager.controller.ConsistencyInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web Configuration
+ * CQRS queries honour consistency tokens (ConsistencyInterceptor)
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConsistencyInterceptor consistencyInterceptor;
+
+    public WebConfig(ConsistencyInterceptor consistencyInterceptor) {
+        this.consistencyInterceptor = consistencyInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(consistencyInterceptor).addPathPatterns("/api/cqrs/**");
+    }
+}
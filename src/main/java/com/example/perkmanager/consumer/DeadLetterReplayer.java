@@ -0,0 +1,192 @@
+package com.example.perkmanager.consumer;
+
+import com.example.perkmanager.config.KafkaRetryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Read Side: Dead-letter replay
+ * Re-drives records parked in <topic>-dlt (see KafkaRetryConfig) into their main topic once the
+ * cause is fixed, e.g. a consumer deployed that reads a newer event schema. The raw bytes are
+ * sent as they were, with the record's key and its own perk.* headers (the dead-letter headers
+ * are dropped), so the record goes through the normal listeners and retry topics again.
+ *
+ * Replay reads the dead-letter topic under its own consumer group up to the end offsets it saw
+ * when it started, and commits only after the main topic acknowledged every record sent, so a
+ * failed replay is repeated rather than lost (the main topic may then see a record twice; the
+ * projection ignores events older than what it holds).
+ *
+ * Metrics: perk.events.dead-letter.replayed
+ */
+@Component
+@ConditionalOnProperty(name = "perk.events.transport", havingValue = "kafka", matchIfMissing = true)
+public class DeadLetterReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterReplayer.class);
+
+    private static final String GROUP_ID = "perk-manager-dlt-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    /**
+     * Outcome of one replay: records sent back, and records still parked
+     */
+    public record Replay(String deadLetterTopic, int replayed, long remaining) {}
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Set<String> mainTopics;
+    private final long timeoutMs;
+    private final Counter replayedCounter;
+
+    public DeadLetterReplayer(ConsumerFactory<?, ?> consumerFactory,
+                              KafkaTemplate<String, Object> kafkaTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${kafka.topic.perk-created}") String perkCreatedTopic,
+                              @Value("${kafka.topic.perk-upvoted}") String perkUpvotedTopic,
+                              @Value("${kafka.topic.perk-downvoted}") String perkDownvotedTopic,
+                              @Value("${kafka.topic.user-registered}") String userRegisteredTopic,
+                              @Value("${kafka.topic.membership-added}") String membershipAddedTopic,
+                              @Value("${kafka.topic.perk-added}") String perkAddedTopic,
+                              @Value("${perk.outbox.send-timeout-ms:10000}") long timeoutMs) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.mainTopics = Set.of(perkCreatedTopic, perkUpvotedTopic, perkDownvotedTopic,
+                userRegisteredTopic, membershipAddedTopic, perkAddedTopic);
+        this.timeoutMs = timeoutMs;
+        this.replayedCounter = meterRegistry.counter("perk.events.dead-letter.replayed");
+    }
+
+    /**
+     * Send up to max parked records of a topic back to it
+     *
+     * @param topic the main topic (e.g. perk.created) whose dead letters to replay
+     * @throws IllegalArgumentException if the topic is not an event topic
+     * @throws IllegalStateException if a record could not be sent back (nothing is committed)
+     */
+    public synchronized Replay replay(String topic, int max) {
+        if (!mainTopics.contains(topic)) {
+            throw new IllegalArgumentException("Not an event topic: " + topic);
+        }
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        String deadLetterTopic = topic + KafkaRetryConfig.DLT_SUFFIX;
+
+        try (Consumer<String, byte[]> consumer = createConsumer()) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(deadLetterTopic, Duration.ofMillis(timeoutMs))) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            if (partitions.isEmpty()) {
+                return new Replay(deadLetterTopic, 0, 0);
+            }
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            Map<TopicPartition, OffsetAndMetadata> replayed = new HashMap<>();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (sends.size() < max && !caughtUp(consumer, partitions, end) && System.nanoTime() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (sends.size() >= max || record.offset() >= end.get(partition)) {
+                        continue; // Not committed, so read again by the next replay
+                    }
+                    sends.add(kafkaTemplate.send(toMainTopic(topic, record)));
+                    replayed.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                }
+            }
+            kafkaTemplate.flush();
+            awaitAll(sends, deadLetterTopic);
+            if (!replayed.isEmpty()) {
+                consumer.commitSync(replayed);
+            }
+            replayedCounter.increment(sends.size());
+
+            long remaining = 0;
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata committed = replayed.get(partition);
+                long position = committed != null ? committed.offset() : committedOffset(consumer, partition);
+                remaining += Math.max(0, end.get(partition) - position);
+            }
+            if (!sends.isEmpty()) {
+                log.info("Replayed {} dead letters from [{}] to [{}], {} left", sends.size(), deadLetterTopic,
+                        topic, remaining);
+            }
+            return new Replay(deadLetterTopic, sends.size(), remaining);
+        }
+    }
+
+    private ProducerRecord<String, Object> toMainTopic(String topic, ConsumerRecord<String, byte[]> record) {
+        ProducerRecord<String, Object> replay = new ProducerRecord<>(topic, null, record.key(), record.value());
+        for (Header header : record.headers()) {
+            // Keep the event's own headers (format, schema); the dead-letter headers stay behind
+            if (header.key().startsWith("perk.")) {
+                replay.headers().add(header);
+            }
+        }
+        return replay;
+    }
+
+    private void awaitAll(List<CompletableFuture<?>> sends, String deadLetterTopic) {
+        for (CompletableFuture<?> send : sends) {
+            try {
+                send.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalStateException("Replaying [" + deadLetterTopic + "] failed, nothing committed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying [" + deadLetterTopic + "]", e);
+            }
+        }
+    }
+
+    private static boolean caughtUp(Consumer<?, ?> consumer, List<TopicPartition> partitions,
+                                    Map<TopicPartition, Long> end) {
+        for (TopicPartition partition : partitions) {
+            if (consumer.position(partition) < end.get(partition)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long committedOffset(Consumer<?, ?> consumer, TopicPartition partition) {
+        OffsetAndMetadata committed = consumer.committed(Set.of(partition)).get(partition);
+        return committed != null ? committed.offset() : consumer.beginningOffsets(List.of(partition)).get(partition);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, byte[]> createConsumer() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return (Consumer<String, byte[]>) consumerFactory.createConsumer(GROUP_ID, null, null, overrides);
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.perkmanager.consumer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.example.perkmanager.config.KafkaRetryConfig;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read Side: Key-ordered consumer lanes
+ * Lifts consumer parallelism above the partition count (2-3 per topic, see KafkaConfig) without
+ * re-partitioning. With perk.events.consumer.lanes > 0, the Kafka record listeners no longer run
+ * on the container thread: each record is handed to one of that many worker lanes, chosen by
+ * record key (perk id, user id), so records with the same key are still applied in order while
+ * different keys proceed in parallel. Records without a key go by partition.
+ *
+ * Offsets are committed only up to the lowest record that is fully processed: the containers
+ * switch to manual, asynchronous acknowledgement and a record is acknowledged once its listener
+ * returned; later offsets acknowledged early wait for the gap to close. A full lane blocks the
+ * container thread, which holds back the next poll. Lanes are platform threads because the
+ * listeners wait on the projection's monitor, which would pin a virtual thread's carrier anyway.
+ *
+ * A record whose listener throws is acknowledged and handed to the dead-letter recoverer
+ * (KafkaRetryConfig): on a lane it goes to <topic>-dlt at once rather than through the retry
+ * topics, whose containers (like the vote batch listener, which already collapses a poll to one
+ * pass over the projection) stay on their container threads.
+ *
+ * Metrics: perk.events.lanes.queued and perk.events.lanes.busy (tag lane; seconds spent in
+ * listeners, its rate is the lane utilization), perk.events.lanes.commit.lag (records handed to
+ * the lanes whose offsets cannot be committed yet).
+ */
+@Component
+public class KeyOrderedLanes {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedLanes.class);
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private record Lane(BlockingQueue<Runnable> queue, AtomicLong busyNanos) {}
+
+    /**
+     * Offsets handed to the lanes but not acknowledged yet, and the next offset to hand over
+     */
+    private record InFlight(ConcurrentSkipListSet<Long> offsets, AtomicLong next) {
+
+        long lag() {
+            Long lowest = offsets.isEmpty() ? null : offsets.first();
+            return lowest == null ? 0 : Math.max(0, next.get() - lowest);
+        }
+    }
+
+    private final Optional<ConsumerRecordRecoverer> recoverer;
+    private final Lane[] lanes;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Map<TopicPartition, InFlight> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public KeyOrderedLanes(MeterRegistry meterRegistry,
+                           Optional<ConsumerRecordRecoverer> recoverer,
+                           @Value("${perk.events.consumer.lanes:0}") int lanes,
+                           @Value("${perk.events.consumer.lane-capacity:1000}") int laneCapacity) {
+        this.recoverer = recoverer;
+        this.lanes = new Lane[Math.max(0, lanes)];
+        for (int i = 0; i < this.lanes.length; i++) {
+            Lane lane = new Lane(new ArrayBlockingQueue<>(Math.max(1, laneCapacity)), new AtomicLong());
+            this.lanes[i] = lane;
+            workers.add(Thread.ofPlatform().daemon().name("perk-lane-" + i).start(() -> work(lane)));
+            String tag = String.valueOf(i);
+            Gauge.builder("perk.events.lanes.queued", lane.queue(), BlockingQueue::size)
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            FunctionCounter.builder("perk.events.lanes.busy", lane.busyNanos(), busy -> busy.get() / 1e9)
+                    .tag("lane", tag)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+        if (isEnabled()) {
+            meterRegistry.gauge("perk.events.lanes.commit.lag", this, KeyOrderedLanes::commitLag);
+        }
+    }
+
+    public boolean isEnabled() {
+        return lanes.length > 0;
+    }
+
+    /**
+     * Move a listener container's record listener onto the lanes (batch listeners, retry and
+     * dead-letter topics, and every listener when lanes are disabled, are left as they are)
+     */
+    public void install(AbstractMessageListenerContainer<?, ?> container) {
+        ContainerProperties properties = container.getContainerProperties();
+        if (!isEnabled()
+                || !(properties.getMessageListener() instanceof AcknowledgingConsumerAwareMessageListener<?, ?> listener)
+                || isRetryOrDeadLetter(properties.getTopics())) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        AcknowledgingConsumerAwareMessageListener<Object, Object> delegate =
+                (AcknowledgingConsumerAwareMessageListener<Object, Object>) listener;
+        properties.setMessageListener(wrap(delegate));
+        properties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        properties.setAsyncAcks(true);
+        log.info("Listener container {} consumes on {} key-ordered lanes", container.getListenerId(), lanes.length);
+    }
+
+    /**
+     * A record listener that runs the delegate on the record's lane and acknowledges when it returned
+     */
+    AcknowledgingConsumerAwareMessageListener<Object, Object> wrap(
+            AcknowledgingConsumerAwareMessageListener<Object, Object> delegate) {
+        return (record, acknowledgment, consumer) -> dispatch(record, acknowledgment, delegate);
+    }
+
+    /**
+     * Records handed to the lanes whose offsets cannot be committed yet, over all partitions
+     */
+    public long commitLag() {
+        long lag = 0;
+        for (InFlight partition : inFlight.values()) {
+            lag += partition.lag();
+        }
+        return lag;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // The listener containers stop first; let the lanes finish what they were given
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void dispatch(ConsumerRecord<Object, Object> record, Acknowledgment acknowledgment,
+                          AcknowledgingConsumerAwareMessageListener<Object, Object> delegate) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        InFlight pending = inFlight.computeIfAbsent(partition,
+                p -> new InFlight(new ConcurrentSkipListSet<>(), new AtomicLong()));
+        pending.offsets().add(record.offset());
+        pending.next().accumulateAndGet(record.offset() + 1, Math::max);
+
+        Runnable task = () -> {
+            try {
+                delegate.onMessage(record, null, (Consumer<?, ?>) null);
+            } catch (RuntimeException e) {
+                log.error("✗ Listener failed on {}-{}@{} (key {}): {}", record.topic(), record.partition(),
+                        record.offset(), record.key(), e.getMessage(), e);
+                recover(record, e);
+            } finally {
+                pending.offsets().remove(record.offset());
+                if (acknowledgment != null) {
+                    acknowledgment.acknowledge();
+                }
+            }
+        };
+        try {
+            laneFor(record).queue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.offsets().remove(record.offset());
+            throw new IllegalStateException("Interrupted while handing " + partition + "@" + record.offset()
+                    + " to its lane", e);
+        }
+    }
+
+    private void recover(ConsumerRecord<Object, Object> record, RuntimeException failure) {
+        try {
+            recoverer.ifPresent(r -> r.accept(record, failure));
+        } catch (RuntimeException e) {
+            log.error("✗ Could not dead-letter {}-{}@{}: {}", record.topic(), record.partition(), record.offset(),
+                    e.getMessage());
+        }
+    }
+
+    private static boolean isRetryOrDeadLetter(String[] topics) {
+        if (topics == null) {
+            return false;
+        }
+        for (String topic : topics) {
+            if (topic.contains(KafkaRetryConfig.RETRY_SUFFIX) || topic.endsWith(KafkaRetryConfig.DLT_SUFFIX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Lane laneFor(ConsumerRecord<Object, Object> record) {
+        int hash = record.key() != null ? Objects.hashCode(record.key()) : record.partition();
+        // Spread the bits: perk ids are small sequential numbers
+        hash ^= hash >>> 16;
+        return lanes[Math.floorMod(hash * 0x9E3779B9, lanes.length)];
+    }
+
+    private void work(Lane lane) {
+        while (running || !lane.queue().isEmpty()) {
+            Runnable task;
+            try {
+                task = lane.queue().poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task != null) {
+                long started = System.nanoTime();
+                task.run();
+                lane.busyNanos().addAndGet(System.nanoTime() - started);
+            }
+        }
+    }
+}
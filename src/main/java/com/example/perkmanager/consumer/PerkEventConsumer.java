@@ -3,29 +3,48 @@ package com.example.perkmanager.consumer;
 import com.example.perkmanager.event.PerkCreatedEvent;
 import com.example.perkmanager.event.PerkDownvotedEvent;
 import com.example.perkmanager.event.PerkUpvotedEvent;
+import com.example.perkmanager.projection.ReadModelUpdater;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * Kafka Event Consumer: Perk Events
  * Listens to perk-related events and updates read models
+ * (called by InProcessEventTransport instead when perk.events.transport=in-process)
+ * Failed records go to retry topics, then to a dead-letter topic (see KafkaRetryConfig)
+ *
+ * Read models: PerkProjectionStore (in-memory, keyed by perk id) and its indexes
+ * (leaderboard, facets, full-text search), updated through ReadModelUpdater
+ * Still to come in a full CQRS implementation: trigger analytics/notifications
  *
- * In a full CQRS implementation, this would:
- * 1. Update separate read model database/cache
- * 2. Update search indexes (Elasticsearch, etc.)
- * 3. Trigger analytics/notifications
- * 4. Update materialized views
+ * Metrics: perk.events.votes.batch.size (vote records per poll), perk.events.votes.coalescing.ratio
+ * (vote records per perk update applied)
  */
 @Component
 public class PerkEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(PerkEventConsumer.class);
 
+    private final ReadModelUpdater readModelUpdater;
+    private final DistributionSummary voteBatchSizes;
+    private final DistributionSummary voteCoalescing;
+
+    public PerkEventConsumer(ReadModelUpdater readModelUpdater, MeterRegistry meterRegistry) {
+        this.readModelUpdater = readModelUpdater;
+        this.voteBatchSizes = meterRegistry.summary("perk.events.votes.batch.size");
+        this.voteCoalescing = meterRegistry.summary("perk.events.votes.coalescing.ratio");
+    }
+
     /**
      * Consumer: PerkCreatedEvent
      * Updates read model when new perk is created
@@ -45,56 +64,42 @@ public class PerkEventConsumer {
         log.info("Perk ID: {}, Description: {}, Membership: {}, Product: {}",
                 event.getPerkId(), event.getDescription(), event.getMembership(), event.getProduct());
 
-        // TODO: In production, update read model database/cache (Elasticsearch, Redis, etc.)
-        updateSearchIndex(event);
-    }
-
-    /**
-     * Consumer: PerkUpvotedEvent
-     * Updates vote counts in read model
-     */
-    @KafkaListener(
-            topics = "${kafka.topic.perk-upvoted}",
-            groupId = "${spring.kafka.consumer.group-id}"
-    )
-    public void consumePerkUpvoted(@Payload PerkUpvotedEvent event) {
-        log.info("Consumed PerkUpvotedEvent - Perk ID: {}, New Upvote Count: {}",
-                event.getPerkId(), event.getNewUpvoteCount());
-
-        // TODO: Update read model with new vote count
-        // This is typically faster than querying the write database
-        updateVoteCountInReadModel(event.getPerkId(), event.getNewUpvoteCount(), null);
+        // Also feeds the search index (PerkSearchIndex follows the projection)
+        readModelUpdater.apply(event);
     }
 
     /**
-     * Consumer: PerkDownvotedEvent
-     * Updates vote counts in read model
+     * Consumer: PerkUpvotedEvent and PerkDownvotedEvent, one poll at a time
+     * Vote events carry absolute counts, so each poll collapses to one update per perk, applied
+     * in one pass. Under a vote storm most records of a poll are superseded within it.
      */
     @KafkaListener(
-            topics = "${kafka.topic.perk-downvoted}",
-            groupId = "${spring.kafka.consumer.group-id}"
+            topics = {"${kafka.topic.perk-upvoted}", "${kafka.topic.perk-downvoted}"},
+            groupId = "${spring.kafka.consumer.group-id}",
+            batch = "true"
     )
-    public void consumePerkDownvoted(@Payload PerkDownvotedEvent event) {
-        log.info("Consumed PerkDownvotedEvent - Perk ID: {}, New Downvote Count: {}",
-                event.getPerkId(), event.getNewDownvoteCount());
-
-        // TODO: Update read model with new vote count
-        updateVoteCountInReadModel(event.getPerkId(), null, event.getNewDownvoteCount());
-    }
-
-    /**
-     * Helper: Update search index (placeholder for Elasticsearch, etc.)
-     */
-    private void updateSearchIndex(PerkCreatedEvent event) {
-        log.debug("Updating search index for perk {}", event.getPerkId());
-        // TODO: Implement Elasticsearch indexing for fast search
+    public void consumeVotes(@Payload List<Object> events) {
+        for (int i = 0; i < events.size(); i++) {
+            Object event = events.get(i);
+            if (!(event instanceof PerkUpvotedEvent) && !(event instanceof PerkDownvotedEvent)) {
+                // Unreadable (null) or foreign record: apply what precedes it, then have the
+                // error handler dead-letter it and redeliver the rest of the poll
+                applyVotes(events.subList(0, i));
+                throw new BatchListenerFailedException("Not a vote event: " + event, i);
+            }
+        }
+        applyVotes(events);
     }
 
-    /**
-     * Helper: Update vote counts in read model (placeholder)
-     */
-    private void updateVoteCountInReadModel(Long perkId, Integer upvotes, Integer downvotes) {
-        log.debug("Updating vote counts in read model for perk {}", perkId);
-        // TODO: Update read model and cache with new vote counts
+    private void applyVotes(List<Object> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        int updates = readModelUpdater.applyVotes(events);
+        voteBatchSizes.record(events.size());
+        if (updates > 0) {
+            voteCoalescing.record((double) events.size() / updates);
+        }
+        log.info("Consumed {} vote events - {} perk updates", events.size(), updates);
     }
 }
@@ -1,7 +1,9 @@
 package com.example.perkmanager.consumer;
 
 import com.example.perkmanager.event.MembershipAddedEvent;
+import com.example.perkmanager.event.PerkAddedEvent;
 import com.example.perkmanager.event.UserRegisteredEvent;
+import com.example.perkmanager.projection.ReadModelUpdater;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -11,12 +13,20 @@ import org.springframework.stereotype.Component;
 /**
  * Kafka Event Consumer: User and Profile Events
  * Listens to user/profile events and updates read models
+ * (called by InProcessEventTransport instead when perk.events.transport=in-process)
+ * Failed records go to retry topics, then to a dead-letter topic (see KafkaRetryConfig)
  */
 @Component
 public class UserEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(UserEventConsumer.class);
 
+    private final ReadModelUpdater readModelUpdater;
+
+    public UserEventConsumer(ReadModelUpdater readModelUpdater) {
+        this.readModelUpdater = readModelUpdater;
+    }
+
     /**
      * Consumer: UserRegisteredEvent
      * Can trigger welcome emails, analytics, etc.
@@ -34,7 +44,7 @@ public class UserEventConsumer {
 
     /**
      * Consumer: MembershipAddedEvent
-     * Can trigger personalized recommendations
+     * Updates the matching-perks view; can trigger personalized recommendations
      */
     @KafkaListener(
             topics = "${kafka.topic.membership-added}",
@@ -44,6 +54,21 @@ public class UserEventConsumer {
         log.info("Consumed MembershipAddedEvent - User ID: {}, Profile ID: {}, Membership: {}",
                 event.getUserId(), event.getProfileId(), event.getMembership());
 
-        // TODO: In production, update read model and trigger personalized recommendations
+        readModelUpdater.apply(event);
+        // TODO: In production, trigger personalized recommendations
+    }
+
+    /**
+     * Consumer: PerkAddedEvent
+     * Moves the perk into the user's "Your Perks" list in the matching-perks view
+     */
+    @KafkaListener(
+            topics = "${kafka.topic.perk-added}",
+            groupId = "${spring.kafka.consumer.group-id}"
+    )
+    public void consumePerkAdded(@Payload PerkAddedEvent event) {
+        log.info("Consumed PerkAddedEvent - {}", event);
+
+        readModelUpdater.apply(event);
     }
 }
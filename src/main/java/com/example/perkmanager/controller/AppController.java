@@ -1,11 +1,16 @@
 package com.example.perkmanager.controller;
 
+import com.example.perkmanager.command.UpvotePerkCommand;
 import com.example.perkmanager.model.AppUser;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.model.Profile;
 import com.example.perkmanager.repository.PerkRepository;
 import com.example.perkmanager.repository.UserRepository;
+import com.example.perkmanager.service.CommandBus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/perkmanager")
@@ -23,14 +29,17 @@ public class AppController {
     private final UserRepository userRepo;
     private final PerkRepository perkRepo;
     private final PasswordEncoder passwordEncoder;
+    private final CommandBus commandBus;
 
     @Autowired
     public AppController(UserRepository userRepo,
                          PerkRepository perkRepo,
-                         PasswordEncoder passwordEncoder) {
+                         PasswordEncoder passwordEncoder,
+                         CommandBus commandBus) {
         this.userRepo = userRepo;
         this.perkRepo = perkRepo;
         this.passwordEncoder = passwordEncoder;
+        this.commandBus = commandBus;
     }
 
     // ---------------------------------------------------------------------
@@ -140,16 +149,21 @@ public class AppController {
         return ResponseEntity.ok(saved);
     }
 
-    // POST /api/perkmanager/perks/{perkId}/upvote
+    // POST /api/perkmanager/perks/{perkId}/upvote?userId=  (legacy: same vote as POST /api/cqrs/perks/{perkId}/upvote)
+    // Votes are per user (PerkVote rows), so the vote goes through the command bus like any other
     @PostMapping("/perks/{perkId}/upvote")
-    public ResponseEntity<Perk> upvotePerk(@PathVariable Long perkId) {
-        return perkRepo.findById(perkId)
-                .map(perk -> {
-                    perk.upvote();
-                    perkRepo.save(perk);
-                    return ResponseEntity.ok(perk);
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> upvotePerk(@PathVariable Long perkId, @RequestParam Long userId) {
+        try {
+            return ResponseEntity.ok(commandBus.execute(new UpvotePerkCommand(perkId, userId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(e.getMessage());
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
 
     // PUT /api/perkmanager/{userId}/password
@@ -0,0 +1,48 @@
+package com.example.perkmanager.controller;
+
+import com.example.perkmanager.projection.ConsistencyTracker;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Read-your-writes for queries
+ * A GET carrying the X-Consistency-Token header of a command response waits until this node's
+ * read models applied that command's events (at most perk.consistency.max-wait-ms), so a client
+ * re-querying right after a write sees it even on a node fed only by Kafka. If the wait runs
+ * out, the query is still answered, marked with X-Consistency: stale.
+ */
+@Component
+public class ConsistencyInterceptor implements HandlerInterceptor {
+
+    public static final String TOKEN_HEADER = "X-Consistency-Token";
+    public static final String STATE_HEADER = "X-Consistency";
+
+    private final ConsistencyTracker consistencyTracker;
+
+    public ConsistencyInterceptor(ConsistencyTracker consistencyTracker) {
+        this.consistencyTracker = consistencyTracker;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        String token = request.getHeader(TOKEN_HEADER);
+        if (token == null || token.isBlank() || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(token.trim());
+        } catch (NumberFormatException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Malformed " + TOKEN_HEADER + ": " + token);
+            return false;
+        }
+        if (!consistencyTracker.await(sequence)) {
+            response.setHeader(STATE_HEADER, "stale");
+        }
+        return true;
+    }
+}
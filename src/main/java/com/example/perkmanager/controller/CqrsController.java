@@ -1,23 +1,45 @@
 package com.example.perkmanager.controller;
 
 import com.example.perkmanager.command.*;
+import com.example.perkmanager.consumer.DeadLetterReplayer;
+import com.example.perkmanager.dto.CommandStatusReadModel;
+import com.example.perkmanager.dto.PerkBatchResultReadModel;
+import com.example.perkmanager.dto.PerkFacetResultReadModel;
 import com.example.perkmanager.dto.PerkReadModel;
 import com.example.perkmanager.enumerations.ProductType;
 import com.example.perkmanager.dto.UserProfileReadModel;
 import com.example.perkmanager.enumerations.MembershipType;
-import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.enumerations.VoteMetric;
+import com.example.perkmanager.enumerations.VoteType;
+import com.example.perkmanager.projection.PerkProjectionStore;
+import com.example.perkmanager.projection.PerkQueryCache;
 import com.example.perkmanager.query.*;
 import com.example.perkmanager.service.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.KafkaException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -25,8 +47,12 @@ import java.util.stream.Collectors;
  * Demonstrates Command Query Responsibility Segregation pattern
  *
  * Key Principles:
- * - Commands (POST/PUT/DELETE) -> CommandHandlers -> Write DB -> Publish Events
+ * - Commands (POST/PUT/DELETE) -> Command Bus -> CommandHandlers -> Write DB -> Publish Events
+ *   (synchronous, or ?async=true for 202 + GET /commands/{commandId})
  * - Queries (GET) -> QueryHandlers -> Read Models
+ *   (X-Consistency-Token from a command response: wait briefly until its events are applied)
+ * - Perk queries carry an ETag from the projection version of what they read; If-None-Match
+ *   with the current one answers 304 without running the query
  * - Clear separation between reads and writes
  * - Events published to Kafka for eventual consistency
  *
@@ -38,22 +64,38 @@ public class CqrsController {
 
     private static final Logger log = LoggerFactory.getLogger(CqrsController.class);
 
-    // Command Handlers (Write Operations)
-    private final PerkCommandHandler perkCommandHandler;
-    private final UserCommandHandler userCommandHandler;
+    private static final String NDJSON = "application/x-ndjson";
+
+    // Upper bound for perk ids in one vote lookup (one page of cards is far below this)
+    private static final int MAX_VOTE_LOOKUP = 1000;
+
+    // Projection versions restart at 0 with the node, so ETags also name the node's run
+    private static final String ETAG_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    // Command Bus (Write Operations)
+    private final CommandBus commandBus;
+    private final VoteStreamIngestor voteStreamIngestor;
 
     // Query Handlers (Read Operations)
     private final PerkQueryHandler perkQueryHandler;
     private final UserQueryHandler userQueryHandler;
+    private final PerkProjectionStore perkProjectionStore;
+
+    // Operations (Kafka transport only)
+    private final ObjectProvider<DeadLetterReplayer> deadLetterReplayer;
 
-    public CqrsController(PerkCommandHandler perkCommandHandler,
-                          UserCommandHandler userCommandHandler,
+    public CqrsController(CommandBus commandBus,
+                          VoteStreamIngestor voteStreamIngestor,
                           PerkQueryHandler perkQueryHandler,
-                          UserQueryHandler userQueryHandler) {
-        this.perkCommandHandler = perkCommandHandler;
-        this.userCommandHandler = userCommandHandler;
+                          UserQueryHandler userQueryHandler,
+                          PerkProjectionStore perkProjectionStore,
+                          ObjectProvider<DeadLetterReplayer> deadLetterReplayer) {
+        this.commandBus = commandBus;
+        this.voteStreamIngestor = voteStreamIngestor;
         this.perkQueryHandler = perkQueryHandler;
         this.userQueryHandler = userQueryHandler;
+        this.perkProjectionStore = perkProjectionStore;
+        this.deadLetterReplayer = deadLetterReplayer;
     }
 
     // =====================================================================
@@ -62,95 +104,151 @@ public class CqrsController {
 
     /**
      * Command: Create User
-     * POST /api/cqrs/users
+     * POST /api/cqrs/users[?async=true]
      */
     @PostMapping("/users")
-    public ResponseEntity<?> createUser(@Valid @RequestBody CreateUserCommand command) {
-        try {
-            log.info("Received CreateUserCommand: {}", command.getEmail());
-            var user = userCommandHandler.handle(command);
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(UserProfileReadModel.fromEntity(user));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+    public ResponseEntity<?> createUser(@Valid @RequestBody CreateUserCommand command,
+                                        @RequestParam(defaultValue = "false") boolean async) {
+        log.info("Received CreateUserCommand: {}", command.getEmail());
+        return dispatch(command, async, HttpStatus.CREATED);
     }
 
     @PostMapping("/users/{userId}/perks/{perkId}")
-    public ResponseEntity<?> addPerkToUser(@PathVariable Long userId, @PathVariable Long perkId) {
-        try {
-            log.info("Received AddPerkToUserCommand for user: {}, perk: {}", userId, perkId);
-            AddPerkCommand command = new AddPerkCommand(userId, perkId);
-            userCommandHandler.handle(command);
-            return ResponseEntity.ok("Perk added to user successfully");
-        } catch (IllegalArgumentException | IllegalStateException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+    public ResponseEntity<?> addPerkToUser(@PathVariable Long userId, @PathVariable Long perkId,
+                                           @RequestParam(defaultValue = "false") boolean async) {
+        log.info("Received AddPerkToUserCommand for user: {}, perk: {}", userId, perkId);
+        AddPerkCommand command = new AddPerkCommand(userId, perkId);
+        return dispatch(command, async, HttpStatus.OK);
     }
 
     /**
      * Command: Create Perk
-     * POST /api/cqrs/perks
+     * POST /api/cqrs/perks[?async=true]
      */
     @PostMapping("/perks")
-    public ResponseEntity<?> createPerk(@Valid @RequestBody CreatePerkCommand command) {
-        try {
-            log.info("Received CreatePerkCommand for user: {}", command.getUserId());
-            Perk perk = perkCommandHandler.handle(command);
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(PerkReadModel.fromEntity(perk));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+    public ResponseEntity<?> createPerk(@Valid @RequestBody CreatePerkCommand command,
+                                        @RequestParam(defaultValue = "false") boolean async) {
+        log.info("Received CreatePerkCommand for user: {}", command.getUserId());
+        return dispatch(command, async, HttpStatus.CREATED);
+    }
+
+    /**
+     * Command: Create Perks in Bulk
+     * POST /api/cqrs/perks/batch[?async=true]
+     * 201 with per-item results if at least one perk was created, 400 otherwise
+     */
+    @PostMapping("/perks/batch")
+    public ResponseEntity<?> createPerksBatch(@Valid @RequestBody CreatePerksBatchCommand command,
+                                              @RequestParam(defaultValue = "false") boolean async) {
+        log.info("Received CreatePerksBatchCommand for user: {} ({} perks)",
+                command.getUserId(), command.getPerks().size());
+        ResponseEntity<?> response = dispatch(command, async, HttpStatus.CREATED);
+        if (response.getBody() instanceof PerkBatchResultReadModel result && result.getCreated().isEmpty()) {
+            return ResponseEntity.badRequest().body(result);
         }
+        return response;
     }
 
     /**
      * Command: Upvote Perk
-     * POST /api/cqrs/perks/{perkId}/upvote
+     * POST /api/cqrs/perks/{perkId}/upvote[?async=true]
      */
     @PostMapping("/perks/{perkId}/upvote")
     public ResponseEntity<?> upvotePerk(@PathVariable Long perkId,
-                                        @RequestParam Long userId) {
-        try {
-            log.info("Received UpvotePerkCommand for perk: {}, user: {}", perkId, userId);
-            UpvotePerkCommand command = new UpvotePerkCommand(perkId, userId);
-            Perk perk = perkCommandHandler.handle(command);
-            return ResponseEntity.ok(PerkReadModel.fromEntity(perk));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+                                        @RequestParam Long userId,
+                                        @RequestParam(defaultValue = "false") boolean async) {
+        log.info("Received UpvotePerkCommand for perk: {}, user: {}", perkId, userId);
+        UpvotePerkCommand command = new UpvotePerkCommand(perkId, userId);
+        return dispatch(command, async, HttpStatus.OK);
     }
 
     /**
      * Command: Downvote Perk
-     * POST /api/cqrs/perks/{perkId}/downvote
+     * POST /api/cqrs/perks/{perkId}/downvote[?async=true]
      */
     @PostMapping("/perks/{perkId}/downvote")
     public ResponseEntity<?> downvotePerk(@PathVariable Long perkId,
-                                          @RequestParam Long userId) {
-        try {
-            log.info("Received DownvotePerkCommand for perk: {}, user: {}", perkId, userId);
-            DownvotePerkCommand command = new DownvotePerkCommand(perkId, userId);
-            Perk perk = perkCommandHandler.handle(command);
-            return ResponseEntity.ok(PerkReadModel.fromEntity(perk));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+                                          @RequestParam Long userId,
+                                          @RequestParam(defaultValue = "false") boolean async) {
+        log.info("Received DownvotePerkCommand for perk: {}, user: {}", perkId, userId);
+        DownvotePerkCommand command = new DownvotePerkCommand(perkId, userId);
+        return dispatch(command, async, HttpStatus.OK);
+    }
+
+    /**
+     * Command: Stream of Votes (NDJSON)
+     * POST /api/cqrs/votes/stream
+     * One {"perkId":..,"userId":..,"type":"UPVOTE|DOWNVOTE"} per line; the response streams
+     * one result line per input line as the votes are applied
+     */
+    @PostMapping(value = "/votes/stream", consumes = {NDJSON, MediaType.TEXT_PLAIN_VALUE})
+    public void ingestVotes(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("Received vote stream");
+        response.setContentType(NDJSON);
+        VoteStreamIngestor.Summary summary =
+                voteStreamIngestor.ingest(request.getInputStream(), response.getOutputStream());
+        log.info("Vote stream done: {} lines, {} applied, {} failed",
+                summary.lines(), summary.applied(), summary.failed());
     }
 
     /**
      * Command: Add Membership to Profile
-     * POST /api/cqrs/users/{userId}/memberships
+     * POST /api/cqrs/users/{userId}/memberships[?async=true]
      */
     @PostMapping("/users/{userId}/memberships")
     public ResponseEntity<?> addMembership(
             @PathVariable Long userId,
-            @RequestBody AddMembershipCommand command) {
+            @RequestBody AddMembershipCommand command,
+            @RequestParam(defaultValue = "false") boolean async) {
+        log.info("Received AddMembershipCommand for user: {}", userId);
+        command.setUserId(userId); // Set from path variable
+        return dispatch(command, async, HttpStatus.OK);
+    }
+
+    /**
+     * Query: Status of an Asynchronous Command
+     * GET /api/cqrs/commands/{commandId}
+     */
+    @GetMapping("/commands/{commandId}")
+    public ResponseEntity<CommandStatusReadModel> getCommandStatus(@PathVariable UUID commandId) {
+        return commandBus.status(commandId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Run a command through the command bus
+     * Synchronous: the handler's result with the given status, and the X-Consistency-Token
+     * header to send with the next queries to read this write (see ConsistencyInterceptor).
+     * Asynchronous: 202 with the queued command's status and its status URL (the status
+     * carries the token once the command succeeded).
+     * 503 when the command's queue is full, 409 when the write kept conflicting with concurrent
+     * writes after its retries, 400 when the command is invalid (e.g. an unknown perk or user),
+     * 500 when the command bus itself failed to run it.
+     */
+    private ResponseEntity<?> dispatch(Object command, boolean async, HttpStatus status) {
         try {
-            log.info("Received AddMembershipCommand for user: {}", userId);
-            command.setUserId(userId); // Set from path variable
-            userCommandHandler.handle(command);
-            return ResponseEntity.ok("Membership added successfully");
+            if (async) {
+                CommandStatusReadModel accepted = commandBus.submit(command);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/cqrs/commands/" + accepted.getCommandId()))
+                        .body(accepted);
+            }
+            CommandBus.Executed executed = commandBus.executeWithToken(command);
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+            if (executed.consistencyToken() != null) {
+                response.header(ConsistencyInterceptor.TOKEN_HEADER, executed.consistencyToken().toString());
+            }
+            return response.body(executed.result());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(e.getMessage());
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (CommandBus.BusException e) {
+            log.error("Command {} failed in the command bus", command.getClass().getSimpleName(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -162,26 +260,59 @@ public class CqrsController {
 
     /**
      * Query: Get All Perks
-     * GET /api/cqrs/perks
+     * GET /api/cqrs/perks?active=true
+     * The perk list endpoints answer with the cached, pre-encoded JSON (gzip if accepted)
      */
     @GetMapping("/perks")
-    public ResponseEntity<List<PerkReadModel>> getAllPerks() {
-        log.info("Received GetAllPerksQuery");
-        GetAllPerksQuery query = new GetAllPerksQuery();
-        List<PerkReadModel> perks = perkQueryHandler.handle(query);
-        return ResponseEntity.ok(perks);
+    public ResponseEntity<byte[]> getAllPerks(
+            @RequestParam(defaultValue = "false") boolean active,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        String etag = etag(catalogVersion(null, null), acceptsGzip(acceptEncoding));
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        log.info("Received GetAllPerksQuery (active only: {})", active);
+        GetAllPerksQuery query = new GetAllPerksQuery(active);
+        return encoded(perkQueryHandler.handleEncoded(query), acceptEncoding, etag);
     }
 
     /**
      * Query: Get Perks by Votes (Sorted)
-     * GET /api/cqrs/perks/by-votes
+     * GET /api/cqrs/perks/by-votes?sort=upvotes|net_score&order=desc|asc&membership=&product=&offset=&limit=
      */
     @GetMapping("/perks/by-votes")
-    public ResponseEntity<List<PerkReadModel>> getPerksByVotes() {
-        log.info("Received GetPerksByVotesQuery");
-        GetPerksByVotesQuery query = new GetPerksByVotesQuery(true);
-        List<PerkReadModel> perks = perkQueryHandler.handle(query);
-        return ResponseEntity.ok(perks);
+    public ResponseEntity<?> getPerksByVotes(
+            @RequestParam(defaultValue = "upvotes") String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(required = false) String membership,
+            @RequestParam(required = false) String product,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        try {
+            log.info("Received GetPerksByVotesQuery (sort: {}, order: {})", sort, order);
+            if (offset < 0 || limit < 1) {
+                return ResponseEntity.badRequest().body("Offset must be >= 0 and limit must be >= 1");
+            }
+            GetPerksByVotesQuery query = new GetPerksByVotesQuery(
+                    !"asc".equalsIgnoreCase(order),
+                    VoteMetric.valueOf(sort.toUpperCase()),
+                    membership == null ? null : MembershipType.valueOf(membership.toUpperCase()),
+                    product == null ? null : ProductType.valueOf(product.toUpperCase()),
+                    offset,
+                    limit
+            );
+            String etag = etag(catalogVersion(query.getMembership(), query.getProduct()),
+                    acceptsGzip(acceptEncoding));
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
+            return encoded(perkQueryHandler.handleEncoded(query), acceptEncoding, etag);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     /**
@@ -189,13 +320,19 @@ public class CqrsController {
      * GET /api/cqrs/perks/by-membership/{membership}
      */
     @GetMapping("/perks/by-membership/{membership}")
-    public ResponseEntity<?> getPerksByMembership(@PathVariable String membership) {
+    public ResponseEntity<?> getPerksByMembership(
+            @PathVariable String membership,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
         try {
             log.info("Received GetPerksByMembershipQuery for: {}", membership);
             MembershipType membershipType = MembershipType.valueOf(membership.toUpperCase());
+            String etag = etag(catalogVersion(membershipType, null), acceptsGzip(acceptEncoding));
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
             GetPerksByMembershipQuery query = new GetPerksByMembershipQuery(membershipType);
-            List<PerkReadModel> perks = perkQueryHandler.handle(query);
-            return ResponseEntity.ok(perks);
+            return encoded(perkQueryHandler.handleEncoded(query), acceptEncoding, etag);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body("Invalid membership type: " + membership);
@@ -207,19 +344,92 @@ public class CqrsController {
      * GET /api/cqrs/perks/by-product/{product}
      */
     @GetMapping("/perks/by-product/{product}")
-    public ResponseEntity<?> getPerksByProduct(@PathVariable String product) {
+    public ResponseEntity<?> getPerksByProduct(
+            @PathVariable String product,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
         try {
             log.info("Received GetPerksByProductQuery for: {}", product);
             ProductType productType = ProductType.valueOf(product.toUpperCase());
+            String etag = etag(catalogVersion(null, productType), acceptsGzip(acceptEncoding));
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
             GetPerksByProductQuery query = new GetPerksByProductQuery(productType);
-            List<PerkReadModel> perks = perkQueryHandler.handle(query);
-            return ResponseEntity.ok(perks);
+            return encoded(perkQueryHandler.handleEncoded(query), acceptEncoding, etag);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body("Invalid product type: " + product);
         }
     }
 
+    /**
+     * Query: Get Perks by Combined Facets (with facet counts)
+     * GET /api/cqrs/perks/by-facets?membership=VISA,CAA&product=HOTELS&active=true
+     */
+    @GetMapping("/perks/by-facets")
+    public ResponseEntity<?> getPerksByFacets(
+            @RequestParam(required = false) List<String> membership,
+            @RequestParam(required = false) List<String> product,
+            @RequestParam(required = false) Boolean active,
+            WebRequest request) {
+        try {
+            log.info("Received GetPerksByFacetsQuery (membership: {}, product: {}, active: {})",
+                    membership, product, active);
+            Set<MembershipType> memberships = EnumSet.noneOf(MembershipType.class);
+            if (membership != null) {
+                membership.forEach(m -> memberships.add(MembershipType.valueOf(m.toUpperCase())));
+            }
+            Set<ProductType> products = EnumSet.noneOf(ProductType.class);
+            if (product != null) {
+                product.forEach(p -> products.add(ProductType.valueOf(p.toUpperCase())));
+            }
+            // The facet counts cover every membership and product, so any change counts
+            String etag = etag(catalogVersion(null, null), false);
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
+            GetPerksByFacetsQuery query = new GetPerksByFacetsQuery(memberships, products, active);
+            PerkFacetResultReadModel result = perkQueryHandler.handle(query);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Query: Full-Text Search on Perk Descriptions
+     * GET /api/cqrs/perks/search?q=hotel upg&membership=VISA&product=HOTELS&limit=20
+     */
+    @GetMapping("/perks/search")
+    public ResponseEntity<?> searchPerks(
+            @RequestParam("q") String text,
+            @RequestParam(required = false) String membership,
+            @RequestParam(required = false) String product,
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        try {
+            log.info("Received SearchPerksQuery for: '{}'", text);
+            if (text.isBlank() || limit < 1) {
+                return ResponseEntity.badRequest().body("Search text is required and limit must be >= 1");
+            }
+            SearchPerksQuery query = new SearchPerksQuery(
+                    text,
+                    membership == null ? null : MembershipType.valueOf(membership.toUpperCase()),
+                    product == null ? null : ProductType.valueOf(product.toUpperCase()),
+                    limit
+            );
+            String etag = etag(catalogVersion(query.getMembership(), query.getProduct()), false);
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
+            List<PerkReadModel> perks = perkQueryHandler.handle(query);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(perks);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * Query: Get Perks Matching User Profile (Personalized)
      * GET /api/cqrs/users/{userId}/matching-perks
@@ -236,6 +446,26 @@ public class CqrsController {
         }
     }
 
+    /**
+     * Query: Get a User's Votes on a List of Perks
+     * GET /api/cqrs/users/{userId}/votes?perkIds=1,2,3
+     */
+    @GetMapping("/users/{userId}/votes")
+    public ResponseEntity<?> getUserVotes(@PathVariable Long userId,
+                                          @RequestParam List<Long> perkIds) {
+        try {
+            log.info("Received GetUserVotesQuery for user: {} ({} perks)", userId, perkIds.size());
+            if (perkIds.size() > MAX_VOTE_LOOKUP) {
+                return ResponseEntity.badRequest().body("At most " + MAX_VOTE_LOOKUP + " perk ids per request");
+            }
+            GetUserVotesQuery query = new GetUserVotesQuery(userId, perkIds);
+            Map<Long, VoteType> votes = perkQueryHandler.handle(query);
+            return ResponseEntity.ok(votes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * Query: Get User Profile
      * GET /api/cqrs/users/{userId}/profile
@@ -252,6 +482,94 @@ public class CqrsController {
         }
     }
 
+    /**
+     * Write a pre-encoded perk list as is, gzipped if the client accepts gzip
+     */
+    private static ResponseEntity<byte[]> encoded(PerkQueryCache.Encoded body, String acceptEncoding, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    /**
+     * Version of the perks a catalog query reads: those of a membership and/or product, or all
+     * (read before the query runs, so the ETag is never newer than the data sent with it)
+     */
+    private String catalogVersion(MembershipType membership, ProductType product) {
+        if (membership == null && product == null) {
+            return "v" + perkProjectionStore.version();
+        }
+        StringBuilder version = new StringBuilder();
+        if (membership != null) {
+            version.append('m').append(perkProjectionStore.version(membership));
+        }
+        if (product != null) {
+            version.append('p').append(perkProjectionStore.version(product));
+        }
+        return version.toString();
+    }
+
+    /**
+     * Strong ETag for a version; the gzip body is a different representation, so a different tag
+     */
+    private static String etag(String version, boolean gzip) {
+        return "\"" + ETAG_EPOCH + "-" + version + (gzip ? "-gz" : "") + "\"";
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 explicitly refuses it
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // =====================================================================
+    // Operations
+    // =====================================================================
+
+    /**
+     * Replay Dead Letters: send up to max records parked in {topic}-dlt back to {topic}
+     * POST /api/cqrs/dead-letters/{topic}/replay?max=100
+     * 409 with the in-process transport (nothing is dead-lettered), 503 when Kafka is unavailable.
+     */
+    @PostMapping("/dead-letters/{topic}/replay")
+    public ResponseEntity<?> replayDeadLetters(@PathVariable String topic,
+                                               @RequestParam(defaultValue = "100") int max) {
+        DeadLetterReplayer replayer = deadLetterReplayer.getIfAvailable();
+        if (replayer == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("No dead-letter topics without Kafka transport");
+        }
+        try {
+            log.info("Replaying up to {} dead letters of topic: {}", max, topic);
+            return ResponseEntity.ok(replayer.replay(topic, max));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException | KafkaException | org.apache.kafka.common.KafkaException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
     // =====================================================================
     // Health Check
     // =====================================================================
@@ -0,0 +1,55 @@
+package com.example.perkmanager.dto;
+
+import com.example.perkmanager.service.CommandBus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read Model: Status of a command submitted to the command bus
+ * result is the command's response body once it succeeded, error its message once it failed,
+ * consistencyToken the token to read its writes with (X-Consistency-Token, see CqrsController)
+ */
+public class CommandStatusReadModel {
+    private UUID commandId;
+    private String command;
+    private CommandBus.State status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private Object result;
+    private String error;
+    private Long consistencyToken;
+
+    public CommandStatusReadModel() {}
+
+    public CommandStatusReadModel(UUID commandId, String command, CommandBus.State status,
+                                  LocalDateTime submittedAt, LocalDateTime completedAt,
+                                  Object result, String error, Long consistencyToken) {
+        this.commandId = commandId;
+        this.command = command;
+        this.status = status;
+        this.submittedAt = submittedAt;
+        this.completedAt = completedAt;
+        this.result = result;
+        this.error = error;
+        this.consistencyToken = consistencyToken;
+    }
+
+    // Getters and Setters
+    public UUID getCommandId() { return commandId; }
+    public void setCommandId(UUID commandId) { this.commandId = commandId; }
+    public String getCommand() { return command; }
+    public void setCommand(String command) { this.command = command; }
+    public CommandBus.State getStatus() { return status; }
+    public void setStatus(CommandBus.State status) { this.status = status; }
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(LocalDateTime submittedAt) { this.submittedAt = submittedAt; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+    public Object getResult() { return result; }
+    public void setResult(Object result) { this.result = result; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public Long getConsistencyToken() { return consistencyToken; }
+    public void setConsistencyToken(Long consistencyToken) { this.consistencyToken = consistencyToken; }
+}
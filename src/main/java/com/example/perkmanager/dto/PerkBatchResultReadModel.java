@@ -0,0 +1,34 @@
+package com.example.perkmanager.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read Model: Outcome of a batch perk creation
+ * Per item (by position in the request): either the new perk's id or why it was rejected
+ */
+public class PerkBatchResultReadModel {
+    private int requested;
+    private List<Created> created = new ArrayList<>();
+    private List<Failure> failures = new ArrayList<>();
+
+    public record Created(int index, Long perkId) {}
+
+    public record Failure(int index, String message) {}
+
+    public PerkBatchResultReadModel() {}
+
+    public PerkBatchResultReadModel(int requested, List<Created> created, List<Failure> failures) {
+        this.requested = requested;
+        this.created = created;
+        this.failures = failures;
+    }
+
+    // Getters and Setters
+    public int getRequested() { return requested; }
+    public void setRequested(int requested) { this.requested = requested; }
+    public List<Created> getCreated() { return created; }
+    public void setCreated(List<Created> created) { this.created = created; }
+    public List<Failure> getFailures() { return failures; }
+    public void setFailures(List<Failure> failures) { this.failures = failures; }
+}
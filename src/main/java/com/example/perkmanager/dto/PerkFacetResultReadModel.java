@@ -0,0 +1,43 @@
+package com.example.perkmanager.dto;
+
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read Model: Result of a combined facet filter
+ * Matching perks plus, for every facet value, how many perks the filter
+ * would return if that value were selected
+ */
+public class PerkFacetResultReadModel {
+    private List<PerkReadModel> perks;
+    private Map<MembershipType, Integer> membershipCounts;
+    private Map<ProductType, Integer> productCounts;
+    private int activeCount;
+    private int inactiveCount;
+
+    public PerkFacetResultReadModel() {}
+
+    public PerkFacetResultReadModel(List<PerkReadModel> perks, Map<MembershipType, Integer> membershipCounts,
+                                    Map<ProductType, Integer> productCounts, int activeCount, int inactiveCount) {
+        this.perks = perks;
+        this.membershipCounts = membershipCounts;
+        this.productCounts = productCounts;
+        this.activeCount = activeCount;
+        this.inactiveCount = inactiveCount;
+    }
+
+    // Getters and Setters
+    public List<PerkReadModel> getPerks() { return perks; }
+    public void setPerks(List<PerkReadModel> perks) { this.perks = perks; }
+    public Map<MembershipType, Integer> getMembershipCounts() { return membershipCounts; }
+    public void setMembershipCounts(Map<MembershipType, Integer> membershipCounts) { this.membershipCounts = membershipCounts; }
+    public Map<ProductType, Integer> getProductCounts() { return productCounts; }
+    public void setProductCounts(Map<ProductType, Integer> productCounts) { this.productCounts = productCounts; }
+    public int getActiveCount() { return activeCount; }
+    public void setActiveCount(int activeCount) { this.activeCount = activeCount; }
+    public int getInactiveCount() { return inactiveCount; }
+    public void setInactiveCount(int inactiveCount) { this.inactiveCount = inactiveCount; }
+}
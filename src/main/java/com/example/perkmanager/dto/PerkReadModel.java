@@ -2,6 +2,8 @@ package com.example.perkmanager.dto;
 
 import com.example.perkmanager.enumerations.MembershipType;
 import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.event.PerkCreatedEvent;
+import com.example.perkmanager.event.PerkSnapshotEvent;
 
 import java.time.LocalDate;
 
@@ -61,12 +63,80 @@ public class PerkReadModel {
         model.setPostedByEmail(perk.getPostedBy() != null ? perk.getPostedBy().getEmail() : null);
 
         // Check if perk is currently active
-        LocalDate now = LocalDate.now();
-        model.setActive(now.isAfter(perk.getStartDate()) && now.isBefore(perk.getEndDate()));
+        model.setActive(isActiveOn(perk.getStartDate(), perk.getEndDate(), LocalDate.now()));
 
         return model;
     }
 
+    /**
+     * Factory method to create from PerkCreatedEvent (read side, no JPA involved)
+     */
+    public static PerkReadModel fromEvent(PerkCreatedEvent event) {
+        return new PerkReadModel(
+                event.getPerkId(),
+                event.getDescription(),
+                event.getMembership(),
+                event.getProduct(),
+                0,
+                0,
+                0,
+                event.getStartDate(),
+                event.getEndDate(),
+                event.getPostedByEmail(),
+                event.getPostedByUserId(),
+                isActiveOn(event.getStartDate(), event.getEndDate(), LocalDate.now())
+        );
+    }
+
+    /**
+     * Factory method to create from PerkSnapshotEvent (perk state topic)
+     */
+    public static PerkReadModel fromSnapshot(PerkSnapshotEvent snapshot) {
+        return new PerkReadModel(
+                snapshot.getPerkId(),
+                snapshot.getDescription(),
+                snapshot.getMembership(),
+                snapshot.getProduct(),
+                snapshot.getUpvotes(),
+                snapshot.getDownvotes(),
+                snapshot.getUpvotes() - snapshot.getDownvotes(),
+                snapshot.getStartDate(),
+                snapshot.getEndDate(),
+                snapshot.getPostedByEmail(),
+                snapshot.getPostedByUserId(),
+                isActiveOn(snapshot.getStartDate(), snapshot.getEndDate(), LocalDate.now())
+        );
+    }
+
+    /**
+     * Copy with new vote counts (net score recalculated)
+     * Read models held by the projection store are replaced, never mutated
+     */
+    public PerkReadModel withVotes(int upvotes, int downvotes) {
+        return new PerkReadModel(id, description, membership, product,
+                upvotes, downvotes, upvotes - downvotes, startDate, endDate,
+                postedByEmail, postedByUserId, isActive);
+    }
+
+    /**
+     * Copy with a new active flag
+     */
+    public PerkReadModel withActive(boolean active) {
+        return new PerkReadModel(id, description, membership, product,
+                upvotes, downvotes, netScore, startDate, endDate,
+                postedByEmail, postedByUserId, active);
+    }
+
+    /**
+     * A perk is active strictly between its start and end dates
+     */
+    public static boolean isActiveOn(LocalDate startDate, LocalDate endDate, LocalDate date) {
+        if (startDate == null || endDate == null) {
+            return false;
+        }
+        return date.isAfter(startDate) && date.isBefore(endDate);
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
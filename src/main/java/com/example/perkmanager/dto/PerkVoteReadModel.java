@@ -0,0 +1,37 @@
+package com.example.perkmanager.dto;
+
+import com.example.perkmanager.enumerations.VoteType;
+
+/**
+ * Read Model: Outcome of a vote command
+ * The perk's counts after the vote plus the voter's resulting vote (null = no vote)
+ */
+public class PerkVoteReadModel {
+    private Long perkId;
+    private int upvotes;
+    private int downvotes;
+    private int netScore;
+    private VoteType userVote;
+
+    public PerkVoteReadModel() {}
+
+    public PerkVoteReadModel(Long perkId, int upvotes, int downvotes, VoteType userVote) {
+        this.perkId = perkId;
+        this.upvotes = upvotes;
+        this.downvotes = downvotes;
+        this.netScore = upvotes - downvotes;
+        this.userVote = userVote;
+    }
+
+    // Getters and Setters
+    public Long getPerkId() { return perkId; }
+    public void setPerkId(Long perkId) { this.perkId = perkId; }
+    public int getUpvotes() { return upvotes; }
+    public void setUpvotes(int upvotes) { this.upvotes = upvotes; }
+    public int getDownvotes() { return downvotes; }
+    public void setDownvotes(int downvotes) { this.downvotes = downvotes; }
+    public int getNetScore() { return netScore; }
+    public void setNetScore(int netScore) { this.netScore = netScore; }
+    public VoteType getUserVote() { return userVote; }
+    public void setUserVote(VoteType userVote) { this.userVote = userVote; }
+}
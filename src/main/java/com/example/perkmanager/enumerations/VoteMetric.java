@@ -0,0 +1,6 @@
+package com.example.perkmanager.enumerations;
+
+public enum VoteMetric {
+    UPVOTES,
+    NET_SCORE
+}
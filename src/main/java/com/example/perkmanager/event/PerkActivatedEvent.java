@@ -0,0 +1,25 @@
+package com.example.perkmanager.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain Event: Published when a perk's validity window opens (the day after its start date)
+ * Emitted by the read side's activity scheduler so read models flip the active flag
+ * without per-request date math
+ */
+public class PerkActivatedEvent {
+    private Long perkId;
+    private LocalDateTime timestamp;
+
+    public PerkActivatedEvent() {}
+
+    public PerkActivatedEvent(Long perkId, LocalDateTime timestamp) {
+        this.perkId = perkId;
+        this.timestamp = timestamp;
+    }
+
+    public Long getPerkId() { return perkId; }
+    public void setPerkId(Long perkId) { this.perkId = perkId; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
@@ -1,33 +1,42 @@
 package com.example.perkmanager.event;
 
-import com.example.perkmanager.model.Perk;
-
+/**
+ * Domain Event: Published when a user adds an existing perk to their list
+ * References the perk by id; consumers look up its details in the perk projection
+ */
 public class PerkAddedEvent {
 
-    private final Long userId;     // The user who received the perk
-    private final Perk perk;       // The actual perk object
+    private Long userId;     // The user who received the perk
+    private Long perkId;     // The perk that was added
+
+    public PerkAddedEvent() {}
 
-    public PerkAddedEvent(Long userId, Perk perk) {
+    public PerkAddedEvent(Long userId, Long perkId) {
         this.userId = userId;
-        this.perk = perk;
+        this.perkId = perkId;
     }
 
     public Long getUserId() {
         return userId;
     }
 
-    public Perk getPerk() {
-        return perk;
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getPerkId() {
+        return perkId;
+    }
+
+    public void setPerkId(Long perkId) {
+        this.perkId = perkId;
     }
 
     @Override
     public String toString() {
         return "PerkAddedEvent{" +
                 "userId=" + userId +
-                ", perkId=" + (perk != null ? perk.getId() : null) +
-                ", description='" + (perk != null ? perk.getDescription() : null) + '\'' +
-                ", membership=" + (perk != null ? perk.getMembership() : null) +
-                ", product=" + (perk != null ? perk.getProduct() : null) +
+                ", perkId=" + perkId +
                 '}';
     }
 }
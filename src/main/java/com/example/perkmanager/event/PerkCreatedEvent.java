@@ -18,6 +18,7 @@ public class PerkCreatedEvent {
     private LocalDate startDate;
     private LocalDate endDate;
     private Long postedByUserId;
+    private String postedByEmail;
     private LocalDateTime timestamp;
 
     public PerkCreatedEvent() {}
@@ -49,6 +50,8 @@ public class PerkCreatedEvent {
     public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
     public Long getPostedByUserId() { return postedByUserId; }
     public void setPostedByUserId(Long postedByUserId) { this.postedByUserId = postedByUserId; }
+    public String getPostedByEmail() { return postedByEmail; }
+    public void setPostedByEmail(String postedByEmail) { this.postedByEmail = postedByEmail; }
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
 }
@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 public class PerkDownvotedEvent {
     private Long perkId;
     private int newDownvoteCount;
+    private int upvoteCount; // Current upvote count, so a vote switch updates both sides
     private LocalDateTime timestamp;
 
     public PerkDownvotedEvent() {}
@@ -19,10 +20,17 @@ public class PerkDownvotedEvent {
         this.timestamp = timestamp;
     }
 
+    public PerkDownvotedEvent(Long perkId, int newDownvoteCount, int upvoteCount, LocalDateTime timestamp) {
+        this(perkId, newDownvoteCount, timestamp);
+        this.upvoteCount = upvoteCount;
+    }
+
     public Long getPerkId() { return perkId; }
     public void setPerkId(Long perkId) { this.perkId = perkId; }
     public int getNewDownvoteCount() { return newDownvoteCount; }
     public void setNewDownvoteCount(int newDownvoteCount) { this.newDownvoteCount = newDownvoteCount; }
+    public int getUpvoteCount() { return upvoteCount; }
+    public void setUpvoteCount(int upvoteCount) { this.upvoteCount = upvoteCount; }
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
 }
@@ -0,0 +1,67 @@
+package com.example.perkmanager.event;
+
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * State Event: Full state of a perk as of its timestamp
+ * Published to the compacted perk.state topic (key: perkId), so the topic holds the latest
+ * snapshot of every perk and new read nodes bootstrap from it instead of replaying the deltas
+ */
+public class PerkSnapshotEvent {
+    private Long perkId;
+    private String description;
+    private MembershipType membership;
+    private ProductType product;
+    private int upvotes;
+    private int downvotes;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long postedByUserId;
+    private String postedByEmail;
+    private LocalDateTime timestamp;
+
+    public PerkSnapshotEvent() {}
+
+    public PerkSnapshotEvent(Long perkId, String description, MembershipType membership, ProductType product,
+                             int upvotes, int downvotes, LocalDate startDate, LocalDate endDate,
+                             Long postedByUserId, String postedByEmail, LocalDateTime timestamp) {
+        this.perkId = perkId;
+        this.description = description;
+        this.membership = membership;
+        this.product = product;
+        this.upvotes = upvotes;
+        this.downvotes = downvotes;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.postedByUserId = postedByUserId;
+        this.postedByEmail = postedByEmail;
+        this.timestamp = timestamp;
+    }
+
+    public Long getPerkId() { return perkId; }
+    public void setPerkId(Long perkId) { this.perkId = perkId; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public MembershipType getMembership() { return membership; }
+    public void setMembership(MembershipType membership) { this.membership = membership; }
+    public ProductType getProduct() { return product; }
+    public void setProduct(ProductType product) { this.product = product; }
+    public int getUpvotes() { return upvotes; }
+    public void setUpvotes(int upvotes) { this.upvotes = upvotes; }
+    public int getDownvotes() { return downvotes; }
+    public void setDownvotes(int downvotes) { this.downvotes = downvotes; }
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    public Long getPostedByUserId() { return postedByUserId; }
+    public void setPostedByUserId(Long postedByUserId) { this.postedByUserId = postedByUserId; }
+    public String getPostedByEmail() { return postedByEmail; }
+    public void setPostedByEmail(String postedByEmail) { this.postedByEmail = postedByEmail; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 public class PerkUpvotedEvent {
     private Long perkId;
     private int newUpvoteCount;
+    private int downvoteCount; // Current downvote count, so a vote switch updates both sides
     private LocalDateTime timestamp;
 
     public PerkUpvotedEvent() {}
@@ -19,10 +20,17 @@ public class PerkUpvotedEvent {
         this.timestamp = timestamp;
     }
 
+    public PerkUpvotedEvent(Long perkId, int newUpvoteCount, int downvoteCount, LocalDateTime timestamp) {
+        this(perkId, newUpvoteCount, timestamp);
+        this.downvoteCount = downvoteCount;
+    }
+
     public Long getPerkId() { return perkId; }
     public void setPerkId(Long perkId) { this.perkId = perkId; }
     public int getNewUpvoteCount() { return newUpvoteCount; }
     public void setNewUpvoteCount(int newUpvoteCount) { this.newUpvoteCount = newUpvoteCount; }
+    public int getDownvoteCount() { return downvoteCount; }
+    public void setDownvoteCount(int downvoteCount) { this.downvoteCount = downvoteCount; }
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
 }
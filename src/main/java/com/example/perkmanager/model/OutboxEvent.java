@@ -0,0 +1,52 @@
+package com.example.perkmanager.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Transactional outbox row: a domain event written in the same transaction as the state
+ * change it describes, waiting to be relayed to Kafka (see OutboxRelay)
+ */
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    // Sequence ids so outbox inserts join the transaction's JDBC batches
+    @Id @GeneratedValue
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    private String eventKey;
+
+    // Simple event class name, for people reading the table
+    @Column(nullable = false)
+    private String eventType;
+
+    // The event in EventCodec's binary format
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    protected OutboxEvent() {}
+
+    public OutboxEvent(String topic, String eventKey, String eventType, byte[] payload, LocalDateTime createdAt) {
+        this.topic = topic;
+        this.eventKey = eventKey;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public String getTopic() { return topic; }
+    public String getEventKey() { return eventKey; }
+    public String getEventType() { return eventType; }
+    public byte[] getPayload() { return payload; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
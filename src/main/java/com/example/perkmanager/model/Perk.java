@@ -26,6 +26,11 @@ public class Perk {
     @JsonIgnore
     private AppUser postedBy;
 
+    // Optimistic lock: whole-entity saves fail instead of overwriting concurrent counter updates
+    @Version
+    @JsonIgnore
+    private Long version;
+
     protected Perk() {} // JPA requires this
 
     public Perk(String description, MembershipType membership, ProductType product, LocalDate startDate, LocalDate endDate, AppUser postedBy) {
@@ -65,6 +70,8 @@ public class Perk {
     public LocalDate getEndDate() { return endDate; }
     public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
 
+    public Long getVersion() { return version; }
+
     public AppUser getPostedBy() { return postedBy; }
     public void setPostedBy(AppUser postedBy) { this.postedBy = postedBy; }
 
@@ -27,6 +27,10 @@ public class PerkVote {
     @Enumerated(EnumType.STRING)
     private VoteType voteType;
 
+    // Optimistic lock: two racing toggles/switches of the same vote cannot both apply
+    @Version
+    private Long version;
+
     protected PerkVote() {}
 
     public PerkVote(AppUser user, Perk perk, VoteType voteType) {
@@ -0,0 +1,180 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.transport.EventTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.BatchAcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read Side: Read-your-writes consistency
+ * Commands answer with a consistency token: the outbox sequence (OutboxEvent id) of the last
+ * event they committed. The sequence travels with the event (the perk.seq Kafka header, see
+ * EventTransport), and this tracker records which sequences this node's read models applied:
+ * - events of commands run on this node, once committed (the command handlers apply them to
+ *   the local read models right after commit, see EventPublisher);
+ * - events from the Kafka listeners, once the listener returned (install wraps them).
+ *
+ * A query carrying a token waits until its event was applied, at most
+ * perk.consistency.max-wait-ms, and is then answered either way. Sequences are kept for the
+ * most recent events only; anything older than the oldest one kept counts as applied.
+ *
+ * Metrics: perk.consistency.wait, perk.consistency.timeouts
+ */
+@Component
+public class ConsistencyTracker {
+
+    private static final int CAPACITY = 65_536;
+
+    private final long maxWaitMs;
+    private final ConcurrentSkipListSet<Long> applied = new ConcurrentSkipListSet<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile long floor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final Timer waits;
+    private final Counter timeouts;
+
+    public ConsistencyTracker(MeterRegistry meterRegistry,
+                              @Value("${perk.consistency.max-wait-ms:500}") long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+        this.waits = meterRegistry.timer("perk.consistency.wait");
+        this.timeouts = meterRegistry.counter("perk.consistency.timeouts");
+    }
+
+    /**
+     * The read models applied the event with this outbox sequence
+     */
+    public void applied(long sequence) {
+        if (sequence <= floor || !applied.add(sequence)) {
+            return;
+        }
+        if (size.incrementAndGet() > CAPACITY) {
+            Long oldest = applied.pollFirst();
+            if (oldest != null) {
+                size.decrementAndGet();
+                floor = Math.max(floor, oldest);
+            }
+        }
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public boolean isApplied(long token) {
+        return token <= floor || applied.contains(token);
+    }
+
+    /**
+     * Wait until the token's event was applied, at most perk.consistency.max-wait-ms
+     *
+     * @return whether it was applied (false: the caller reads possibly stale data)
+     */
+    public boolean await(long token) {
+        if (isApplied(token)) {
+            return true;
+        }
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        waiters.incrementAndGet();
+        lock.lock();
+        try {
+            while (!isApplied(token)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timeouts.increment();
+                    return false;
+                }
+                progress.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return isApplied(token);
+        } finally {
+            lock.unlock();
+            waiters.decrementAndGet();
+            waits.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record the sequences of the records a listener container's listener applied
+     * (install before KeyOrderedLanes, so a record counts once its lane applied it)
+     */
+    public void install(AbstractMessageListenerContainer<?, ?> container) {
+        ContainerProperties properties = container.getContainerProperties();
+        if (properties.getMessageListener() instanceof AcknowledgingConsumerAwareMessageListener<?, ?> listener) {
+            @SuppressWarnings("unchecked")
+            AcknowledgingConsumerAwareMessageListener<Object, Object> delegate =
+                    (AcknowledgingConsumerAwareMessageListener<Object, Object>) listener;
+            properties.setMessageListener(track(delegate));
+        } else if (properties.getMessageListener()
+                instanceof BatchAcknowledgingConsumerAwareMessageListener<?, ?> listener) {
+            @SuppressWarnings("unchecked")
+            BatchAcknowledgingConsumerAwareMessageListener<Object, Object> delegate =
+                    (BatchAcknowledgingConsumerAwareMessageListener<Object, Object>) listener;
+            properties.setMessageListener(trackBatch(delegate));
+        }
+    }
+
+    AcknowledgingConsumerAwareMessageListener<Object, Object> track(
+            AcknowledgingConsumerAwareMessageListener<Object, Object> delegate) {
+        return (record, acknowledgment, consumer) -> {
+            delegate.onMessage(record, acknowledgment, consumer);
+            applied(record);
+        };
+    }
+
+    private BatchAcknowledgingConsumerAwareMessageListener<Object, Object> trackBatch(
+            BatchAcknowledgingConsumerAwareMessageListener<Object, Object> delegate) {
+        return (List<ConsumerRecord<Object, Object>> records, Acknowledgment acknowledgment,
+                Consumer<?, ?> consumer) -> {
+            try {
+                delegate.onMessage(records, acknowledgment, consumer);
+            } catch (BatchListenerFailedException e) {
+                // The records ahead of the failed one were applied
+                records.subList(0, Math.max(0, Math.min(e.getIndex(), records.size()))).forEach(this::applied);
+                throw e;
+            }
+            records.forEach(this::applied);
+        };
+    }
+
+    private void applied(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(EventTransport.SEQUENCE_HEADER);
+        if (header == null) {
+            return;
+        }
+        try {
+            applied(Long.parseLong(new String(header.value(), StandardCharsets.US_ASCII)));
+        } catch (NumberFormatException e) {
+            // Not ours to judge: the record was applied, it just cannot satisfy a token
+        }
+    }
+}
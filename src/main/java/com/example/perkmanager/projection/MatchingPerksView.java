@@ -0,0 +1,206 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.event.MembershipAddedEvent;
+import com.example.perkmanager.event.PerkAddedEvent;
+import com.example.perkmanager.event.PerkCreatedEvent;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repository.PerkRepository;
+import com.example.perkmanager.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Read Side: Materialized "matching perks" view for the dashboard
+ *
+ * Shared part: one immutable snapshot of perks per membership, rebuilt lazily only
+ * after a perk of that membership changed, and shared by every user.
+ * Per-user part: whether the user has memberships and which perks they own (posted or added).
+ * The per-user part is loaded from the write DB on first access and afterwards patched by
+ * MembershipAddedEvent, PerkCreatedEvent and PerkAddedEvent.
+ *
+ * A dashboard read therefore costs O(memberships + owned perks) instead of O(all perks).
+ */
+@Component
+public class MatchingPerksView implements PerkProjectionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchingPerksView.class);
+
+    public static final String YOUR_PERKS = "Your Perks";
+
+    /**
+     * Per-user part of the view
+     */
+    private static final class UserView {
+        volatile boolean hasMemberships;
+        final Set<Long> ownedPerkIds = new ConcurrentSkipListSet<>();
+    }
+
+    /**
+     * Per-membership part of the view, shared by all users
+     */
+    private static final class Category {
+        final Map<Long, PerkReadModel> perks = new ConcurrentSkipListMap<>();
+        volatile Set<PerkReadModel> snapshot = Set.of();
+        volatile boolean dirty;
+    }
+
+    private final UserRepository userRepository;
+    private final PerkRepository perkRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<Long, UserView> users = new ConcurrentHashMap<>();
+    private final Map<Long, PerkReadModel> perksById = new ConcurrentHashMap<>();
+    private final Map<MembershipType, Category> categories = new EnumMap<>(MembershipType.class);
+
+    public MatchingPerksView(UserRepository userRepository, PerkRepository perkRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.perkRepository = perkRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (MembershipType membership : MembershipType.values()) {
+            categories.put(membership, new Category());
+        }
+    }
+
+    // =====================================================================
+    // Shared part: follows the perk projection
+    // =====================================================================
+
+    @Override
+    public void onPerkAdded(PerkReadModel perk) {
+        track(perk);
+    }
+
+    @Override
+    public void onPerkUpdated(PerkReadModel previous, PerkReadModel current) {
+        track(current);
+    }
+
+    private void track(PerkReadModel perk) {
+        perksById.put(perk.getId(), perk);
+        if (perk.getMembership() != null) {
+            Category category = categories.get(perk.getMembership());
+            category.perks.put(perk.getId(), perk);
+            category.dirty = true;
+        }
+    }
+
+    private Set<PerkReadModel> snapshot(Category category) {
+        if (category.dirty) {
+            synchronized (category) {
+                if (category.dirty) {
+                    category.dirty = false;
+                    category.snapshot = Collections.unmodifiableSet(new LinkedHashSet<>(category.perks.values()));
+                }
+            }
+        }
+        return category.snapshot;
+    }
+
+    // =====================================================================
+    // Per-user part: patched by domain events (only for users already loaded)
+    // =====================================================================
+
+    public void apply(MembershipAddedEvent event) {
+        users.computeIfPresent(event.getUserId(), (id, view) -> {
+            view.hasMemberships = true;
+            return view;
+        });
+    }
+
+    public void apply(PerkCreatedEvent event) {
+        if (event.getPostedByUserId() == null) {
+            return;
+        }
+        users.computeIfPresent(event.getPostedByUserId(), (id, view) -> {
+            view.ownedPerkIds.add(event.getPerkId());
+            return view;
+        });
+    }
+
+    public void apply(PerkAddedEvent event) {
+        if (event.getPerkId() == null) {
+            return;
+        }
+        users.computeIfPresent(event.getUserId(), (id, view) -> {
+            view.ownedPerkIds.add(event.getPerkId());
+            return view;
+        });
+    }
+
+    // =====================================================================
+    // Reads
+    // =====================================================================
+
+    /**
+     * Perks grouped by membership (excluding the user's own perks) plus "Your Perks"
+     *
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public Map<String, Set<PerkReadModel>> matchingPerks(Long userId) {
+        UserView view = users.computeIfAbsent(userId, this::load);
+        if (!view.hasMemberships) {
+            log.warn("User {} has no memberships", userId);
+            return Map.of();
+        }
+
+        Set<PerkReadModel> yourPerks = new LinkedHashSet<>();
+        EnumSet<MembershipType> ownedMemberships = EnumSet.noneOf(MembershipType.class);
+        for (Long perkId : view.ownedPerkIds) {
+            PerkReadModel perk = perksById.get(perkId);
+            if (perk != null) {
+                yourPerks.add(perk);
+                if (perk.getMembership() != null) {
+                    ownedMemberships.add(perk.getMembership());
+                }
+            }
+        }
+
+        Map<String, Set<PerkReadModel>> result = new HashMap<>();
+        categories.forEach((membership, category) -> {
+            Set<PerkReadModel> shared = snapshot(category);
+            Set<PerkReadModel> visible = shared;
+            if (ownedMemberships.contains(membership)) {
+                // Only categories holding the user's own perks need a private copy
+                visible = new LinkedHashSet<>(shared);
+                visible.removeIf(perk -> view.ownedPerkIds.contains(perk.getId()));
+            }
+            if (!visible.isEmpty()) {
+                result.put(membership.name(), visible);
+            }
+        });
+        result.put(YOUR_PERKS, yourPerks);
+        return result;
+    }
+
+    /**
+     * Build a user's part of the view from the write DB (first access only)
+     */
+    private UserView load(Long userId) {
+        return readOnlyTransaction.execute(status -> {
+            var user = userRepository.findById(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+            UserView view = new UserView();
+            view.hasMemberships = user.getProfile() != null && !user.getProfile().getMemberships().isEmpty();
+            for (Perk perk : perkRepository.findByPostedBy(user)) {
+                view.ownedPerkIds.add(perk.getId());
+            }
+            for (Perk perk : user.getPerks()) {
+                view.ownedPerkIds.add(perk.getId());
+            }
+            log.debug("Loaded matching-perks view for user {}", userId);
+            return view;
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.event.PerkActivatedEvent;
+import com.example.perkmanager.event.PerkExpiredEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Read Side: Time-driven perk activation/expiry
+ * Day-granularity timer queue (boundary date -> perk ids). Each perk is queued twice:
+ * on the day it becomes active (day after startDate) and on the day it expires (endDate).
+ * A periodic tick pops every due boundary and emits PerkActivatedEvent / PerkExpiredEvent,
+ * so read models flip the active flag once instead of recomputing it on every request.
+ *
+ * The events are local (Spring application events): every node runs its own scheduler
+ * over its own projection, so publishing them to Kafka would duplicate them.
+ */
+@Component
+public class PerkActivityScheduler implements PerkProjectionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PerkActivityScheduler.class);
+
+    private record Window(LocalDate startDate, LocalDate endDate) {}
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final NavigableMap<LocalDate, Set<Long>> boundaries = new TreeMap<>();
+    private final Map<Long, Window> windows = new HashMap<>();
+
+    public PerkActivityScheduler(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @Override
+    public void onPerkAdded(PerkReadModel perk) {
+        if (perk.getStartDate() == null || perk.getEndDate() == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        synchronized (this) {
+            windows.put(perk.getId(), new Window(perk.getStartDate(), perk.getEndDate()));
+            schedule(perk.getStartDate().plusDays(1), perk.getId(), today);
+            schedule(perk.getEndDate(), perk.getId(), today);
+        }
+    }
+
+    private void schedule(LocalDate boundary, Long perkId, LocalDate today) {
+        // Past boundaries are already reflected in the read model's initial active flag
+        if (!boundary.isBefore(today)) {
+            boundaries.computeIfAbsent(boundary, d -> new HashSet<>()).add(perkId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${perk.activity.check-interval-ms:60000}")
+    public void tick() {
+        tick(LocalDate.now());
+    }
+
+    /**
+     * Emit activation/expiry events for every boundary due on or before the given day
+     *
+     * @return number of events emitted
+     */
+    int tick(LocalDate today) {
+        Map<Long, Boolean> transitions = new LinkedHashMap<>();
+        synchronized (this) {
+            var due = boundaries.headMap(today, true);
+            for (Set<Long> perkIds : due.values()) {
+                for (Long perkId : perkIds) {
+                    Window window = windows.get(perkId);
+                    transitions.put(perkId,
+                            PerkReadModel.isActiveOn(window.startDate(), window.endDate(), today));
+                }
+            }
+            due.clear();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transitions.forEach((perkId, active) -> {
+            if (active) {
+                applicationEventPublisher.publishEvent(new PerkActivatedEvent(perkId, now));
+            } else {
+                applicationEventPublisher.publishEvent(new PerkExpiredEvent(perkId, now));
+            }
+        });
+        if (!transitions.isEmpty()) {
+            log.info("Perk activity tick for {}: {} perks re-evaluated", today, transitions.size());
+        }
+        return transitions.size();
+    }
+
+    /**
+     * Number of boundaries still queued (for monitoring)
+     */
+    public synchronized int pendingBoundaries() {
+        return boundaries.values().stream().mapToInt(Set::size).sum();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read Side: Bitmap facet index
+ * One bitset of perk ordinals per MembershipType, per ProductType and for "active".
+ * Combined filters are answered with bitwise OR (within a facet) and AND (across facets).
+ *
+ * Ordinals are handed out densely in arrival order, so plain BitSets stay compact
+ * (one bit per perk per facet value) without an external compressed-bitmap library.
+ */
+@Component
+public class PerkFacetIndex implements PerkProjectionListener {
+
+    /**
+     * Result of a facet filter: matching perk ids plus per-value counts.
+     * Each facet's counts are computed against the other facets' filters, so they
+     * tell how many results picking that value would return.
+     */
+    public record Result(List<Long> perkIds,
+                         Map<MembershipType, Integer> membershipCounts,
+                         Map<ProductType, Integer> productCounts,
+                         int activeCount,
+                         int inactiveCount) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] perkIds = new long[1024];
+    private final BitSet all = new BitSet();
+    private final BitSet active = new BitSet();
+    private final Map<MembershipType, BitSet> byMembership = new EnumMap<>(MembershipType.class);
+    private final Map<ProductType, BitSet> byProduct = new EnumMap<>(ProductType.class);
+
+    public PerkFacetIndex() {
+        for (MembershipType membership : MembershipType.values()) {
+            byMembership.put(membership, new BitSet());
+        }
+        for (ProductType product : ProductType.values()) {
+            byProduct.put(product, new BitSet());
+        }
+    }
+
+    @Override
+    public void onPerkAdded(PerkReadModel perk) {
+        lock.writeLock().lock();
+        try {
+            if (ordinals.containsKey(perk.getId())) {
+                return;
+            }
+            int ordinal = ordinals.size();
+            ordinals.put(perk.getId(), ordinal);
+            if (ordinal == perkIds.length) {
+                perkIds = Arrays.copyOf(perkIds, perkIds.length * 2);
+            }
+            perkIds[ordinal] = perk.getId();
+            all.set(ordinal);
+            active.set(ordinal, perk.isActive());
+            if (perk.getMembership() != null) {
+                byMembership.get(perk.getMembership()).set(ordinal);
+            }
+            if (perk.getProduct() != null) {
+                byProduct.get(perk.getProduct()).set(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onPerkUpdated(PerkReadModel previous, PerkReadModel current) {
+        if (previous.isActive() == current.isActive()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(current.getId());
+            if (ordinal != null) {
+                active.set(ordinal, current.isActive());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Filter perks by facets
+     *
+     * @param memberships any of these memberships (empty = no membership filter)
+     * @param products    any of these products (empty = no product filter)
+     * @param activeOnly  true = active only, false = inactive only, null = both
+     */
+    public Result filter(Set<MembershipType> memberships, Set<ProductType> products, Boolean activeOnly) {
+        lock.readLock().lock();
+        try {
+            BitSet membershipMask = union(byMembership, memberships);
+            BitSet productMask = union(byProduct, products);
+            BitSet activeMask = activeMask(activeOnly);
+
+            BitSet matches = (BitSet) membershipMask.clone();
+            matches.and(productMask);
+            matches.and(activeMask);
+
+            List<Long> ids = new ArrayList<>(matches.cardinality());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                ids.add(perkIds[i]);
+            }
+
+            // Membership counts ignore the membership filter, and so on
+            BitSet withoutMembership = (BitSet) productMask.clone();
+            withoutMembership.and(activeMask);
+            Map<MembershipType, Integer> membershipCounts = new EnumMap<>(MembershipType.class);
+            byMembership.forEach((membership, bits) ->
+                    membershipCounts.put(membership, intersectionSize(withoutMembership, bits)));
+
+            BitSet withoutProduct = (BitSet) membershipMask.clone();
+            withoutProduct.and(activeMask);
+            Map<ProductType, Integer> productCounts = new EnumMap<>(ProductType.class);
+            byProduct.forEach((product, bits) ->
+                    productCounts.put(product, intersectionSize(withoutProduct, bits)));
+
+            BitSet withoutActive = (BitSet) membershipMask.clone();
+            withoutActive.and(productMask);
+            int activeCount = intersectionSize(withoutActive, active);
+            int inactiveCount = withoutActive.cardinality() - activeCount;
+
+            return new Result(ids, membershipCounts, productCounts, activeCount, inactiveCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <K> BitSet union(Map<K, BitSet> facet, Set<K> values) {
+        if (values == null || values.isEmpty()) {
+            return all;
+        }
+        BitSet result = new BitSet();
+        for (K value : values) {
+            result.or(facet.get(value));
+        }
+        return result;
+    }
+
+    private BitSet activeMask(Boolean activeOnly) {
+        if (activeOnly == null) {
+            return all;
+        }
+        if (activeOnly) {
+            return active;
+        }
+        BitSet inactive = (BitSet) all.clone();
+        inactive.andNot(active);
+        return inactive;
+    }
+
+    private static int intersectionSize(BitSet left, BitSet right) {
+        BitSet copy = (BitSet) left.clone();
+        copy.and(right);
+        return copy.cardinality();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.enumerations.VoteMetric;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Read Side: Vote leaderboard
+ * Ordered indexes of perk ids by upvotes and by net score, maintained incrementally
+ * from projection changes (O(log n) per vote) instead of sorting the perk table per request
+ *
+ * Every perk is ranked in four scopes: global, its membership, its product,
+ * and its membership + product combination.
+ */
+@Component
+public class PerkLeaderboard implements PerkProjectionListener {
+
+    /**
+     * Leaderboard scope; a null membership or product means "any"
+     */
+    private record Scope(VoteMetric metric, MembershipType membership, ProductType product) {}
+
+    private final Map<Scope, RankedIndex> indexes = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPerkAdded(PerkReadModel perk) {
+        for (VoteMetric metric : VoteMetric.values()) {
+            int score = score(perk, metric);
+            for (Scope scope : scopesOf(perk, metric)) {
+                index(scope).insert(score, perk.getId());
+            }
+        }
+    }
+
+    @Override
+    public void onPerkUpdated(PerkReadModel previous, PerkReadModel current) {
+        for (VoteMetric metric : VoteMetric.values()) {
+            int oldScore = score(previous, metric);
+            int newScore = score(current, metric);
+            if (oldScore == newScore) {
+                continue;
+            }
+            for (Scope scope : scopesOf(current, metric)) {
+                RankedIndex index = index(scope);
+                index.remove(oldScore, previous.getId());
+                index.insert(newScore, current.getId());
+            }
+        }
+    }
+
+    /**
+     * Top-K read: perk ids at ranks [offset, offset + limit)
+     *
+     * @param membership scope to a membership, or null for any
+     * @param product    scope to a product, or null for any
+     */
+    public List<Long> range(VoteMetric metric, boolean descending, int offset, int limit,
+                            MembershipType membership, ProductType product) {
+        RankedIndex index = indexes.get(new Scope(metric, membership, product));
+        if (index == null) {
+            return List.of();
+        }
+        return index.range(Math.max(offset, 0), limit, descending);
+    }
+
+    /**
+     * Number of perks ranked in a scope
+     */
+    public int size(MembershipType membership, ProductType product) {
+        RankedIndex index = indexes.get(new Scope(VoteMetric.UPVOTES, membership, product));
+        return index == null ? 0 : index.size();
+    }
+
+    private RankedIndex index(Scope scope) {
+        return indexes.computeIfAbsent(scope, s -> new RankedIndex());
+    }
+
+    private static List<Scope> scopesOf(PerkReadModel perk, VoteMetric metric) {
+        MembershipType membership = perk.getMembership();
+        ProductType product = perk.getProduct();
+        // distinct(): a perk without membership/product collapses onto the wider scopes
+        return Stream.of(
+                        new Scope(metric, null, null),
+                        new Scope(metric, membership, null),
+                        new Scope(metric, null, product),
+                        new Scope(metric, membership, product))
+                .distinct()
+                .toList();
+    }
+
+    private static int score(PerkReadModel perk, VoteMetric metric) {
+        return switch (metric) {
+            case UPVOTES -> perk.getUpvotes();
+            case NET_SCORE -> perk.getNetScore();
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+
+/**
+ * Read Side: Hook for secondary indexes that follow the perk projection
+ * Called by PerkProjectionStore after each change, one writer at a time
+ */
+public interface PerkProjectionListener {
+
+    /**
+     * A perk entered the projection (bootstrap or PerkCreatedEvent)
+     */
+    default void onPerkAdded(PerkReadModel perk) {}
+
+    /**
+     * A perk was replaced with a new version (votes, active flag, ...)
+     */
+    default void onPerkUpdated(PerkReadModel previous, PerkReadModel current) {}
+}
@@ -0,0 +1,297 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.event.PerkActivatedEvent;
+import com.example.perkmanager.event.PerkCreatedEvent;
+import com.example.perkmanager.event.PerkDownvotedEvent;
+import com.example.perkmanager.event.PerkExpiredEvent;
+import com.example.perkmanager.event.PerkSnapshotEvent;
+import com.example.perkmanager.event.PerkUpvotedEvent;
+import com.example.perkmanager.repository.PerkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read Side: In-memory projection of perks
+ * Holds one PerkReadModel per perk id, maintained from PerkCreated/PerkUpvoted/PerkDownvoted events
+ * and the PerkActivated/PerkExpired events of PerkActivityScheduler, and seeded from the write DB
+ * or, on a new read node, from the perk state topic (PerkStateLoader)
+ *
+ * Queries are answered from here without touching JPA. Stored read models are
+ * never mutated; every update replaces the entry, so readers always see a consistent perk.
+ * Vote events carry absolute counts, so applying the same event twice is harmless.
+ *
+ * Writes are serialized (single writer) and each change is forwarded to the
+ * registered PerkProjectionListener indexes; reads are lock-free. The query cache hears of a
+ * change last, once the indexes its queries read are up to date.
+ *
+ * Versions: every change increments the projection version and the versions of the perk's
+ * membership and product (before and after the change), once all listeners have applied it.
+ * A reader that saw a version therefore reads data at least that recent (the ETags of the
+ * query endpoints are built from them).
+ */
+@Component
+public class PerkProjectionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PerkProjectionStore.class);
+
+    /**
+     * Absolute vote counts of a perk as of a vote event
+     */
+    public record VoteCounts(Long perkId, int upvotes, int downvotes, LocalDateTime timestamp) {}
+
+    private final PerkRepository perkRepository;
+    private final List<PerkProjectionListener> listeners;
+
+    // Primary store ordered by perk id (same order as the write DB)
+    private final ConcurrentSkipListMap<Long, PerkReadModel> perks = new ConcurrentSkipListMap<>();
+
+    // Secondary indexes: perk ids per membership / product
+    private final Map<MembershipType, Set<Long>> byMembership = new EnumMap<>(MembershipType.class);
+    private final Map<ProductType, Set<Long>> byProduct = new EnumMap<>(ProductType.class);
+
+    // Timestamp of the last vote event applied per perk (ignores late, out-of-order events)
+    private final Map<Long, LocalDateTime> lastVoteAt = new HashMap<>();
+
+    // Change counters: whole projection, per membership, per product (by ordinal)
+    private volatile long version;
+    private final AtomicLongArray membershipVersions = new AtomicLongArray(MembershipType.values().length);
+    private final AtomicLongArray productVersions = new AtomicLongArray(ProductType.values().length);
+
+    public PerkProjectionStore(PerkRepository perkRepository, List<PerkProjectionListener> listeners) {
+        this.perkRepository = perkRepository;
+        this.listeners = listeners.stream()
+                .sorted(Comparator.comparing(PerkQueryCache.class::isInstance))
+                .toList();
+        for (MembershipType membership : MembershipType.values()) {
+            byMembership.put(membership, new ConcurrentSkipListSet<>());
+        }
+        for (ProductType product : ProductType.values()) {
+            byProduct.put(product, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    /**
+     * Bootstrap: load existing perks from the write DB once, before serving queries
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void bootstrap() {
+        int loaded = 0;
+        for (var perk : perkRepository.findAll()) {
+            if (!perks.containsKey(perk.getId())) {
+                add(PerkReadModel.fromEntity(perk));
+                loaded++;
+            }
+        }
+        log.info("Perk projection bootstrapped with {} perks", loaded);
+    }
+
+    // =====================================================================
+    // Event application
+    // =====================================================================
+
+    /**
+     * Apply PerkCreatedEvent: insert the perk if it is not already known
+     */
+    public synchronized void apply(PerkCreatedEvent event) {
+        if (event.getPerkId() == null || perks.containsKey(event.getPerkId())) {
+            return;
+        }
+        add(PerkReadModel.fromEvent(event));
+    }
+
+    /**
+     * Apply PerkUpvotedEvent: absolute upvote (and current downvote) count
+     */
+    public synchronized void apply(PerkUpvotedEvent event) {
+        updateVotes(event.getPerkId(), event.getNewUpvoteCount(), event.getDownvoteCount(), event.getTimestamp());
+    }
+
+    /**
+     * Apply PerkDownvotedEvent: absolute downvote (and current upvote) count
+     */
+    public synchronized void apply(PerkDownvotedEvent event) {
+        updateVotes(event.getPerkId(), event.getUpvoteCount(), event.getNewDownvoteCount(), event.getTimestamp());
+    }
+
+    /**
+     * Apply the vote counts of many perks in one pass (one lock acquisition for the whole batch)
+     */
+    public synchronized void applyVotes(Collection<VoteCounts> counts) {
+        for (VoteCounts vote : counts) {
+            updateVotes(vote.perkId(), vote.upvotes(), vote.downvotes(), vote.timestamp());
+        }
+    }
+
+    /**
+     * Apply perk snapshots (perk state topic): unknown perks are added, known ones take the
+     * snapshot's vote counts unless a newer vote event was applied already
+     */
+    public synchronized void applySnapshots(Collection<PerkSnapshotEvent> snapshots) {
+        for (PerkSnapshotEvent snapshot : snapshots) {
+            if (snapshot.getPerkId() == null) {
+                continue;
+            }
+            if (perks.containsKey(snapshot.getPerkId())) {
+                updateVotes(snapshot.getPerkId(), snapshot.getUpvotes(), snapshot.getDownvotes(),
+                        snapshot.getTimestamp());
+            } else {
+                add(PerkReadModel.fromSnapshot(snapshot));
+                if (snapshot.getTimestamp() != null) {
+                    lastVoteAt.put(snapshot.getPerkId(), snapshot.getTimestamp());
+                }
+            }
+        }
+    }
+
+    private void updateVotes(Long perkId, int upvotes, int downvotes, LocalDateTime timestamp) {
+        PerkReadModel current = perkId == null ? null : perks.get(perkId);
+        if (current == null) {
+            return;
+        }
+        if (timestamp != null) {
+            LocalDateTime previous = lastVoteAt.get(perkId);
+            if (previous != null && timestamp.isBefore(previous)) {
+                log.debug("Ignoring stale vote event for perk {}", perkId);
+                return;
+            }
+            lastVoteAt.put(perkId, timestamp);
+        }
+        if (current.getUpvotes() != upvotes || current.getDownvotes() != downvotes) {
+            replace(current, current.withVotes(upvotes, downvotes));
+        }
+    }
+
+    /**
+     * Apply PerkActivatedEvent: perk entered its validity window
+     */
+    public synchronized void apply(PerkActivatedEvent event) {
+        updateActive(event.getPerkId(), true);
+    }
+
+    /**
+     * Apply PerkExpiredEvent: perk left its validity window
+     */
+    public synchronized void apply(PerkExpiredEvent event) {
+        updateActive(event.getPerkId(), false);
+    }
+
+    private void updateActive(Long perkId, boolean active) {
+        PerkReadModel current = perkId == null ? null : perks.get(perkId);
+        if (current != null && current.isActive() != active) {
+            replace(current, current.withActive(active));
+        }
+    }
+
+    private void add(PerkReadModel model) {
+        perks.put(model.getId(), model);
+        if (model.getMembership() != null) {
+            byMembership.get(model.getMembership()).add(model.getId());
+        }
+        if (model.getProduct() != null) {
+            byProduct.get(model.getProduct()).add(model.getId());
+        }
+        for (PerkProjectionListener listener : listeners) {
+            listener.onPerkAdded(model);
+        }
+        changed(model, model);
+    }
+
+    private void replace(PerkReadModel previous, PerkReadModel current) {
+        perks.put(current.getId(), current);
+        for (PerkProjectionListener listener : listeners) {
+            listener.onPerkUpdated(previous, current);
+        }
+        changed(previous, current);
+    }
+
+    private void changed(PerkReadModel previous, PerkReadModel current) {
+        if (previous.getMembership() != null) {
+            membershipVersions.incrementAndGet(previous.getMembership().ordinal());
+        }
+        if (current.getMembership() != null && current.getMembership() != previous.getMembership()) {
+            membershipVersions.incrementAndGet(current.getMembership().ordinal());
+        }
+        if (previous.getProduct() != null) {
+            productVersions.incrementAndGet(previous.getProduct().ordinal());
+        }
+        if (current.getProduct() != null && current.getProduct() != previous.getProduct()) {
+            productVersions.incrementAndGet(current.getProduct().ordinal());
+        }
+        version++; // Single writer
+    }
+
+    // =====================================================================
+    // Reads
+    // =====================================================================
+
+    public Optional<PerkReadModel> get(Long perkId) {
+        return Optional.ofNullable(perks.get(perkId));
+    }
+
+    public List<PerkReadModel> findAll() {
+        return new ArrayList<>(perks.values());
+    }
+
+    public List<PerkReadModel> findByMembership(MembershipType membership) {
+        return resolve(byMembership.get(membership));
+    }
+
+    public List<PerkReadModel> findByProduct(ProductType product) {
+        return resolve(byProduct.get(product));
+    }
+
+    /**
+     * Resolve perk ids (e.g. from a secondary index) to read models, keeping their order
+     */
+    public List<PerkReadModel> findAllById(Collection<Long> ids) {
+        return resolve(ids);
+    }
+
+    public int size() {
+        return perks.size();
+    }
+
+    /**
+     * Number of changes applied so far (restarts at 0 with the node)
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Number of changes applied so far to perks of this membership
+     */
+    public long version(MembershipType membership) {
+        return membershipVersions.get(membership.ordinal());
+    }
+
+    /**
+     * Number of changes applied so far to perks of this product
+     */
+    public long version(ProductType product) {
+        return productVersions.get(product.ordinal());
+    }
+
+    private List<PerkReadModel> resolve(Collection<Long> ids) {
+        List<PerkReadModel> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PerkReadModel model = perks.get(id);
+            if (model != null) {
+                result.add(model);
+            }
+        }
+        return result;
+    }
+}
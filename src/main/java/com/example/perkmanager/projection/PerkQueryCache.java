@@ -0,0 +1,292 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.enumerations.VoteMetric;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read Side: Query result cache
+ * Perk list queries (all perks, by membership, by product, by votes) return the same list to
+ * every caller until a perk they contain changes, so their results are kept per query and
+ * parameters. The cache follows the projection: a changed perk invalidates only the entries it
+ * can appear in (a vote on a VISA/HOTELS perk: all perks, VISA, HOTELS, and the vote rankings
+ * scoped to any/VISA x any/HOTELS), the others keep being served.
+ *
+ * Bounded by weight: one unit per perk in a result (plus one per entry), at most
+ * perk.query-cache.max-weight over all query types; past it the least recently read entries are
+ * evicted. 0 disables the cache.
+ *
+ * A result computed while one of its perks changed is returned but not kept. The store tells
+ * the cache last (after the indexes the queries read), so a query recomputed after an
+ * invalidation sees the change.
+ *
+ * The list endpoints write a result's JSON (and gzip) bytes straight to the response: they are
+ * encoded once per entry, on first use, and dropped with it, so a catalog is serialized once
+ * per change instead of once per request.
+ *
+ * Metrics (tag query): perk.query.cache.gets (tag result: hit/miss), perk.query.cache.evictions,
+ * perk.query.cache.invalidations, perk.query.cache.encodings; perk.query.cache.size,
+ * perk.query.cache.weight
+ */
+@Component
+public class PerkQueryCache implements PerkProjectionListener {
+
+    /**
+     * A cached query with its parameters
+     */
+    public sealed interface Key {
+
+        String query();
+
+        /**
+         * Could the perk (before or after a change) be part of this query's result
+         */
+        boolean contains(PerkReadModel perk);
+    }
+
+    public record AllPerks(boolean activeOnly) implements Key {
+        public String query() { return "all"; }
+        public boolean contains(PerkReadModel perk) { return !activeOnly || perk.isActive(); }
+    }
+
+    public record ByMembership(MembershipType membership) implements Key {
+        public String query() { return "by-membership"; }
+        public boolean contains(PerkReadModel perk) { return perk.getMembership() == membership; }
+    }
+
+    public record ByProduct(ProductType product) implements Key {
+        public String query() { return "by-product"; }
+        public boolean contains(PerkReadModel perk) { return perk.getProduct() == product; }
+    }
+
+    public record ByVotes(VoteMetric metric, boolean descending, MembershipType membership, ProductType product,
+                          int offset, int limit) implements Key {
+        public String query() { return "by-votes"; }
+        public boolean contains(PerkReadModel perk) {
+            return (membership == null || perk.getMembership() == membership)
+                    && (product == null || perk.getProduct() == product);
+        }
+    }
+
+    /**
+     * A result encoded as the JSON response body, and that body gzipped
+     */
+    public record Encoded(byte[] json, byte[] gzip) {}
+
+    private static final class Entry {
+        final List<PerkReadModel> value;
+        final int weight;
+        volatile long lastRead;
+        volatile Encoded encoded;
+
+        Entry(List<PerkReadModel> value, long lastRead) {
+            this.value = value;
+            this.weight = value.size() + 1;
+            this.lastRead = lastRead;
+        }
+    }
+
+    /**
+     * A result being computed; set stale when one of its perks changes meanwhile
+     */
+    private static final class Load {
+        final Key key;
+        volatile boolean stale;
+
+        Load(Key key) {
+            this.key = key;
+        }
+    }
+
+    private static final List<String> QUERIES = List.of("all", "by-membership", "by-product", "by-votes");
+
+    private final ObjectMapper objectMapper;
+    private final long maxWeight;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Load> loads = ConcurrentHashMap.newKeySet();
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final Map<String, Counter> hits = new HashMap<>();
+    private final Map<String, Counter> misses = new HashMap<>();
+    private final Map<String, Counter> evictions = new HashMap<>();
+    private final Map<String, Counter> invalidations = new HashMap<>();
+    private final Map<String, Counter> encodings = new HashMap<>();
+
+    public PerkQueryCache(MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                          @Value("${perk.query-cache.max-weight:100000}") long maxWeight) {
+        this.objectMapper = objectMapper;
+        this.maxWeight = maxWeight;
+        for (String query : QUERIES) {
+            hits.put(query, meterRegistry.counter("perk.query.cache.gets", "query", query, "result", "hit"));
+            misses.put(query, meterRegistry.counter("perk.query.cache.gets", "query", query, "result", "miss"));
+            evictions.put(query, meterRegistry.counter("perk.query.cache.evictions", "query", query));
+            invalidations.put(query, meterRegistry.counter("perk.query.cache.invalidations", "query", query));
+            encodings.put(query, meterRegistry.counter("perk.query.cache.encodings", "query", query));
+        }
+        meterRegistry.gauge("perk.query.cache.size", entries, Map::size);
+        meterRegistry.gauge("perk.query.cache.weight", weight);
+    }
+
+    /**
+     * The cached result of a query, or the loader's (kept unless one of its perks changed meanwhile)
+     */
+    public List<PerkReadModel> get(Key key, Supplier<List<PerkReadModel>> loader) {
+        return entry(key, loader).value;
+    }
+
+    /**
+     * The query's result as response bytes, encoded at most once per cached result
+     */
+    public Encoded encoded(Key key, Supplier<List<PerkReadModel>> loader) {
+        Entry entry = entry(key, loader);
+        Encoded encoded = entry.encoded;
+        if (encoded == null) {
+            // Racing readers may both encode; either copy is the same bytes
+            encoded = encode(entry.value);
+            entry.encoded = encoded;
+            encodings.get(key.query()).increment();
+        }
+        return encoded;
+    }
+
+    /**
+     * The cached entry of a query, or a new one from the loader (not kept if it cannot be)
+     */
+    private Entry entry(Key key, Supplier<List<PerkReadModel>> loader) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.lastRead = clock.incrementAndGet();
+            hits.get(key.query()).increment();
+            return entry;
+        }
+        misses.get(key.query()).increment();
+        if (maxWeight <= 0) {
+            return new Entry(Collections.unmodifiableList(loader.get()), 0);
+        }
+
+        // The load stays registered until the entry is in place (or dropped), so an invalidation
+        // at any point before that either marks it stale or finds the entry
+        Load load = new Load(key);
+        loads.add(load);
+        Entry loaded;
+        try {
+            loaded = new Entry(Collections.unmodifiableList(loader.get()), clock.incrementAndGet());
+            if (load.stale || loaded.weight > maxWeight) {
+                return loaded;
+            }
+            Entry replaced = entries.put(key, loaded);
+            weight.addAndGet(loaded.weight - (replaced == null ? 0 : replaced.weight));
+            if (load.stale && entries.remove(key, loaded)) {
+                // A perk changed after the check above, and its invalidation may have missed the entry
+                weight.addAndGet(-loaded.weight);
+                return loaded;
+            }
+        } finally {
+            loads.remove(load);
+        }
+        if (weight.get() > maxWeight) {
+            evict();
+        }
+        return loaded;
+    }
+
+    @Override
+    public void onPerkAdded(PerkReadModel perk) {
+        invalidate(perk, perk);
+    }
+
+    @Override
+    public void onPerkUpdated(PerkReadModel previous, PerkReadModel current) {
+        invalidate(previous, current);
+    }
+
+    public void clear() {
+        for (Load load : loads) {
+            load.stale = true;
+        }
+        for (Key key : entries.keySet()) {
+            remove(key, invalidations);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void invalidate(PerkReadModel previous, PerkReadModel current) {
+        // In-flight loads first: a load registered later reads the indexes after the change
+        for (Load load : loads) {
+            if (load.key.contains(previous) || load.key.contains(current)) {
+                load.stale = true;
+            }
+        }
+        for (Key key : entries.keySet()) {
+            if (key.contains(previous) || key.contains(current)) {
+                remove(key, invalidations);
+            }
+        }
+    }
+
+    private Encoded encode(List<PerkReadModel> value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+                out.write(json);
+            }
+            return new Encoded(json, gzip.toByteArray());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Perk read models could not be encoded", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Drop the least recently read entries until the cache is within its weight
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return; // Another thread is evicting
+        }
+        try {
+            List<Map.Entry<Key, Entry>> byAge = new ArrayList<>(entries.entrySet());
+            byAge.sort(Comparator.comparingLong(e -> e.getValue().lastRead));
+            for (Map.Entry<Key, Entry> oldest : byAge) {
+                if (weight.get() <= maxWeight) {
+                    break;
+                }
+                remove(oldest.getKey(), evictions);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void remove(Key key, Map<String, Counter> reason) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight.addAndGet(-removed.weight);
+            reason.get(key.query()).increment();
+        }
+    }
+}
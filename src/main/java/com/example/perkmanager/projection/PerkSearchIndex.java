@@ -0,0 +1,134 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read Side: Full-text search index over perk descriptions
+ * Inverted index (term -> perk id -> term frequency) kept in a sorted map so a query
+ * term also matches every indexed term it is a prefix of. Results are ranked with BM25;
+ * exact term matches weigh more than prefix expansions.
+ *
+ * Every query term must match (AND semantics). Fed from the perk projection, so it
+ * follows PerkCreatedEvent and the startup bootstrap.
+ */
+@Component
+public class PerkSearchIndex implements PerkProjectionListener {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private record Document(int length, MembershipType membership, ProductType product) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    @Override
+    public void onPerkAdded(PerkReadModel perk) {
+        List<String> terms = tokenize(perk.getDescription());
+        lock.writeLock().lock();
+        try {
+            if (documents.containsKey(perk.getId())) {
+                return;
+            }
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new HashMap<>()).merge(perk.getId(), 1, Integer::sum);
+            }
+            documents.put(perk.getId(), new Document(terms.size(), perk.getMembership(), perk.getProduct()));
+            totalLength += terms.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search descriptions, best match first
+     *
+     * @param membership only perks of this membership, or null for any
+     * @param product    only perks of this product, or null for any
+     */
+    public List<Long> search(String text, MembershipType membership, ProductType product, int limit) {
+        List<String> queryTerms = tokenize(text);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            Map<Long, Double> scores = null;
+            for (String queryTerm : new LinkedHashSet<>(queryTerms)) {
+                Map<Long, Double> termScores = new HashMap<>();
+                for (var entry : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                    double weight = entry.getKey().equals(queryTerm) ? 1.0 : PREFIX_WEIGHT;
+                    Map<Long, Integer> posting = entry.getValue();
+                    double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                    posting.forEach((perkId, frequency) -> {
+                        Document document = documents.get(perkId);
+                        if (!matches(document, membership, product)) {
+                            return;
+                        }
+                        double norm = frequency + K1 * (1 - B + B * document.length() / averageLength);
+                        double score = weight * idf * frequency * (K1 + 1) / norm;
+                        termScores.merge(perkId, score, Math::max);
+                    });
+                }
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // AND: keep only perks matching every query term
+                    Map<Long, Double> combined = scores;
+                    combined.keySet().retainAll(termScores.keySet());
+                    combined.replaceAll((perkId, score) -> score + termScores.get(perkId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matches(Document document, MembershipType membership, ProductType product) {
+        return (membership == null || membership == document.membership())
+                && (product == null || product == document.product());
+    }
+
+    /**
+     * Lower-case, split on anything that is not a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+}
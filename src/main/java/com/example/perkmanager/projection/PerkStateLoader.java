@@ -0,0 +1,153 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.event.PerkSnapshotEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Read Side: Bootstrap from the perk state topic
+ * A new read node has no catalog in its own database; replaying the delta topics would cost the
+ * whole vote history. Instead it reads the log-compacted perk.state topic (one PerkSnapshotEvent
+ * per perk, see PerkStatePublisher) from the beginning up to its end offsets, with one consumer
+ * per partition in parallel, and applies the newest snapshot of each perk to the projection in
+ * one pass. This runs once the singletons are created, so before the web server takes requests.
+ *
+ * The consumers are assigned their partitions directly and commit nothing, so the consumer
+ * group's delta offsets are untouched. Delta events older than a perk's snapshot are ignored by
+ * the projection, newer ones apply on top. A failed or timed out load is logged and the node
+ * carries on with the database bootstrap.
+ *
+ * Enabled with perk.state.bootstrap.enabled (Kafka transport only).
+ */
+@Component
+@ConditionalOnProperty(name = "perk.events.transport", havingValue = "kafka", matchIfMissing = true)
+public class PerkStateLoader implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PerkStateLoader.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final ReadModelUpdater readModelUpdater;
+    private final String topic;
+    private final boolean enabled;
+    private final long timeoutMs;
+
+    public PerkStateLoader(ConsumerFactory<?, ?> consumerFactory,
+                           ReadModelUpdater readModelUpdater,
+                           @Value("${kafka.topic.perk-state:perk.state}") String topic,
+                           @Value("${perk.state.bootstrap.enabled:false}") boolean enabled,
+                           @Value("${perk.state.bootstrap.timeout-ms:60000}") long timeoutMs) {
+        this.consumerFactory = consumerFactory;
+        this.readModelUpdater = readModelUpdater;
+        this.topic = topic;
+        this.enabled = enabled;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("⚠ Could not bootstrap the projection from [{}], starting from the database only: {}",
+                    topic, e.getMessage());
+        }
+    }
+
+    /**
+     * Load every perk's newest snapshot into the projection
+     *
+     * @return the number of perks loaded
+     * @throws IllegalStateException if a partition could not be read to its end in time
+     */
+    public int load() {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<TopicPartition> partitions = new ArrayList<>();
+        try (Consumer<?, ?> consumer = createConsumer()) {
+            for (PartitionInfo info : consumer.partitionsFor(topic, Duration.ofMillis(timeoutMs))) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+        }
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, PerkSnapshotEvent> latest = new HashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(partitions.size(),
+                Thread.ofPlatform().name("perk-state-loader-", 0).daemon().factory());
+        try {
+            List<Future<Map<Long, PerkSnapshotEvent>>> loads = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                loads.add(executor.submit(() -> read(partition, deadline)));
+            }
+            for (Future<Map<Long, PerkSnapshotEvent>> load : loads) {
+                // A perk id is always in the same partition, so the partitions' maps do not overlap
+                latest.putAll(load.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Reading " + topic + " failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Reading " + topic + " took longer than " + timeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading " + topic, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        readModelUpdater.applySnapshots(latest.values());
+        log.info("Perk projection bootstrapped with {} perks from {} partitions of [{}] in {} ms",
+                latest.size(), partitions.size(), topic, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return latest.size();
+    }
+
+    /**
+     * Newest snapshot per perk in one partition, from its beginning to its current end
+     */
+    private Map<Long, PerkSnapshotEvent> read(TopicPartition partition, long deadline) {
+        Map<Long, PerkSnapshotEvent> latest = new HashMap<>();
+        try (Consumer<?, ?> consumer = createConsumer()) {
+            consumer.assign(List.of(partition));
+            consumer.seekToBeginning(List.of(partition));
+            long end = consumer.endOffsets(List.of(partition)).get(partition);
+            while (consumer.position(partition) < end) {
+                if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException(partition + " not read to its end in time");
+                }
+                for (ConsumerRecord<?, ?> record : consumer.poll(POLL_TIMEOUT)) {
+                    // Tombstones and other record types are skipped; later records of a key win
+                    if (record.value() instanceof PerkSnapshotEvent snapshot && snapshot.getPerkId() != null) {
+                        latest.put(snapshot.getPerkId(), snapshot);
+                    }
+                }
+            }
+        }
+        return latest;
+    }
+
+    private Consumer<?, ?> createConsumer() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        return consumerFactory.createConsumer(null, "perk-state-loader", null, overrides);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.perkmanager.projection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Order-statistic index of (score, perkId) pairs
+ * Randomized treap with subtree sizes: insert, remove and rank lookups are O(log n),
+ * a range of k entries starting at any rank is O(log n + k)
+ *
+ * Ordering is score descending, then perk id ascending. Ascending reads walk the
+ * same tree from the other end.
+ */
+final class RankedIndex {
+
+    private static final class Node {
+        final int score;
+        final long perkId;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(int score, long perkId) {
+            this.score = score;
+            this.perkId = perkId;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    void insert(int score, long perkId) {
+        lock.writeLock().lock();
+        try {
+            root = insert(root, new Node(score, perkId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int score, long perkId) {
+        lock.writeLock().lock();
+        try {
+            root = remove(root, score, perkId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Perk ids at ranks [offset, offset + limit) in the requested direction
+     */
+    List<Long> range(int offset, int limit, boolean descending) {
+        lock.readLock().lock();
+        try {
+            int total = size(root);
+            if (offset >= total || limit <= 0) {
+                return List.of();
+            }
+            int count = Math.min(limit, total - offset);
+            List<Long> result = new ArrayList<>(count);
+            // Seek to the starting rank, keeping the pending ancestors for an in-order walk
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            int remaining = offset;
+            while (node != null) {
+                int firstSize = size(first(node, descending));
+                if (remaining < firstSize) {
+                    path.push(node);
+                    node = first(node, descending);
+                } else if (remaining == firstSize) {
+                    path.push(node);
+                    break;
+                } else {
+                    remaining -= firstSize + 1;
+                    node = second(node, descending);
+                }
+            }
+            while (!path.isEmpty() && result.size() < count) {
+                Node current = path.pop();
+                result.add(current.perkId);
+                Node next = second(current, descending);
+                while (next != null) {
+                    path.push(next);
+                    next = first(next, descending);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =====================================================================
+    // Treap internals
+    // =====================================================================
+
+    private static Node first(Node node, boolean descending) {
+        return descending ? node.left : node.right;
+    }
+
+    private static Node second(Node node, boolean descending) {
+        return descending ? node.right : node.left;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int compare(int score, long perkId, Node node) {
+        if (score != node.score) {
+            return score > node.score ? -1 : 1;
+        }
+        return Long.compare(perkId, node.perkId);
+    }
+
+    private static Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (compare(fresh.score, fresh.perkId, node) < 0) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node remove(Node node, int score, long perkId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(score, perkId, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, score, perkId);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, score, perkId);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = remove(node.right, score, perkId);
+            } else {
+                node = rotateLeft(node);
+                node.left = remove(node.left, score, perkId);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
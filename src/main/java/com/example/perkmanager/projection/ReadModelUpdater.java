@@ -0,0 +1,94 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.event.*;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read Side: Single entry point for applying domain events to the read models
+ * Used by the Kafka consumers and, after commit, by the command handlers of the local node.
+ * Every read model applies events idempotently, so receiving an event from both paths is harmless.
+ * PerkActivated/PerkExpired events arrive as local application events from PerkActivityScheduler.
+ */
+@Component
+public class ReadModelUpdater {
+
+    private final PerkProjectionStore perkProjectionStore;
+    private final MatchingPerksView matchingPerksView;
+
+    public ReadModelUpdater(PerkProjectionStore perkProjectionStore, MatchingPerksView matchingPerksView) {
+        this.perkProjectionStore = perkProjectionStore;
+        this.matchingPerksView = matchingPerksView;
+    }
+
+    public void apply(PerkCreatedEvent event) {
+        perkProjectionStore.apply(event);
+        matchingPerksView.apply(event);
+    }
+
+    public void apply(PerkUpvotedEvent event) {
+        perkProjectionStore.apply(event);
+    }
+
+    public void apply(PerkDownvotedEvent event) {
+        perkProjectionStore.apply(event);
+    }
+
+    /**
+     * Apply a batch of PerkUpvoted/PerkDownvotedEvents
+     * Both carry absolute counts, so only the newest event per perk matters: the batch is
+     * collapsed to one update per perk (newest timestamp wins, later position on ties) and
+     * applied in one pass.
+     *
+     * @return the number of perk updates left after coalescing
+     */
+    public int applyVotes(List<?> events) {
+        Map<Long, PerkProjectionStore.VoteCounts> latest = new LinkedHashMap<>();
+        for (Object event : events) {
+            PerkProjectionStore.VoteCounts counts = switch (event) {
+                case PerkUpvotedEvent up -> new PerkProjectionStore.VoteCounts(
+                        up.getPerkId(), up.getNewUpvoteCount(), up.getDownvoteCount(), up.getTimestamp());
+                case PerkDownvotedEvent down -> new PerkProjectionStore.VoteCounts(
+                        down.getPerkId(), down.getUpvoteCount(), down.getNewDownvoteCount(), down.getTimestamp());
+                default -> throw new IllegalArgumentException("Not a vote event: " + event);
+            };
+            if (counts.perkId() != null) {
+                latest.merge(counts.perkId(), counts, (previous, next) ->
+                        next.timestamp() != null && previous.timestamp() != null
+                                && next.timestamp().isBefore(previous.timestamp()) ? previous : next);
+            }
+        }
+        perkProjectionStore.applyVotes(latest.values());
+        return latest.size();
+    }
+
+    /**
+     * Apply perk snapshots from the perk state topic (bootstrap of a new read node)
+     */
+    public void applySnapshots(Collection<PerkSnapshotEvent> snapshots) {
+        perkProjectionStore.applySnapshots(snapshots);
+    }
+
+    @EventListener
+    public void apply(PerkActivatedEvent event) {
+        perkProjectionStore.apply(event);
+    }
+
+    @EventListener
+    public void apply(PerkExpiredEvent event) {
+        perkProjectionStore.apply(event);
+    }
+
+    public void apply(MembershipAddedEvent event) {
+        matchingPerksView.apply(event);
+    }
+
+    public void apply(PerkAddedEvent event) {
+        matchingPerksView.apply(event);
+    }
+}
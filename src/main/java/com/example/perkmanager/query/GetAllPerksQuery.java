@@ -2,8 +2,23 @@ package com.example.perkmanager.query;
 
 /**
  * Query: Get all perks
- * Read-only operation to retrieve all perks from read model
+ * Read-only operation to retrieve all perks from read model,
+ * optionally only those currently active
  */
 public class GetAllPerksQuery {
-    // No parameters needed for getting all perks
+    private boolean activeOnly = false;
+
+    public GetAllPerksQuery() {}
+
+    public GetAllPerksQuery(boolean activeOnly) {
+        this.activeOnly = activeOnly;
+    }
+
+    public boolean isActiveOnly() {
+        return activeOnly;
+    }
+
+    public void setActiveOnly(boolean activeOnly) {
+        this.activeOnly = activeOnly;
+    }
 }
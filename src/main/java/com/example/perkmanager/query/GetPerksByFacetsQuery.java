@@ -0,0 +1,33 @@
+package com.example.perkmanager.query;
+
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Query: Get perks by combined facets
+ * Read-only operation to filter perks by any of several memberships AND any of
+ * several products AND (optionally) active status, returning facet counts as well
+ */
+public class GetPerksByFacetsQuery {
+    private Set<MembershipType> memberships = EnumSet.noneOf(MembershipType.class); // empty = any
+    private Set<ProductType> products = EnumSet.noneOf(ProductType.class);          // empty = any
+    private Boolean active; // null = active and inactive
+
+    public GetPerksByFacetsQuery() {}
+
+    public GetPerksByFacetsQuery(Set<MembershipType> memberships, Set<ProductType> products, Boolean active) {
+        this.memberships = memberships;
+        this.products = products;
+        this.active = active;
+    }
+
+    public Set<MembershipType> getMemberships() { return memberships; }
+    public void setMemberships(Set<MembershipType> memberships) { this.memberships = memberships; }
+    public Set<ProductType> getProducts() { return products; }
+    public void setProducts(Set<ProductType> products) { this.products = products; }
+    public Boolean getActive() { return active; }
+    public void setActive(Boolean active) { this.active = active; }
+}
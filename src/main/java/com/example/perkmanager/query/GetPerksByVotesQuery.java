@@ -1,11 +1,26 @@
 package com.example.perkmanager.query;
 
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.enumerations.VoteMetric;
+import jakarta.validation.constraints.Min;
+
 /**
  * Query: Get perks sorted by votes
- * Read-only operation to retrieve perks ordered by upvote count
+ * Read-only operation to retrieve perks ordered by upvote count or net score,
+ * optionally scoped to a membership and/or product and limited to a rank range
  */
 public class GetPerksByVotesQuery {
     private boolean descending = true; // Sort by highest votes first
+    private VoteMetric metric = VoteMetric.UPVOTES;
+    private MembershipType membership; // null = any membership
+    private ProductType product;       // null = any product
+
+    @Min(value = 0, message = "Offset must not be negative")
+    private int offset = 0;
+
+    @Min(value = 1, message = "Limit must be positive")
+    private int limit = Integer.MAX_VALUE;
 
     public GetPerksByVotesQuery() {}
 
@@ -13,6 +28,16 @@ public class GetPerksByVotesQuery {
         this.descending = descending;
     }
 
+    public GetPerksByVotesQuery(boolean descending, VoteMetric metric, MembershipType membership,
+                                ProductType product, int offset, int limit) {
+        this.descending = descending;
+        this.metric = metric;
+        this.membership = membership;
+        this.product = product;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
     public boolean isDescending() {
         return descending;
     }
@@ -20,4 +45,15 @@ public class GetPerksByVotesQuery {
     public void setDescending(boolean descending) {
         this.descending = descending;
     }
+
+    public VoteMetric getMetric() { return metric; }
+    public void setMetric(VoteMetric metric) { this.metric = metric; }
+    public MembershipType getMembership() { return membership; }
+    public void setMembership(MembershipType membership) { this.membership = membership; }
+    public ProductType getProduct() { return product; }
+    public void setProduct(ProductType product) { this.product = product; }
+    public int getOffset() { return offset; }
+    public void setOffset(int offset) { this.offset = offset; }
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
 }
@@ -0,0 +1,40 @@
+package com.example.perkmanager.query;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Query: Get a user's votes on a list of perks
+ * Read-only operation so the UI can highlight perks the user already voted on
+ */
+public class GetUserVotesQuery {
+
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    private List<Long> perkIds = List.of();
+
+    public GetUserVotesQuery() {}
+
+    public GetUserVotesQuery(Long userId, List<Long> perkIds) {
+        this.userId = userId;
+        this.perkIds = perkIds;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public List<Long> getPerkIds() {
+        return perkIds;
+    }
+
+    public void setPerkIds(List<Long> perkIds) {
+        this.perkIds = perkIds;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.perkmanager.query;
+
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Query: Full-text search over perk descriptions
+ * Read-only operation returning perks ranked by relevance, optionally
+ * restricted to a membership and/or product
+ */
+public class SearchPerksQuery {
+
+    @NotBlank(message = "Search text is required")
+    private String text;
+
+    private MembershipType membership; // null = any membership
+    private ProductType product;       // null = any product
+
+    @Min(value = 1, message = "Limit must be positive")
+    private int limit = 50;
+
+    public SearchPerksQuery() {}
+
+    public SearchPerksQuery(String text, MembershipType membership, ProductType product, int limit) {
+        this.text = text;
+        this.membership = membership;
+        this.product = product;
+        this.limit = limit;
+    }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+    public MembershipType getMembership() { return membership; }
+    public void setMembership(MembershipType membership) { this.membership = membership; }
+    public ProductType getProduct() { return product; }
+    public void setProduct(ProductType product) { this.product = product; }
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
@@ -0,0 +1,7 @@
+package com.example.perkmanager.repository;
+
+import com.example.perkmanager.model.OutboxEvent;
+import org.springframework.data.repository.CrudRepository;
+
+public interface OutboxEventRepository extends CrudRepository<OutboxEvent, Long> {
+}
@@ -1,12 +1,36 @@
 package com.example.perkmanager.repository;
 
+import com.example.perkmanager.enumerations.VoteType;
 import com.example.perkmanager.model.AppUser;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.model.PerkVote;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface PerkVoteRepository extends CrudRepository<PerkVote, Long> {
     Optional<PerkVote> findByUserAndPerk(AppUser user, Perk perk);
+
+    /**
+     * Remove a user's vote only if it still has the expected type
+     *
+     * @return number of rows deleted (0 if the vote changed concurrently)
+     */
+    @Modifying
+    @Query("delete from PerkVote v where v.user.id = :userId and v.perk.id = :perkId and v.voteType = :voteType")
+    int deleteVote(@Param("userId") Long userId, @Param("perkId") Long perkId, @Param("voteType") VoteType voteType);
+
+    /**
+     * Switch a user's vote only if it still has the expected type
+     *
+     * @return number of rows updated (0 if the vote changed concurrently)
+     */
+    @Modifying
+    @Query("update PerkVote v set v.voteType = :to, v.version = v.version + 1 "
+            + "where v.user.id = :userId and v.perk.id = :perkId and v.voteType = :from")
+    int switchVote(@Param("userId") Long userId, @Param("perkId") Long perkId,
+                   @Param("from") VoteType from, @Param("to") VoteType to);
 }
@@ -0,0 +1,27 @@
+package com.example.perkmanager.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helper: run read-side updates once the current write transaction commits
+ * Kafka consumers apply the same events (idempotently), so the local node serves its own
+ * writes immediately even when the broker is slow or unavailable
+ */
+final class AfterCommit {
+
+    private AfterCommit() {}
+
+    static void run(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,422 @@
+package com.example.perkmanager.service;
+
+import com.example.perkmanager.dto.CommandStatusReadModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Write Side: Command bus
+ * Decouples HTTP concurrency from database concurrency. Every command type has its own lane:
+ * a bounded queue worked off by a fixed number of virtual threads. A burst of one command type
+ * waits in its lane's queue (and is rejected once the queue is full) instead of holding request
+ * threads for whole transactions or crowding the other command types out of the connection pool.
+ *
+ * A lane can also be sharded by a key (e.g. the perk id): each shard has its own queue and a
+ * single worker, which takes whatever has queued up (up to a max batch) and applies it as one
+ * group. Commands with the same key are then strictly ordered and never race each other, while
+ * different keys spread over the shards.
+ *
+ * Callers either wait for the result (execute) or get a command id back right away (submit)
+ * and look it up later (status). Bulk producers queue a whole group and wait for all of it
+ * (executeAll), which waits for room in full queues instead of rejecting. Statuses of finished commands are kept for a retention period.
+ * A finished command also has a consistency token (the outbox sequence of the last event its
+ * group committed) that queries can wait for, see projection.ConsistencyTracker.
+ *
+ * Metrics per lane (tag "command"): perk.commands.queue.depth (per shard, tag "shard"),
+ * perk.commands.wait, perk.commands.execution (tag "outcome"), perk.commands.batch.size,
+ * perk.commands.rejected.
+ */
+public class CommandBus implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandBus.class);
+
+    public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    /**
+     * Result of a command run with executeWithToken; the token is null if it committed no event
+     */
+    public record Executed(Object result, Long consistencyToken) {}
+
+    /**
+     * The bus itself failed to run a command or to wait for it (not the command being invalid):
+     * the handler threw a checked exception, or the waiting thread was interrupted
+     */
+    public static class BusException extends RuntimeException {
+
+        public BusException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Result of one command of a group: either a result or the exception it failed with
+     */
+    public record Outcome(Object result, RuntimeException error) {
+
+        public static Outcome success(Object result) {
+            return new Outcome(result, null);
+        }
+
+        public static Outcome failure(RuntimeException error) {
+            return new Outcome(null, error);
+        }
+    }
+
+    private record Lane(String name, List<BlockingQueue<Tracked>> shards, ToLongFunction<Object> key,
+                        int maxBatch, Function<List<Object>, List<Outcome>> handler,
+                        Timer waitTime, DistributionSummary batchSize, Counter rejected,
+                        List<Thread> workers) {
+
+        BlockingQueue<Tracked> shardFor(Object command) {
+            return shards.size() == 1
+                    ? shards.get(0)
+                    : shards.get(Math.floorMod(Long.hashCode(key.applyAsLong(command)), shards.size()));
+        }
+    }
+
+    /**
+     * One submitted command and its progress
+     */
+    private static final class Tracked {
+        final UUID id = UUID.randomUUID();
+        final String command;
+        final Object payload;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final long enqueuedNanos = System.nanoTime();
+        final CompletableFuture<Object> done = new CompletableFuture<>();
+        volatile State state = State.QUEUED;
+        volatile LocalDateTime completedAt;
+        volatile Object result;
+        volatile String error;
+        volatile Long consistencyToken;
+
+        Tracked(String command, Object payload) {
+            this.command = command;
+            this.payload = payload;
+        }
+
+        void succeed(Object value) {
+            result = value;
+            completedAt = LocalDateTime.now();
+            state = State.SUCCEEDED;
+            done.complete(value);
+        }
+
+        void fail(Throwable cause) {
+            error = cause.getMessage();
+            completedAt = LocalDateTime.now();
+            state = State.FAILED;
+            done.completeExceptionally(cause);
+        }
+
+        CommandStatusReadModel toReadModel() {
+            return new CommandStatusReadModel(id, command, state, submittedAt, completedAt, result, error,
+                    consistencyToken);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Duration retention;
+
+    private final Map<Class<?>, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<UUID, Tracked> statuses = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public CommandBus(MeterRegistry meterRegistry, Duration retention) {
+        this.meterRegistry = meterRegistry;
+        this.retention = retention;
+    }
+
+    /**
+     * Add a lane for one command type and start its workers
+     *
+     * @param name     lane name used in statuses, logs and metric tags
+     * @param workers  commands of this type executed concurrently
+     * @param capacity commands of this type allowed to wait
+     */
+    public <C> void register(Class<C> type, String name, int workers, int capacity,
+                             Function<? super C, ?> handler) {
+        addLane(List.of(type), name, 1, Math.max(1, workers), capacity, 1, null, commands -> {
+            @SuppressWarnings("unchecked")
+            C command = (C) commands.get(0);
+            try {
+                return List.of(Outcome.success(handler.apply(command)));
+            } catch (RuntimeException e) {
+                if (!(e instanceof IllegalArgumentException)) {
+                    log.warn("{} command failed", name, e);
+                }
+                return List.of(Outcome.failure(e));
+            }
+        });
+    }
+
+    /**
+     * Add a lane sharded by key for one or more command types and start one worker per shard
+     *
+     * @param name     lane name used in statuses, logs and metric tags
+     * @param shards   number of single-writer shards
+     * @param capacity commands allowed to wait per shard
+     * @param maxBatch most commands handed to the handler at once
+     * @param key      commands with the same key go to the same shard
+     * @param handler  applies a group of commands in order, one outcome per command
+     */
+    @SuppressWarnings("unchecked")
+    public <C> void registerSharded(List<Class<? extends C>> types, String name, int shards, int capacity,
+                                    int maxBatch, ToLongFunction<? super C> key,
+                                    Function<List<C>, List<Outcome>> handler) {
+        addLane(types, name, Math.max(1, shards), 1, capacity, Math.max(1, maxBatch),
+                command -> key.applyAsLong((C) command),
+                commands -> handler.apply((List<C>) commands));
+    }
+
+    private void addLane(List<? extends Class<?>> types, String name, int shards, int workersPerShard,
+                         int capacity, int maxBatch, ToLongFunction<Object> key,
+                         Function<List<Object>, List<Outcome>> handler) {
+        List<BlockingQueue<Tracked>> queues = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            BlockingQueue<Tracked> queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            Gauge.builder("perk.commands.queue.depth", queue, BlockingQueue::size)
+                    .tags("command", name, "shard", String.valueOf(shard))
+                    .register(meterRegistry);
+            queues.add(queue);
+        }
+        Lane lane = new Lane(name, queues, key, maxBatch, handler,
+                meterRegistry.timer("perk.commands.wait", "command", name),
+                meterRegistry.summary("perk.commands.batch.size", "command", name),
+                meterRegistry.counter("perk.commands.rejected", "command", name),
+                new ArrayList<>());
+        for (Class<?> type : types) {
+            if (lanes.putIfAbsent(type, lane) != null) {
+                throw new IllegalStateException("Command already registered: " + type.getSimpleName());
+            }
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            BlockingQueue<Tracked> queue = queues.get(shard);
+            for (int i = 0; i < workersPerShard; i++) {
+                lane.workers().add(Thread.ofVirtual()
+                        .name("command-" + name + "-" + shard + "-" + i)
+                        .start(() -> work(lane, queue)));
+            }
+        }
+        log.info("Command lane {} started ({} shards x {} workers, queue of {}, batches of up to {})",
+                name, shards, workersPerShard, capacity, maxBatch);
+    }
+
+    /**
+     * Queue a command and return right away
+     *
+     * @return the QUEUED status, whose command id can be looked up with status()
+     * @throws RejectedExecutionException if the command's queue is full
+     */
+    public CommandStatusReadModel submit(Object command) {
+        Tracked tracked = enqueue(command);
+        statuses.put(tracked.id, tracked);
+        return tracked.toReadModel();
+    }
+
+    /**
+     * Queue a command and wait for its result
+     *
+     * @throws RejectedExecutionException if the command's queue is full
+     * @throws BusException               if the bus failed to run the command or to wait for it
+     * @throws RuntimeException           whatever the command handler threw
+     */
+    public Object execute(Object command) {
+        return executeWithToken(command).result();
+    }
+
+    /**
+     * Queue a command and wait for its result and consistency token
+     *
+     * @throws RejectedExecutionException if the command's queue is full
+     * @throws BusException               if the bus failed to run the command or to wait for it
+     * @throws RuntimeException           whatever the command handler threw
+     */
+    public Executed executeWithToken(Object command) {
+        Tracked tracked = enqueue(command);
+        try {
+            Object result = tracked.done.get();
+            return new Executed(result, tracked.consistencyToken);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusException(tracked.command + " command failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusException("Interrupted while waiting for " + tracked.command, e);
+        }
+    }
+
+    /**
+     * Queue a group of commands in order and wait for all their outcomes
+     * Each command goes to its own lane and shard, in the given order, so commands with the same
+     * key still run in that order and the ones sharing a shard are applied as groups by its
+     * worker. A full queue is waited on rather than rejected: the caller is a bulk producer that
+     * should slow down, not drop commands.
+     *
+     * @return one outcome per command, in order: the handler's result or what it threw
+     * @throws RejectedExecutionException if the bus is shutting down
+     * @throws BusException               if interrupted while queueing or waiting
+     */
+    public List<Outcome> executeAll(List<?> commands) {
+        List<Tracked> queued = new ArrayList<>(commands.size());
+        for (Object command : commands) {
+            queued.add(enqueueWaiting(command));
+        }
+        List<Outcome> outcomes = new ArrayList<>(queued.size());
+        for (Tracked tracked : queued) {
+            try {
+                outcomes.add(Outcome.success(tracked.done.get()));
+            } catch (ExecutionException e) {
+                outcomes.add(Outcome.failure(e.getCause() instanceof RuntimeException cause
+                        ? cause
+                        : new BusException(tracked.command + " command failed", e.getCause())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusException("Interrupted while waiting for " + tracked.command, e);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Status of a submitted command, while it is queued or running and for the retention
+     * period after it finished
+     */
+    public Optional<CommandStatusReadModel> status(UUID commandId) {
+        return Optional.ofNullable(statuses.get(commandId)).map(Tracked::toReadModel);
+    }
+
+    /**
+     * Forget statuses of commands that finished longer than the retention period ago
+     *
+     * @return the number of statuses removed
+     */
+    @Scheduled(fixedDelayString = "${perk.commands.status-retention-ms:600000}")
+    public int prune() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int before = statuses.size();
+        statuses.values().removeIf(t -> t.completedAt != null && t.completedAt.isBefore(cutoff));
+        return before - statuses.size();
+    }
+
+    /**
+     * Stop the workers; commands still queued fail
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Lane lane : new HashSet<>(lanes.values())) {
+            lane.workers().forEach(Thread::interrupt);
+            List<Tracked> queued = new ArrayList<>();
+            lane.shards().forEach(queue -> queue.drainTo(queued));
+            queued.forEach(t -> t.fail(new RejectedExecutionException("Command bus is shutting down")));
+        }
+    }
+
+    private Tracked enqueue(Object command) {
+        Lane lane = laneFor(command);
+        Tracked tracked = new Tracked(lane.name(), command);
+        if (!lane.shardFor(command).offer(tracked)) {
+            lane.rejected().increment();
+            throw new RejectedExecutionException("Too many pending " + lane.name() + " commands");
+        }
+        return tracked;
+    }
+
+    /**
+     * Queue a command, waiting while its queue is full (checking for shutdown meanwhile)
+     */
+    private Tracked enqueueWaiting(Object command) {
+        Lane lane = laneFor(command);
+        Tracked tracked = new Tracked(lane.name(), command);
+        BlockingQueue<Tracked> queue = lane.shardFor(command);
+        try {
+            while (!queue.offer(tracked, 100, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    throw new RejectedExecutionException("Command bus is shutting down");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusException("Interrupted while queueing " + lane.name() + " command", e);
+        }
+        return tracked;
+    }
+
+    private Lane laneFor(Object command) {
+        Lane lane = lanes.get(command.getClass());
+        if (lane == null) {
+            throw new IllegalArgumentException("Unsupported command: " + command.getClass().getSimpleName());
+        }
+        if (closed) {
+            throw new RejectedExecutionException("Command bus is shutting down");
+        }
+        return lane;
+    }
+
+    /**
+     * Worker loop: take the next commands of a shard (one, or a group for sharded lanes),
+     * run the handler and complete each command with its outcome
+     */
+    private void work(Lane lane, BlockingQueue<Tracked> queue) {
+        List<Tracked> batch = new ArrayList<>(lane.maxBatch());
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, lane.maxBatch() - 1);
+
+            long started = System.nanoTime();
+            List<Object> commands = new ArrayList<>(batch.size());
+            for (Tracked tracked : batch) {
+                lane.waitTime().record(started - tracked.enqueuedNanos, TimeUnit.NANOSECONDS);
+                tracked.state = State.RUNNING;
+                commands.add(tracked.payload);
+            }
+            lane.batchSize().record(batch.size());
+
+            List<Outcome> outcomes;
+            Long token;
+            ConsistencyTokens.begin();
+            try {
+                outcomes = lane.handler().apply(commands);
+            } catch (RuntimeException e) {
+                log.warn("{} batch of {} failed", lane.name(), batch.size(), e);
+                outcomes = Collections.nCopies(batch.size(), Outcome.failure(e));
+            } finally {
+                token = ConsistencyTokens.end();
+            }
+            boolean failed = false;
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).consistencyToken = token;
+                Outcome outcome = outcomes.get(i);
+                if (outcome.error() == null) {
+                    batch.get(i).succeed(outcome.result());
+                } else {
+                    failed = true;
+                    batch.get(i).fail(outcome.error());
+                }
+            }
+            meterRegistry.timer("perk.commands.execution", "command", lane.name(), "outcome", failed ? "failure" : "success")
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.perkmanager.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Helper: bounded retry of write transactions that lost a race
+ * Each attempt runs in its own transaction. An attempt is retried when it fails with an
+ * optimistic-lock / lock-acquisition conflict (ConcurrencyFailureException) or a unique-key
+ * race (DataIntegrityViolationException, e.g. two inserts of the same user's vote).
+ * Retries back off with jitter so colliding writers spread out.
+ *
+ * Metrics: perk.write.conflicts (per operation and exception), perk.write.retries.exhausted.
+ */
+@Component
+public class ConflictRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictRetry.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public ConflictRetry(PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${perk.write.retry.max-attempts:5}") int maxAttempts,
+                         @Value("${perk.write.retry.backoff-ms:5}") long backoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+    }
+
+    /**
+     * Run the work in a transaction, retrying on write conflicts
+     *
+     * @param operation name used for logs and metric tags
+     */
+    public <T> T execute(String operation, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Part of a larger transaction: only the outermost caller can retry
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                conflicts(operation, e).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("perk.write.retries.exhausted", "operation", operation).increment();
+                    log.warn("{} gave up after {} conflicting attempts", operation, attempt);
+                    throw e;
+                }
+                log.debug("{} conflicted on attempt {}: {}", operation, attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private Counter conflicts(String operation, RuntimeException e) {
+        return meterRegistry.counter("perk.write.conflicts",
+                "operation", operation, "exception", e.getClass().getSimpleName());
+    }
+
+    private void backoff(int attempt) {
+        long delay = backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.perkmanager.service;
+
+/**
+ * Helper: consistency tokens of the commands run on the current thread
+ * EventPublisher reports the outbox sequence of every event once its transaction committed;
+ * the command bus collects the highest one around each handler call. Events of rolled back
+ * attempts are never reported, so a token only names an event that will reach the consumers.
+ */
+final class ConsistencyTokens {
+
+    private static final ThreadLocal<long[]> HIGHEST = new ThreadLocal<>();
+
+    private ConsistencyTokens() {}
+
+    /**
+     * Start collecting on this thread
+     */
+    static void begin() {
+        HIGHEST.set(new long[]{0});
+    }
+
+    /**
+     * Stop collecting on this thread
+     *
+     * @return the highest sequence committed since begin, or null if none
+     */
+    static Long end() {
+        long[] highest = HIGHEST.get();
+        HIGHEST.remove();
+        return highest == null || highest[0] == 0 ? null : highest[0];
+    }
+
+    static void committed(long sequence) {
+        long[] highest = HIGHEST.get();
+        if (highest != null && sequence > highest[0]) {
+            highest[0] = sequence;
+        }
+    }
+}
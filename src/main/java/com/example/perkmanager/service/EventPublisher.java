@@ -1,26 +1,44 @@
 package com.example.perkmanager.service;
 
+import com.example.perkmanager.codec.EventCodec;
 import com.example.perkmanager.event.*;
+import com.example.perkmanager.model.OutboxEvent;
+import com.example.perkmanager.projection.ConsistencyTracker;
+import com.example.perkmanager.repository.OutboxEventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Event Publisher Service
  * Responsible for publishing domain events to Kafka topics
- * Uses async publishing with callback handling
+ *
+ * Events are not sent from here: they are written to the transactional outbox (outbox_event)
+ * in the caller's transaction, so they exist exactly when the state change commits, and
+ * OutboxRelay delivers them to Kafka in batches. Callers must publish inside the command
+ * transaction; outside one, the outbox row commits on its own.
+ *
+ * Perk events also mark the perk for PerkStatePublisher once committed, which publishes its
+ * full state to the compacted perk.state topic.
+ *
+ * Once committed, each event's outbox sequence becomes the command's consistency token
+ * (ConsistencyTokens) and counts as applied on this node (ConsistencyTracker): the command
+ * handlers apply their events to the local read models in the same after-commit phase.
  */
 @Service
 public class EventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(EventPublisher.class);
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay outboxRelay;
+    private final PerkStatePublisher perkStatePublisher;
+    private final ConsistencyTracker consistencyTracker;
 
     @Value("${kafka.topic.perk-created}")
     private String perkCreatedTopic;
@@ -37,11 +55,17 @@ public class EventPublisher {
     @Value("${kafka.topic.membership-added}")
     private String membershipAddedTopic;
 
-    @Value("perk.adeed")
+    @Value("${kafka.topic.perk-added}")
     private String perkAddedTopic;
 
-    public EventPublisher(KafkaTemplate<String, Object> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public EventPublisher(OutboxEventRepository outboxEventRepository,
+                          OutboxRelay outboxRelay,
+                          PerkStatePublisher perkStatePublisher,
+                          ConsistencyTracker consistencyTracker) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxRelay = outboxRelay;
+        this.perkStatePublisher = perkStatePublisher;
+        this.consistencyTracker = consistencyTracker;
     }
 
     /**
@@ -51,6 +75,32 @@ public class EventPublisher {
     public void publishPerkCreated(PerkCreatedEvent event) {
         String key = String.valueOf(event.getPerkId());
         publish(perkCreatedTopic, key, event, "PerkCreated");
+        AfterCommit.run(() -> perkStatePublisher.changed(event.getPerkId()));
+    }
+
+    /**
+     * Publish many PerkCreatedEvents
+     * The outbox rows are inserted as one JDBC batch when the transaction flushes
+     */
+    public void publishPerksCreated(List<PerkCreatedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> rows = new ArrayList<>(events.size());
+        List<Long> perkIds = new ArrayList<>(events.size());
+        for (PerkCreatedEvent event : events) {
+            rows.add(toOutbox(perkCreatedTopic, String.valueOf(event.getPerkId()), event));
+            perkIds.add(event.getPerkId());
+        }
+        outboxEventRepository.saveAll(rows);
+        long highest = rows.stream().mapToLong(OutboxEvent::getId).max().orElseThrow();
+        AfterCommit.run(() -> {
+            rows.forEach(row -> consistencyTracker.applied(row.getId()));
+            ConsistencyTokens.committed(highest);
+        });
+        AfterCommit.run(outboxRelay::wakeUp);
+        AfterCommit.run(() -> perkStatePublisher.changed(perkIds));
+        log.info("✓ Queued {} PerkCreated events for topic [{}]", events.size(), perkCreatedTopic);
     }
 
     /**
@@ -59,6 +109,7 @@ public class EventPublisher {
     public void publishPerkUpvoted(PerkUpvotedEvent event) {
         String key = String.valueOf(event.getPerkId());
         publish(perkUpvotedTopic, key, event, "PerkUpvoted");
+        AfterCommit.run(() -> perkStatePublisher.changed(event.getPerkId()));
     }
 
     /**
@@ -67,6 +118,7 @@ public class EventPublisher {
     public void publishPerkDownvoted(PerkDownvotedEvent event) {
         String key = String.valueOf(event.getPerkId());
         publish(perkDownvotedTopic, key, event, "PerkDownvoted");
+        AfterCommit.run(() -> perkStatePublisher.changed(event.getPerkId()));
     }
 
     /**
@@ -85,35 +137,29 @@ public class EventPublisher {
         publish(membershipAddedTopic, key, event, "MembershipAdded");
     }
 
+    /**
+     * Publish PerkAddedEvent
+     */
     public void publishPerkAdded(PerkAddedEvent event) {
         String key = String.valueOf(event.getUserId());
         publish(perkAddedTopic, key, event, "PerkAdded");
     }
 
     /**
-     * Generic publish method with async callback handling
-     * Gracefully handles Kafka unavailability - app continues to work even if Kafka is down
+     * Generic publish method: queue the event in the outbox and wake the relay after commit
      */
     private void publish(String topic, String key, Object event, String eventType) {
-        try {
-            CompletableFuture<SendResult<String, Object>> future =
-                    kafkaTemplate.send(topic, key, event);
-
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.info("✓ Published {} event to topic [{}] with key [{}] at offset [{}]",
-                            eventType, topic, key, result.getRecordMetadata().offset());
-                } else {
-                    log.warn("⚠ Failed to publish {} event (Kafka unavailable): {}",
-                            eventType, ex.getMessage());
-                    // App continues to work - events just won't be published
-                }
-            });
-        } catch (Exception e) {
-            // Kafka is down - log warning but don't fail the request
-            log.warn("⚠ Kafka unavailable - {} event not published. App continues to work normally.",
-                    eventType);
-            // In production: implement retry logic, dead letter queue, or store events locally
-        }
+        long sequence = outboxEventRepository.save(toOutbox(topic, key, event)).getId();
+        AfterCommit.run(() -> {
+            consistencyTracker.applied(sequence);
+            ConsistencyTokens.committed(sequence);
+        });
+        AfterCommit.run(outboxRelay::wakeUp);
+        log.debug("Queued {} event for topic [{}] with key [{}]", eventType, topic, key);
+    }
+
+    private OutboxEvent toOutbox(String topic, String key, Object event) {
+        return new OutboxEvent(topic, key, event.getClass().getSimpleName(),
+                EventCodec.encode(event), LocalDateTime.now());
     }
 }
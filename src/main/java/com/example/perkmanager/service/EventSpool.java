@@ -0,0 +1,319 @@
+package com.example.perkmanager.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write Side: Event spool
+ * Append-only, memory-mapped file holding outbox events the transport could not take (Kafka
+ * down, in-process bus full). OutboxRelay moves its backlog here instead of letting the
+ * outbox table grow, and drains it in order once the transport is back, so an outage neither
+ * bloats the database nor loses events if the node restarts meanwhile.
+ *
+ * Layout: a 32 byte header (magic, version, read position, write position) followed by records
+ * [length][crc32][outbox id, created at, topic, key, payload]. Appends are forced to disk before
+ * the write position moves, and on open every record between the two positions is checked
+ * against its CRC, so a torn append is dropped rather than replayed. Drained space is reclaimed
+ * by rewinding to the start once the spool is empty, or by moving the live records there when
+ * they fit in the drained part. A full spool rejects appends (the events then simply stay in the
+ * outbox table).
+ *
+ * Disabled unless perk.outbox.spool.enabled=true: spooled events must not outlive the database
+ * they describe (the bundled H2 is in-memory). The file is locked, so only one process uses it.
+ *
+ * Metrics: perk.outbox.spool.events, perk.outbox.spool.bytes, perk.outbox.spool.age (seconds
+ * since the oldest spooled event was committed), perk.outbox.spool.appended and
+ * perk.outbox.spool.drained (their rates are the fill and drain rates).
+ */
+@Component
+public class EventSpool {
+
+    private static final Logger log = LoggerFactory.getLogger(EventSpool.class);
+
+    private static final int MAGIC = 0x5053504C; // "PSPL"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    private static final int READ_POSITION = 8;
+    private static final int WRITE_POSITION = 16;
+    private static final int RECORD_HEADER = 8;
+
+    /**
+     * An outbox event, as read from outbox_event or from the spool
+     */
+    public record Entry(long id, String topic, String key, byte[] payload, LocalDateTime createdAt) {}
+
+    private final boolean enabled;
+    private final Counter appended;
+    private final Counter drained;
+    private FileChannel channel;
+    private FileLock lock;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int readPosition = HEADER;
+    private int writePosition = HEADER;
+    private int count;
+
+    public EventSpool(MeterRegistry meterRegistry,
+                      @Value("${perk.outbox.spool.enabled:false}") boolean enabled,
+                      @Value("${perk.outbox.spool.path:data/outbox.spool}") String path,
+                      @Value("${perk.outbox.spool.max-bytes:67108864}") int maxBytes) {
+        this.enabled = enabled && open(Path.of(path), Math.max(HEADER + 1024, maxBytes));
+        this.appended = meterRegistry.counter("perk.outbox.spool.appended");
+        this.drained = meterRegistry.counter("perk.outbox.spool.drained");
+        if (this.enabled) {
+            meterRegistry.gauge("perk.outbox.spool.events", this, EventSpool::size);
+            meterRegistry.gauge("perk.outbox.spool.bytes", this, EventSpool::bytes);
+            meterRegistry.gauge("perk.outbox.spool.age", this, spool -> spool.oldestAge().toMillis() / 1000.0);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long bytes() {
+        return writePosition - readPosition;
+    }
+
+    /**
+     * Time since the oldest spooled event was committed (zero when empty)
+     */
+    public synchronized Duration oldestAge() {
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        ByteBuffer record = buffer.duplicate().position(readPosition + RECORD_HEADER + 8);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(record.getLong(), record.getInt(), ZoneOffset.UTC);
+        return Duration.between(createdAt, LocalDateTime.now());
+    }
+
+    /**
+     * Append events behind the ones already spooled, all or none, durably
+     *
+     * @return false if the spool is disabled or has no room for them
+     */
+    public synchronized boolean append(List<Entry> entries) {
+        if (!enabled) {
+            return false;
+        }
+        List<byte[]> records = new ArrayList<>(entries.size());
+        int total = 0;
+        for (Entry entry : entries) {
+            byte[] record = encode(entry);
+            records.add(record);
+            total += record.length;
+        }
+        if (writePosition + total > capacity && !compact(total)) {
+            return false;
+        }
+        int start = writePosition;
+        int position = start;
+        for (byte[] record : records) {
+            buffer.put(position, record);
+            position += record.length;
+        }
+        buffer.force(start, total);
+        writePosition = position;
+        count += entries.size();
+        writeHeader();
+        appended.increment(entries.size());
+        return true;
+    }
+
+    /**
+     * The oldest spooled events, without removing them
+     */
+    public synchronized List<Entry> peek(int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, count));
+        int position = readPosition;
+        while (entries.size() < max && position < writePosition) {
+            int length = buffer.getInt(position);
+            entries.add(decode(buffer.slice(position + RECORD_HEADER, length)));
+            position += RECORD_HEADER + length;
+        }
+        return entries;
+    }
+
+    /**
+     * Remove the oldest events (after the transport acknowledged them)
+     */
+    public synchronized void remove(int events) {
+        int removed = 0;
+        for (; removed < events && count > 0; removed++) {
+            readPosition += RECORD_HEADER + buffer.getInt(readPosition);
+            count--;
+        }
+        if (removed == 0) {
+            return;
+        }
+        drained.increment(removed);
+        if (count == 0) {
+            readPosition = HEADER;
+            writePosition = HEADER;
+        }
+        writeHeader();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            lock.release();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private boolean open(Path path, int maxBytes) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            lock = channel.tryLock();
+            if (lock == null) {
+                throw new IOException("locked by another process");
+            }
+            boolean fresh = channel.size() < HEADER;
+            capacity = fresh ? maxBytes : (int) Math.max(channel.size(), maxBytes);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            if (fresh) {
+                buffer.putInt(0, MAGIC).putInt(4, VERSION);
+                writeHeader();
+            } else {
+                recover(path);
+            }
+            log.info("Event spool {} opened: {} events pending", path, count);
+            return true;
+        } catch (IOException | IllegalStateException e) { // OverlappingFileLockException: open in this JVM
+            log.warn("⚠ Event spool {} unavailable, outbox backlog stays in the database: {}", path, e.getMessage());
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Nothing more to release
+                }
+            }
+            return false;
+        }
+    }
+
+    private void recover(Path path) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("not an event spool (version " + VERSION + ")");
+        }
+        readPosition = (int) buffer.getLong(READ_POSITION);
+        int end = (int) buffer.getLong(WRITE_POSITION);
+        int position = readPosition;
+        CRC32 crc = new CRC32();
+        while (position < end) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER + length > end) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(position + RECORD_HEADER, length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += RECORD_HEADER + length;
+            count++;
+        }
+        if (position < end) {
+            log.error("✗ Event spool {}: dropped a damaged tail of {} bytes", path, end - position);
+        }
+        writePosition = position;
+        writeHeader();
+    }
+
+    /**
+     * Move the live records to the start of the file, if they fit in the drained part (so a crash
+     * half way through never overwrites a record that is still referenced)
+     */
+    private boolean compact(int needed) {
+        int live = writePosition - readPosition;
+        if (readPosition - HEADER < live || HEADER + live + needed > capacity) {
+            return false;
+        }
+        byte[] records = new byte[live];
+        buffer.get(readPosition, records);
+        buffer.put(HEADER, records);
+        buffer.force(HEADER, live);
+        readPosition = HEADER;
+        writePosition = HEADER + live;
+        writeHeader();
+        return true;
+    }
+
+    private void writeHeader() {
+        buffer.putLong(READ_POSITION, readPosition).putLong(WRITE_POSITION, writePosition);
+        buffer.force(0, HEADER);
+    }
+
+    private static byte[] encode(Entry entry) {
+        byte[] topic = entry.topic().getBytes(StandardCharsets.UTF_8);
+        byte[] key = entry.key() == null ? null : entry.key().getBytes(StandardCharsets.UTF_8);
+        int length = 8 + 12 + 4 + topic.length + 4 + (key == null ? 0 : key.length) + 4 + entry.payload().length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+        record.putInt(length).putInt(0);
+        record.putLong(entry.id());
+        record.putLong(entry.createdAt().toEpochSecond(ZoneOffset.UTC)).putInt(entry.createdAt().getNano());
+        record.putInt(topic.length).put(topic);
+        record.putInt(key == null ? -1 : key.length);
+        if (key != null) {
+            record.put(key);
+        }
+        record.putInt(entry.payload().length).put(entry.payload());
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER, length);
+        record.putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+
+    private static Entry decode(ByteBuffer record) {
+        long id = record.getLong();
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(record.getLong(), record.getInt(), ZoneOffset.UTC);
+        String topic = readString(record, record.getInt());
+        int keyLength = record.getInt();
+        String key = keyLength < 0 ? null : readString(record, keyLength);
+        byte[] payload = new byte[record.getInt()];
+        record.get(payload);
+        return new Entry(id, topic, key, payload, createdAt);
+    }
+
+    private static String readString(ByteBuffer record, int length) {
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
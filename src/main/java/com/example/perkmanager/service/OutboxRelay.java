@@ -0,0 +1,316 @@
+package com.example.perkmanager.service;
+
+import com.example.perkmanager.codec.EventCodec;
+import com.example.perkmanager.transport.EventTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write Side: Outbox relay
+ * Drains outbox_event to the EventTransport (Kafka, or the in-process bus). Rows are read in id
+ * order in batches of up to perk.outbox.batch-size, handed to the transport back to back (with
+ * Kafka: one round trip per partition instead of one per event), and deleted once the transport
+ * acknowledged them. Delivery is therefore at least once: a crash between send and delete
+ * re-sends the batch, which consumers apply idempotently.
+ *
+ * The relay runs on its own thread. Publishers wake it after their transaction commits; it then
+ * lingers perk.outbox.linger-ms so concurrent commits share a batch. Without wake-ups it polls
+ * every perk.outbox.poll-interval-ms. A failed send stops the batch at the first unacknowledged
+ * event (later events stay queued behind it, preserving order) and backs off exponentially up
+ * to perk.outbox.max-backoff-ms, so a Kafka outage (or a full in-process bus) only grows the table.
+ *
+ * With perk.outbox.spool.enabled, the unsent events go to the EventSpool file instead, and so
+ * does every newer event until the spool is drained again (in order, in batches, at most
+ * perk.outbox.spool.drain-max-per-second), so an outage is ridden out on disk rather than in the
+ * database. A full spool leaves the events in the table as before.
+ *
+ * Metrics: perk.outbox.pending, perk.outbox.lag (commit to acknowledgement), perk.outbox.sent,
+ * perk.outbox.batch.size, perk.outbox.failures.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private record Delivery(int acknowledged, RuntimeException failure) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventTransport eventTransport;
+    private final EventSpool eventSpool;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long pollIntervalMs;
+    private final long maxBackoffMs;
+    private final long sendTimeoutMs;
+    private final int spoolDrainMaxPerSecond;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final ReentrantLock relayLock = new ReentrantLock();
+    private final AtomicLong pending = new AtomicLong();
+    private final Timer lag;
+    private final Counter sent;
+    private final Counter failures;
+    private final DistributionSummary batchSizes;
+    private volatile boolean running;
+    private Thread worker;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       EventTransport eventTransport,
+                       EventSpool eventSpool,
+                       MeterRegistry meterRegistry,
+                       @Value("${perk.outbox.batch-size:500}") int batchSize,
+                       @Value("${perk.outbox.linger-ms:20}") long lingerMs,
+                       @Value("${perk.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                       @Value("${perk.outbox.max-backoff-ms:30000}") long maxBackoffMs,
+                       @Value("${perk.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                       @Value("${perk.outbox.spool.drain-max-per-second:5000}") int spoolDrainMaxPerSecond) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventTransport = eventTransport;
+        this.eventSpool = eventSpool;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMs = lingerMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.spoolDrainMaxPerSecond = spoolDrainMaxPerSecond;
+        this.lag = meterRegistry.timer("perk.outbox.lag");
+        this.sent = meterRegistry.counter("perk.outbox.sent");
+        this.failures = meterRegistry.counter("perk.outbox.failures");
+        this.batchSizes = meterRegistry.summary("perk.outbox.batch.size");
+        meterRegistry.gauge("perk.outbox.pending", pending);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = Thread.ofVirtual().name("outbox-relay").start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(sendTimeoutMs);
+        }
+    }
+
+    /**
+     * New outbox rows were committed
+     */
+    public void wakeUp() {
+        wakeUps.release();
+    }
+
+    /**
+     * Relay one batch
+     *
+     * @return the number of events sent
+     * @throws IllegalStateException if a send failed (the unsent events stay queued)
+     */
+    public int relay() {
+        // A lock rather than synchronized: waiting on the sends must not pin the virtual thread
+        // (the in-process transport acknowledges from another thread that may need the carrier)
+        relayLock.lock();
+        try {
+            return relayBatch();
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    private int relayBatch() {
+        List<EventSpool.Entry> rows = readOutbox();
+        if (!eventSpool.isEmpty()) {
+            // Newer events queue up behind the spooled ones, so the transport still sees commit order
+            moveToSpool(rows);
+            int drained = drainSpool();
+            pending.set(countPending());
+            return drained;
+        }
+        if (rows.isEmpty()) {
+            pending.set(0);
+            return 0;
+        }
+
+        Delivery delivery = send(rows);
+        if (delivery.acknowledged() > 0) {
+            deleteFromOutbox(rows.subList(0, delivery.acknowledged()));
+        }
+        if (delivery.failure() != null) {
+            moveToSpool(rows.subList(delivery.acknowledged(), rows.size()));
+        }
+        pending.set(countPending());
+        if (delivery.failure() != null) {
+            failures.increment();
+            throw delivery.failure();
+        }
+        log.debug("Relayed {} outbox events", delivery.acknowledged());
+        return delivery.acknowledged();
+    }
+
+    /**
+     * Send spooled events, oldest first, at most perk.outbox.spool.drain-max-per-second
+     */
+    private int drainSpool() {
+        long started = System.nanoTime();
+        List<EventSpool.Entry> entries = eventSpool.peek(batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        Delivery delivery = send(entries);
+        eventSpool.remove(delivery.acknowledged());
+        if (delivery.failure() != null) {
+            failures.increment();
+            throw delivery.failure();
+        }
+        if (spoolDrainMaxPerSecond > 0) {
+            long budgetNanos = TimeUnit.SECONDS.toNanos(delivery.acknowledged()) / spoolDrainMaxPerSecond;
+            long remaining = budgetNanos - (System.nanoTime() - started);
+            if (remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remaining); // Leave the broker room for live traffic
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        log.debug("Drained {} spooled events, {} left", delivery.acknowledged(), eventSpool.size());
+        return delivery.acknowledged();
+    }
+
+    /**
+     * Hand events to the transport back to back, then wait for the acknowledgements in order
+     *
+     * @return how many leading events were acknowledged, and why the rest were not
+     */
+    private Delivery send(List<EventSpool.Entry> entries) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(entries.size());
+        for (EventSpool.Entry entry : entries) {
+            CompletableFuture<?> future = eventTransport.send(entry.topic(), entry.key(), read(entry), entry.id());
+            futures.add(future);
+            if (future.isCompletedExceptionally()) {
+                break; // Transport could not even queue it (Kafka unavailable, in-process bus full)
+            }
+        }
+        eventTransport.flush();
+
+        int acknowledged = 0;
+        RuntimeException failure = null;
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                acknowledged++;
+            } catch (ExecutionException | TimeoutException e) {
+                failure = new IllegalStateException("Outbox relay stopped at event " + entries.get(acknowledged).id(), e);
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException("Outbox relay interrupted", e);
+                break;
+            }
+        }
+
+        if (acknowledged > 0) {
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < acknowledged; i++) {
+                lag.record(Duration.between(entries.get(i).createdAt(), now));
+            }
+            sent.increment(acknowledged);
+            batchSizes.record(acknowledged);
+        }
+        return new Delivery(acknowledged, failure);
+    }
+
+    /**
+     * Move unsent outbox rows to the spool (if enabled and not full; otherwise they stay put)
+     */
+    private void moveToSpool(List<EventSpool.Entry> rows) {
+        if (!rows.isEmpty() && eventSpool.append(rows)) {
+            deleteFromOutbox(rows);
+            log.debug("Spooled {} outbox events ({} spooled)", rows.size(), eventSpool.size());
+        }
+    }
+
+    private List<EventSpool.Entry> readOutbox() {
+        return jdbcTemplate.query(
+                "SELECT id, topic, event_key, payload, created_at FROM outbox_event ORDER BY id LIMIT ?",
+                (rs, i) -> new EventSpool.Entry(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBytes(4),
+                        rs.getTimestamp(5).toLocalDateTime()),
+                batchSize);
+    }
+
+    private void deleteFromOutbox(List<EventSpool.Entry> rows) {
+        List<Object[]> ids = new ArrayList<>(rows.size());
+        for (EventSpool.Entry row : rows) {
+            ids.add(new Object[]{row.id()});
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM outbox_event WHERE id = ?", ids);
+    }
+
+    private void run() {
+        long backoff = 0;
+        while (running) {
+            try {
+                if (backoff > 0) {
+                    Thread.sleep(backoff);
+                } else if (wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS) && lingerMs > 0) {
+                    Thread.sleep(lingerMs);
+                }
+                wakeUps.drainPermits();
+                int relayed;
+                do {
+                    relayed = relay();
+                } while (relayed == batchSize);
+                backoff = 0;
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                backoff = Math.min(maxBackoffMs, Math.max(pollIntervalMs, backoff * 2));
+                log.warn("⚠ Outbox relay failed ({} events pending), retrying in {} ms: {}",
+                        pending.get(), backoff, rootMessage(e));
+            }
+        }
+    }
+
+    private Object read(EventSpool.Entry entry) {
+        try {
+            return EventCodec.decode(entry.payload());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unreadable outbox event " + entry.id(), e);
+        }
+    }
+
+    private long countPending() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.perkmanager.service;
+
+import com.example.perkmanager.command.CreatePerksBatchCommand;
+import com.example.perkmanager.dto.PerkBatchResultReadModel;
+import com.example.perkmanager.event.PerkCreatedEvent;
+import com.example.perkmanager.model.AppUser;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.projection.ReadModelUpdater;
+import com.example.perkmanager.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Command Handler: Bulk Perk Write Operations
+ * Creates a whole catalog of perks in one transaction. Perk rows are inserted through JPA with
+ * JDBC statement batching (hibernate.jdbc.batch_size, sequence ids so Hibernate can batch),
+ * flushed and cleared chunk by chunk to keep the persistence context small; the poster's
+ * user_perks rows follow each chunk as one JDBC batch, and so do the chunk's PerkCreatedEvents
+ * in the outbox.
+ */
+@Service
+public class PerkBatchCommandHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(PerkBatchCommandHandler.class);
+
+    private static final String OWNERSHIP_SQL = "INSERT INTO user_perks (user_id, perk_id) VALUES (?, ?)";
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final EventPublisher eventPublisher;
+    private final ReadModelUpdater readModelUpdater;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public PerkBatchCommandHandler(UserRepository userRepository,
+                                   EntityManager entityManager,
+                                   JdbcTemplate jdbcTemplate,
+                                   Validator validator,
+                                   EventPublisher eventPublisher,
+                                   ReadModelUpdater readModelUpdater,
+                                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int chunkSize,
+                                   @Value("${perk.batch.max-items:10000}") int maxItems) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.readModelUpdater = readModelUpdater;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Handle CreatePerksBatchCommand
+     * Invalid items are reported by position and skipped; the valid ones are created together
+     *
+     * @throws IllegalArgumentException if the user does not exist or the batch is too large
+     */
+    @Transactional
+    public PerkBatchResultReadModel handle(CreatePerksBatchCommand command) {
+        List<CreatePerksBatchCommand.Item> items = command.getPerks();
+        log.info("Handling CreatePerksBatchCommand for user {} ({} perks)", command.getUserId(), items.size());
+
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " perks per batch");
+        }
+        AppUser user = userRepository.findById(command.getUserId())
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + command.getUserId()));
+        Long userId = user.getId();
+        String email = user.getEmail();
+
+        // Validate everything before writing anything
+        List<PerkBatchResultReadModel.Failure> failures = new ArrayList<>();
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            String problems = validate(items.get(i));
+            if (problems == null) {
+                valid.add(i);
+            } else {
+                failures.add(new PerkBatchResultReadModel.Failure(i, problems));
+            }
+        }
+
+        List<PerkBatchResultReadModel.Created> created = new ArrayList<>(valid.size());
+        List<PerkCreatedEvent> events = new ArrayList<>(valid.size());
+        List<PerkCreatedEvent> chunk = new ArrayList<>(chunkSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int index : valid) {
+            CreatePerksBatchCommand.Item item = items.get(index);
+            Perk perk = new Perk(item.getDescription(), item.getMembership(), item.getProduct(),
+                    item.getStartDate(), item.getEndDate(), user);
+            entityManager.persist(perk);
+
+            created.add(new PerkBatchResultReadModel.Created(index, perk.getId()));
+            PerkCreatedEvent event = new PerkCreatedEvent(perk.getId(), perk.getDescription(),
+                    perk.getMembership(), perk.getProduct(), perk.getStartDate(), perk.getEndDate(),
+                    userId, now);
+            event.setPostedByEmail(email);
+            events.add(event);
+
+            chunk.add(event);
+            if (chunk.size() == chunkSize) {
+                flushChunk(userId, chunk);
+            }
+        }
+        flushChunk(userId, chunk);
+        log.info("Created {} perks for user {} ({} rejected)", created.size(), userId, failures.size());
+
+        AfterCommit.run(() -> events.forEach(readModelUpdater::apply));
+
+        return new PerkBatchResultReadModel(items.size(), created, failures);
+    }
+
+    /**
+     * Send the chunk's perk and outbox inserts, add the perks to the poster's perks, and detach them
+     */
+    private void flushChunk(Long userId, List<PerkCreatedEvent> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        eventPublisher.publishPerksCreated(chunk);
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(OWNERSHIP_SQL, chunk, chunk.size(), (ps, event) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, event.getPerkId());
+        });
+        entityManager.clear();
+        chunk.clear();
+    }
+
+    /**
+     * @return the item's validation messages, or null if it is valid
+     */
+    private String validate(CreatePerksBatchCommand.Item item) {
+        if (item == null) {
+            return "Perk is required";
+        }
+        Set<ConstraintViolation<CreatePerksBatchCommand.Item>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
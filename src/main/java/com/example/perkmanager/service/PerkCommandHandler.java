@@ -3,6 +3,8 @@ package com.example.perkmanager.service;
 import com.example.perkmanager.command.CreatePerkCommand;
 import com.example.perkmanager.command.DownvotePerkCommand;
 import com.example.perkmanager.command.UpvotePerkCommand;
+import com.example.perkmanager.command.VoteCommand;
+import com.example.perkmanager.dto.PerkVoteReadModel;
 import com.example.perkmanager.enumerations.VoteType;
 import com.example.perkmanager.event.PerkCreatedEvent;
 import com.example.perkmanager.event.PerkDownvotedEvent;
@@ -10,15 +12,24 @@ import com.example.perkmanager.event.PerkUpvotedEvent;
 import com.example.perkmanager.model.AppUser;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.model.PerkVote;
+import com.example.perkmanager.projection.ReadModelUpdater;
 import com.example.perkmanager.repository.PerkRepository;
 import com.example.perkmanager.repository.PerkVoteRepository;
 import com.example.perkmanager.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Command Handler: Perk Write Operations
@@ -33,15 +44,30 @@ public class PerkCommandHandler {
     private final UserRepository userRepository;
     private final PerkVoteRepository perkVoteRepository;
     private final EventPublisher eventPublisher;
+    private final ReadModelUpdater readModelUpdater;
+    private final VoteCounterBuffer voteCounterBuffer;
+    private final VoteIndex voteIndex;
+    private final ConflictRetry conflictRetry;
+    private final EntityManager entityManager;
 
     public PerkCommandHandler(PerkRepository perkRepository,
                               UserRepository userRepository,
                               PerkVoteRepository perkVoteRepository,
-                              EventPublisher eventPublisher) {
+                              EventPublisher eventPublisher,
+                              ReadModelUpdater readModelUpdater,
+                              VoteCounterBuffer voteCounterBuffer,
+                              VoteIndex voteIndex,
+                              ConflictRetry conflictRetry,
+                              EntityManager entityManager) {
         this.perkRepository = perkRepository;
         this.userRepository = userRepository;
         this.perkVoteRepository = perkVoteRepository;
         this.eventPublisher = eventPublisher;
+        this.readModelUpdater = readModelUpdater;
+        this.voteCounterBuffer = voteCounterBuffer;
+        this.voteIndex = voteIndex;
+        this.conflictRetry = conflictRetry;
+        this.entityManager = entityManager;
     }
 
     /**
@@ -83,115 +109,176 @@ public class PerkCommandHandler {
                 user.getId(),
                 LocalDateTime.now()
         );
+        event.setPostedByEmail(user.getEmail());
         eventPublisher.publishPerkCreated(event);
+        AfterCommit.run(() -> readModelUpdater.apply(event));
 
         return savedPerk;
     }
 
+    /**
+     * Outcome of one vote of a batch: the vote result, or the exception the vote failed with
+     * (IllegalArgumentException for an unknown perk or user, a conflict once retries ran out)
+     */
+    public record VoteOutcome(PerkVoteReadModel vote, RuntimeException error) {}
+
     /**
      * Handle UpvotePerkCommand
-     * Increments upvote count and publishes PerkUpvotedEvent
+     * Records the vote (or toggles/switches an existing one) and publishes PerkUpvotedEvent
      */
-    @Transactional
-    public Perk handle(UpvotePerkCommand command) {
+    public PerkVoteReadModel handle(UpvotePerkCommand command) {
         log.info("Handling UpvotePerkCommand for perk {}, user {}",
                 command.getPerkId(), command.getUserId());
+        return conflictRetry.execute("upvote", () -> vote(command));
+    }
 
-        Perk perk = perkRepository.findById(command.getPerkId())
-                .orElseThrow(() -> new IllegalArgumentException("Perk not found: " + command.getPerkId()));
-
-        AppUser user = userRepository.findById(command.getUserId())
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + command.getUserId()));
+    /**
+     * Handle DownvotePerkCommand
+     * Records the vote (or toggles/switches an existing one) and publishes PerkDownvotedEvent
+     */
+    public PerkVoteReadModel handle(DownvotePerkCommand command) {
+        log.info("Handling DownvotePerkCommand for perk {}, user {}",
+                command.getPerkId(), command.getUserId());
+        return conflictRetry.execute("downvote", () -> vote(command));
+    }
 
-        var existingVoteOpt = perkVoteRepository.findByUserAndPerk(user, perk);
+    /**
+     * Handle a batch of vote commands, in order, with the same semantics as one call each.
+     * The batch runs in one transaction, cut into several where a user votes on the same perk
+     * again (the second vote has to see the first one committed). A vote on an unknown perk or
+     * by an unknown user only fails its own item. If a transaction hits a write conflict it is
+     * rolled back and its votes are re-applied one by one, each with the usual retry.
+     */
+    public List<VoteOutcome> handle(List<? extends VoteCommand> commands) {
+        log.debug("Handling batch of {} vote commands", commands.size());
+        List<VoteOutcome> outcomes = new ArrayList<>(commands.size());
+        Set<List<Long>> voters = new HashSet<>();
+        int from = 0;
+        for (int i = 0; i < commands.size(); i++) {
+            VoteCommand command = commands.get(i);
+            if (!voters.add(List.of(command.getUserId(), command.getPerkId()))) {
+                outcomes.addAll(handleRun(commands.subList(from, i)));
+                voters.clear();
+                voters.add(List.of(command.getUserId(), command.getPerkId()));
+                from = i;
+            }
+        }
+        outcomes.addAll(handleRun(commands.subList(from, commands.size())));
+        return outcomes;
+    }
 
-        if (existingVoteOpt.isEmpty()) {
-            // No existing vote -> add new upvote
-            perk.setUpvotes(perk.getUpvotes() + 1);
-            PerkVote vote = new PerkVote(user, perk, VoteType.UPVOTE);
-            perkVoteRepository.save(vote);
-        } else {
-            PerkVote existing = existingVoteOpt.get();
-            switch (existing.getVoteType()) {
-                case UPVOTE -> {
-                    // Toggle off (remove upvote)
-                    perk.setUpvotes(perk.getUpvotes() - 1);
-                    perkVoteRepository.delete(existing);
+    /**
+     * Votes without a repeated (user, perk) pair, in one transaction
+     */
+    private List<VoteOutcome> handleRun(List<? extends VoteCommand> commands) {
+        if (commands.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return conflictRetry.execute("vote-batch", () -> {
+                List<VoteOutcome> outcomes = new ArrayList<>(commands.size());
+                for (VoteCommand command : commands) {
+                    try {
+                        outcomes.add(new VoteOutcome(vote(command), null));
+                    } catch (IllegalArgumentException e) {
+                        outcomes.add(new VoteOutcome(null, e));
+                    }
                 }
-                case DOWNVOTE -> {
-                    // Switch from downvote to upvote
-                    perk.setDownvotes(perk.getDownvotes() - 1);
-                    perk.setUpvotes(perk.getUpvotes() + 1);
-                    existing.setVoteType(VoteType.UPVOTE);
-                    perkVoteRepository.save(existing);
+                return outcomes;
+            });
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            log.info("Vote batch of {} conflicted, applying votes one by one", commands.size());
+            List<VoteOutcome> outcomes = new ArrayList<>(commands.size());
+            for (VoteCommand command : commands) {
+                try {
+                    outcomes.add(new VoteOutcome(conflictRetry.execute("vote", () -> vote(command)), null));
+                } catch (IllegalArgumentException | ConcurrencyFailureException
+                         | DataIntegrityViolationException failure) {
+                    outcomes.add(new VoteOutcome(null, failure));
                 }
             }
+            return outcomes;
         }
-
-        Perk updatedPerk = perkRepository.save(perk);
-
-        // Publish event with updated count
-        PerkUpvotedEvent event = new PerkUpvotedEvent(
-                updatedPerk.getId(),
-                updatedPerk.getUpvotes(),
-                LocalDateTime.now()
-        );
-        eventPublisher.publishPerkUpvoted(event);
-
-        return updatedPerk;
     }
 
-
     /**
-     * Handle DownvotePerkCommand
-     * Increments downvote count and publishes PerkDownvotedEvent
+     * One vote click, run in a (retried) transaction.
+     * The user's current vote comes from VoteIndex and the perk's counts from VoteCounterBuffer,
+     * so no rows are read. The vote row is written with statements conditional on the indexed
+     * state; if the index turns out stale, the user's entry is dropped and the attempt fails
+     * with a conflict, which ConflictRetry retries against freshly loaded state.
      */
-    @Transactional
-    public Perk handle(DownvotePerkCommand command) {
-        log.info("Handling DownvotePerkCommand for perk {}, user {}",
-                command.getPerkId(), command.getUserId());
-
-        Perk perk = perkRepository.findById(command.getPerkId())
-                .orElseThrow(() -> new IllegalArgumentException("Perk not found: " + command.getPerkId()));
+    private PerkVoteReadModel vote(VoteCommand command) {
+        Long perkId = command.getPerkId();
+        Long userId = command.getUserId();
+        VoteType clicked = command.getVoteType();
+        VoteType opposite = clicked == VoteType.UPVOTE ? VoteType.DOWNVOTE : VoteType.UPVOTE;
+        voteCounterBuffer.counts(perkId); // validates the perk
+        VoteType existing = voteIndex.find(userId, perkId);
 
-        AppUser user = userRepository.findById(command.getUserId())
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + command.getUserId()));
+        VoteType result;
+        int delta;
+        int oppositeDelta = 0;
+        if (existing == null) {
+            // No existing vote -> add new vote
+            insertVote(userId, perkId, clicked);
+            result = clicked;
+            delta = 1;
+        } else if (existing == clicked) {
+            // Toggle off (remove vote)
+            requireApplied(userId, perkVoteRepository.deleteVote(userId, perkId, clicked));
+            result = null;
+            delta = -1;
+        } else {
+            // Switch sides
+            requireApplied(userId, perkVoteRepository.switchVote(userId, perkId, opposite, clicked));
+            result = clicked;
+            delta = 1;
+            oppositeDelta = -1;
+        }
 
-        var existingVoteOpt = perkVoteRepository.findByUserAndPerk(user, perk);
+        VoteCounterBuffer.Counts counts = clicked == VoteType.UPVOTE
+                ? voteCounterBuffer.record(perkId, delta, oppositeDelta)
+                : voteCounterBuffer.record(perkId, oppositeDelta, delta);
 
-        if (existingVoteOpt.isEmpty()) {
-            // No existing vote -> add new downvote
-            perk.setDownvotes(perk.getDownvotes() + 1);
-            PerkVote vote = new PerkVote(user, perk, VoteType.DOWNVOTE);
-            perkVoteRepository.save(vote);
+        LocalDateTime now = LocalDateTime.now();
+        // Written to the outbox in this attempt's transaction, so a rolled back attempt emits nothing
+        if (clicked == VoteType.UPVOTE) {
+            PerkUpvotedEvent event = new PerkUpvotedEvent(perkId, counts.upvotes(), counts.downvotes(), now);
+            eventPublisher.publishPerkUpvoted(event);
+            AfterCommit.run(() -> {
+                voteIndex.update(userId, perkId, result);
+                readModelUpdater.apply(event);
+            });
         } else {
-            PerkVote existing = existingVoteOpt.get();
-            switch (existing.getVoteType()) {
-                case DOWNVOTE -> {
-                    // Toggle off (remove downvote)
-                    perk.setDownvotes(perk.getDownvotes() - 1);
-                    perkVoteRepository.delete(existing);
-                }
-                case UPVOTE -> {
-                    // Switch from upvote to downvote
-                    perk.setUpvotes(perk.getUpvotes() - 1);
-                    perk.setDownvotes(perk.getDownvotes() + 1);
-                    existing.setVoteType(VoteType.DOWNVOTE);
-                    perkVoteRepository.save(existing);
-                }
-            }
+            PerkDownvotedEvent event = new PerkDownvotedEvent(perkId, counts.downvotes(), counts.upvotes(), now);
+            eventPublisher.publishPerkDownvoted(event);
+            AfterCommit.run(() -> {
+                voteIndex.update(userId, perkId, result);
+                readModelUpdater.apply(event);
+            });
         }
 
-        Perk updatedPerk = perkRepository.save(perk);
-
-        PerkDownvotedEvent event = new PerkDownvotedEvent(
-                updatedPerk.getId(),
-                updatedPerk.getDownvotes(),
-                LocalDateTime.now()
-        );
-        eventPublisher.publishPerkDownvoted(event);
+        return new PerkVoteReadModel(perkId, counts.upvotes(), counts.downvotes(), result);
+    }
 
-        return updatedPerk;
+    private void insertVote(Long userId, Long perkId, VoteType voteType) {
+        // References only: the ids were validated above, so no SELECT is needed
+        PerkVote vote = new PerkVote(entityManager.getReference(AppUser.class, userId),
+                entityManager.getReference(Perk.class, perkId), voteType);
+        try {
+            perkVoteRepository.save(vote);
+        } catch (DataIntegrityViolationException e) {
+            // The user already has a vote on this perk the index did not know about
+            voteIndex.invalidate(userId);
+            throw e;
+        }
     }
 
+    private void requireApplied(Long userId, int rows) {
+        if (rows == 0) {
+            voteIndex.invalidate(userId);
+            throw new OptimisticLockingFailureException("Vote of user " + userId + " changed concurrently");
+        }
+    }
 }
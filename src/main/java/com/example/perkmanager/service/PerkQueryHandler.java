@@ -1,61 +1,72 @@
 package com.example.perkmanager.service;
 
+import com.example.perkmanager.dto.PerkFacetResultReadModel;
 import com.example.perkmanager.dto.PerkReadModel;
-import com.example.perkmanager.model.AppUser;
-import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.enumerations.VoteType;
+import com.example.perkmanager.projection.MatchingPerksView;
+import com.example.perkmanager.projection.PerkFacetIndex;
+import com.example.perkmanager.projection.PerkLeaderboard;
+import com.example.perkmanager.projection.PerkProjectionStore;
+import com.example.perkmanager.projection.PerkQueryCache;
+import com.example.perkmanager.projection.PerkSearchIndex;
 import com.example.perkmanager.query.*;
-import com.example.perkmanager.repository.PerkRepository;
-import com.example.perkmanager.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 /**
  * Query Handler: Perk Read Operations
  * Handles queries that read perk data without side effects
- * Optimized for read performance
+ * Optimized for read performance: list queries are served from the
+ * in-memory PerkProjectionStore instead of the write database, and the
+ * perk list queries are cached per parameters until a perk in them changes
  */
 @Service
 public class PerkQueryHandler {
 
     private static final Logger log = LoggerFactory.getLogger(PerkQueryHandler.class);
 
-    private final PerkRepository perkRepository;
-    private final UserRepository userRepository;
-
-    public PerkQueryHandler(PerkRepository perkRepository, UserRepository userRepository) {
-        this.perkRepository = perkRepository;
-        this.userRepository = userRepository;
+    private final PerkProjectionStore perkProjectionStore;
+    private final PerkLeaderboard perkLeaderboard;
+    private final PerkFacetIndex perkFacetIndex;
+    private final MatchingPerksView matchingPerksView;
+    private final PerkSearchIndex perkSearchIndex;
+    private final VoteIndex voteIndex;
+    private final PerkQueryCache perkQueryCache;
+
+    public PerkQueryHandler(PerkProjectionStore perkProjectionStore, PerkLeaderboard perkLeaderboard,
+                            PerkFacetIndex perkFacetIndex, MatchingPerksView matchingPerksView,
+                            PerkSearchIndex perkSearchIndex, VoteIndex voteIndex,
+                            PerkQueryCache perkQueryCache) {
+        this.perkProjectionStore = perkProjectionStore;
+        this.perkLeaderboard = perkLeaderboard;
+        this.perkFacetIndex = perkFacetIndex;
+        this.matchingPerksView = matchingPerksView;
+        this.perkSearchIndex = perkSearchIndex;
+        this.voteIndex = voteIndex;
+        this.perkQueryCache = perkQueryCache;
     }
 
     /**
      * Handle GetAllPerksQuery
-     * Returns all perks as read models
+     * Returns all perks as read models; "active only" is answered from the facet index
      */
     public List<PerkReadModel> handle(GetAllPerksQuery query) {
-        log.info("Handling GetAllPerksQuery");
-
-        return StreamSupport.stream(perkRepository.findAll().spliterator(), false)
-                .map(PerkReadModel::fromEntity)
-                .collect(Collectors.toList());
+        log.info("Handling GetAllPerksQuery (activeOnly: {})", query.isActiveOnly());
+        return perkQueryCache.get(key(query), () -> load(query));
     }
 
     /**
      * Handle GetPerksByVotesQuery
-     * Returns perks sorted by upvote count
+     * Returns perks sorted by upvotes or net score, read from the incrementally
+     * maintained leaderboard (only the requested rank range is materialized)
      */
     public List<PerkReadModel> handle(GetPerksByVotesQuery query) {
-        log.info("Handling GetPerksByVotesQuery (descending: {})", query.isDescending());
-
-        List<Perk> perks = perkRepository.findAllByOrderByUpvotesDesc();
-
-        return perks.stream()
-                .map(PerkReadModel::fromEntity)
-                .collect(Collectors.toList());
+        log.info("Handling GetPerksByVotesQuery (metric: {}, descending: {}, membership: {}, product: {})",
+                query.getMetric(), query.isDescending(), query.getMembership(), query.getProduct());
+        return perkQueryCache.get(key(query), () -> load(query));
     }
 
     /**
@@ -64,67 +75,134 @@ public class PerkQueryHandler {
      */
     public List<PerkReadModel> handle(GetPerksByMembershipQuery query) {
         log.info("Handling GetPerksByMembershipQuery for membership: {}", query.getMembership());
-
-        List<Perk> perks = perkRepository.findByMembership(query.getMembership());
-
-        return perks.stream()
-                .map(PerkReadModel::fromEntity)
-                .collect(Collectors.toList());
+        return perkQueryCache.get(key(query), () -> perkProjectionStore.findByMembership(query.getMembership()));
     }
 
     /**
      * Handle GetPerksMatchingProfileQuery
      * Returns perks that match user's memberships (personalized)
+     * Read from the materialized per-user view; the DB is only hit on a user's first request
      */
     public Map<String, Set<PerkReadModel>> handle(GetPerksMatchingProfileQuery query) {
         log.info("Handling GetPerksMatchingProfileQuery for user: {}", query.getUserId());
 
-        // Load user and profile
-        AppUser user = userRepository.findById(query.getUserId())
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + query.getUserId()));
+        return matchingPerksView.matchingPerks(query.getUserId());
+    }
 
-        if (user.getProfile() == null || user.getProfile().getMemberships().isEmpty()) {
-            log.warn("User {} has no memberships", query.getUserId());
-            return Map.of(); // Return empty map if no memberships
-        }
+    public List<PerkReadModel> handle(GetPerksByProductQuery query) {
+        log.info("Handling GetPerksByProductQuery for product: {}", query.getProduct());
+        return perkQueryCache.get(key(query), () -> perkProjectionStore.findByProduct(query.getProduct()));
+    }
 
-        // Get all perks
-        Set<Perk> allPerks = StreamSupport.stream(perkRepository.findAll().spliterator(), false)
-                .collect(Collectors.toSet());
+    // =====================================================================
+    // Encoded results: the list queries above as ready-made JSON response bodies
+    // =====================================================================
 
-        // Filter perks for "Your Perks" list:
-        // 1. Perks posted by the user
-        // 2. Perks added to the user's profile (user.getPerks())
-        Set<Perk> userOwnedPerks = new HashSet<>();
-        userOwnedPerks.addAll(perkRepository.findByPostedBy(user));
-        userOwnedPerks.addAll(user.getPerks());
+    public PerkQueryCache.Encoded handleEncoded(GetAllPerksQuery query) {
+        log.info("Handling GetAllPerksQuery (activeOnly: {}, encoded)", query.isActiveOnly());
+        return perkQueryCache.encoded(key(query), () -> load(query));
+    }
 
-        Set<PerkReadModel> userPerks = userOwnedPerks.stream()
-                .map(PerkReadModel::fromEntity)
-                .collect(Collectors.toSet());
+    public PerkQueryCache.Encoded handleEncoded(GetPerksByVotesQuery query) {
+        log.info("Handling GetPerksByVotesQuery (metric: {}, descending: {}, membership: {}, product: {}, encoded)",
+                query.getMetric(), query.isDescending(), query.getMembership(), query.getProduct());
+        return perkQueryCache.encoded(key(query), () -> load(query));
+    }
 
-        // Categorize perks by membership for "All Perks"
-        Map<String, Set<PerkReadModel>> categorizedPerks = new HashMap<>();
-        allPerks.stream()
-                .filter(perk -> !userOwnedPerks.contains(perk))
-                .forEach(perk -> {
-                    String membership = perk.getMembership().name();
-                    categorizedPerks
-                            .computeIfAbsent(membership, k -> new HashSet<>())
-                            .add(PerkReadModel.fromEntity(perk));
-                });
+    public PerkQueryCache.Encoded handleEncoded(GetPerksByMembershipQuery query) {
+        log.info("Handling GetPerksByMembershipQuery for membership: {} (encoded)", query.getMembership());
+        return perkQueryCache.encoded(key(query), () -> perkProjectionStore.findByMembership(query.getMembership()));
+    }
 
-        // Add "Your Perks" list to the map
-        categorizedPerks.put("Your Perks", userPerks);
+    public PerkQueryCache.Encoded handleEncoded(GetPerksByProductQuery query) {
+        log.info("Handling GetPerksByProductQuery for product: {} (encoded)", query.getProduct());
+        return perkQueryCache.encoded(key(query), () -> perkProjectionStore.findByProduct(query.getProduct()));
+    }
 
-        return categorizedPerks;
+    /**
+     * Handle GetPerksByFacetsQuery
+     * Returns perks matching a membership x product x active combination, with facet counts
+     * Answered with bitset operations on the facet index
+     */
+    public PerkFacetResultReadModel handle(GetPerksByFacetsQuery query) {
+        log.info("Handling GetPerksByFacetsQuery (memberships: {}, products: {}, active: {})",
+                query.getMemberships(), query.getProducts(), query.getActive());
+
+        PerkFacetIndex.Result result = perkFacetIndex.filter(
+                query.getMemberships(), query.getProducts(), query.getActive());
+
+        return new PerkFacetResultReadModel(
+                perkProjectionStore.findAllById(result.perkIds()),
+                result.membershipCounts(),
+                result.productCounts(),
+                result.activeCount(),
+                result.inactiveCount()
+        );
     }
 
-    public List<PerkReadModel> handle(GetPerksByProductQuery query) {
-        log.info("Handling GetPerksByProductQuery for product: {}", query.getProduct());
-        List<Perk> perks = perkRepository.findByProduct(query.getProduct());
-        return perks.stream()
-                .map(PerkReadModel::fromEntity)
-                .collect(Collectors.toList());
+    /**
+     * Handle SearchPerksQuery
+     * Returns perks whose description matches every search term (prefixes allowed),
+     * most relevant first
+     */
+    public List<PerkReadModel> handle(SearchPerksQuery query) {
+        log.info("Handling SearchPerksQuery for: '{}' (membership: {}, product: {})",
+                query.getText(), query.getMembership(), query.getProduct());
+
+        List<Long> perkIds = perkSearchIndex.search(
+                query.getText(), query.getMembership(), query.getProduct(), query.getLimit());
+
+        return perkProjectionStore.findAllById(perkIds);
+    }
+
+    /**
+     * Handle GetUserVotesQuery
+     * Returns the user's vote per perk (perks without a vote are left out), answered
+     * from the in-memory vote index
+     *
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public Map<Long, VoteType> handle(GetUserVotesQuery query) {
+        log.info("Handling GetUserVotesQuery for user {} ({} perks)",
+                query.getUserId(), query.getPerkIds().size());
+
+        return voteIndex.find(query.getUserId(), query.getPerkIds());
+    }
+
+    private static PerkQueryCache.Key key(GetAllPerksQuery query) {
+        return new PerkQueryCache.AllPerks(query.isActiveOnly());
+    }
+
+    private static PerkQueryCache.Key key(GetPerksByVotesQuery query) {
+        return new PerkQueryCache.ByVotes(query.getMetric(), query.isDescending(),
+                query.getMembership(), query.getProduct(), query.getOffset(), query.getLimit());
+    }
+
+    private static PerkQueryCache.Key key(GetPerksByMembershipQuery query) {
+        return new PerkQueryCache.ByMembership(query.getMembership());
+    }
+
+    private static PerkQueryCache.Key key(GetPerksByProductQuery query) {
+        return new PerkQueryCache.ByProduct(query.getProduct());
+    }
+
+    private List<PerkReadModel> load(GetAllPerksQuery query) {
+        if (query.isActiveOnly()) {
+            List<Long> activeIds = perkFacetIndex.filter(Set.of(), Set.of(), true).perkIds();
+            return perkProjectionStore.findAllById(activeIds);
+        }
+        return perkProjectionStore.findAll();
+    }
+
+    private List<PerkReadModel> load(GetPerksByVotesQuery query) {
+        List<Long> perkIds = perkLeaderboard.range(
+                query.getMetric(),
+                query.isDescending(),
+                query.getOffset(),
+                query.getLimit(),
+                query.getMembership(),
+                query.getProduct()
+        );
+        return perkProjectionStore.findAllById(perkIds);
     }
 }
@@ -0,0 +1,234 @@
+package com.example.perkmanager.service;
+
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.event.PerkSnapshotEvent;
+import com.example.perkmanager.transport.EventTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Write Side: Perk state publisher
+ * Keeps the log-compacted perk.state topic (key: perk id) holding a PerkSnapshotEvent with the
+ * full, latest state of every perk, next to the delta events. Compaction keeps one record per
+ * perk, so a new read node loads the catalog from it (PerkStateLoader) in time proportional to
+ * the catalog, not to the vote history.
+ *
+ * Perks changed by committed commands are marked dirty (by EventPublisher, after commit). Every
+ * perk.state.publish-interval-ms the dirty perks are read in one query per chunk and their
+ * snapshots sent through the EventTransport, so a perk voted on a thousand times in between
+ * gets one snapshot (all compaction would keep anyway). Vote counts include the deltas still
+ * pending in VoteCounterBuffer, as the vote events do. Those can belong to a transaction that
+ * then rolls back, so a perk whose delta VoteCounterBuffer withdrew is marked dirty again and
+ * its next snapshot supersedes the one with the phantom vote.
+ *
+ * Snapshots skip the outbox: the next one supersedes them, so a failed send just leaves the perk
+ * dirty (with the relay's exponential backoff), and every perk is published once at startup,
+ * which repairs snapshots lost when the previous process stopped with dirty perks. Only with the
+ * Kafka transport and perk.state.publish.enabled (in-process there is no other node to bootstrap).
+ *
+ * Metrics: perk.state.published, perk.state.dirty
+ */
+@Component
+public class PerkStatePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(PerkStatePublisher.class);
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String SNAPSHOT_SQL = """
+            SELECT p.id, p.description, p.membership, p.product, p.upvotes, p.downvotes,
+                   p.start_date, p.end_date, u.id, u.email
+            FROM perk p LEFT JOIN app_user u ON u.id = p.posted_by_id
+            WHERE p.id IN (%s)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventTransport eventTransport;
+    private final VoteCounterBuffer voteCounterBuffer;
+    private final boolean enabled;
+    private final String topic;
+    private final long publishIntervalMs;
+    private final long maxBackoffMs;
+    private final long sendTimeoutMs;
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Counter published;
+    private volatile boolean running;
+    private Thread worker;
+
+    public PerkStatePublisher(JdbcTemplate jdbcTemplate,
+                              EventTransport eventTransport,
+                              VoteCounterBuffer voteCounterBuffer,
+                              MeterRegistry meterRegistry,
+                              @Value("${perk.events.transport:kafka}") String transport,
+                              @Value("${perk.state.publish.enabled:true}") boolean enabled,
+                              @Value("${kafka.topic.perk-state:perk.state}") String topic,
+                              @Value("${perk.state.publish-interval-ms:1000}") long publishIntervalMs,
+                              @Value("${perk.outbox.max-backoff-ms:30000}") long maxBackoffMs,
+                              @Value("${perk.outbox.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventTransport = eventTransport;
+        this.voteCounterBuffer = voteCounterBuffer;
+        this.enabled = enabled && "kafka".equals(transport);
+        this.topic = topic;
+        this.publishIntervalMs = publishIntervalMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.published = meterRegistry.counter("perk.state.published");
+        meterRegistry.gauge("perk.state.dirty", dirty, Set::size);
+        voteCounterBuffer.onWithdrawn(this::changed);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Every perk is published once at startup (after the vote counters were reconciled)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        dirty.addAll(jdbcTemplate.queryForList("SELECT id FROM perk", Long.class));
+        running = true;
+        worker = Thread.ofVirtual().name("perk-state-publisher").start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(sendTimeoutMs);
+        }
+    }
+
+    /**
+     * Perks whose committed state changed
+     */
+    public void changed(Collection<Long> perkIds) {
+        if (enabled) {
+            dirty.addAll(perkIds);
+        }
+    }
+
+    public void changed(Long perkId) {
+        if (enabled && perkId != null) {
+            dirty.add(perkId);
+        }
+    }
+
+    /**
+     * Publish the snapshots of the dirty perks
+     *
+     * @return the number of snapshots sent
+     * @throws IllegalStateException if a send failed (the unsent perks stay dirty)
+     */
+    public int publish() {
+        List<Long> perkIds = new ArrayList<>(dirty);
+        dirty.removeAll(perkIds);
+        int sent = 0;
+        int from = 0;
+        try {
+            for (; from < perkIds.size(); from += CHUNK_SIZE) {
+                List<Long> chunk = perkIds.subList(from, Math.min(from + CHUNK_SIZE, perkIds.size()));
+                int chunkSent = send(snapshots(chunk));
+                published.increment(chunkSent);
+                sent += chunkSent;
+            }
+        } catch (RuntimeException e) {
+            // The failed chunk is published again as a whole (snapshots are idempotent)
+            dirty.addAll(perkIds.subList(from, perkIds.size()));
+            throw e;
+        }
+        if (sent > 0) {
+            log.debug("Published {} perk snapshots to [{}]", sent, topic);
+        }
+        return sent;
+    }
+
+    /**
+     * Send snapshots back to back and wait for them in order
+     *
+     * @return the number of snapshots sent (all of them)
+     * @throws IllegalStateException if one was not acknowledged
+     */
+    private int send(List<PerkSnapshotEvent> snapshots) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(snapshots.size());
+        for (PerkSnapshotEvent snapshot : snapshots) {
+            CompletableFuture<?> future = eventTransport.send(topic, String.valueOf(snapshot.getPerkId()), snapshot);
+            futures.add(future);
+            if (future.isCompletedExceptionally()) {
+                break;
+            }
+        }
+        eventTransport.flush();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalStateException("Perk snapshot " + snapshots.get(i).getPerkId() + " not sent", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Perk state publisher interrupted", e);
+            }
+        }
+        return snapshots.size();
+    }
+
+    private List<PerkSnapshotEvent> snapshots(List<Long> perkIds) {
+        LocalDateTime now = LocalDateTime.now();
+        String placeholders = String.join(",", Collections.nCopies(perkIds.size(), "?"));
+        return jdbcTemplate.query(SNAPSHOT_SQL.formatted(placeholders), (rs, rowNum) -> {
+            Long perkId = rs.getLong(1);
+            VoteCounterBuffer.Counts counts = voteCounterBuffer.loadedCounts(perkId)
+                    .orElse(new VoteCounterBuffer.Counts(rs.getInt(5), rs.getInt(6)));
+            return new PerkSnapshotEvent(perkId, rs.getString(2),
+                    rs.getString(3) == null ? null : MembershipType.valueOf(rs.getString(3)),
+                    rs.getString(4) == null ? null : ProductType.valueOf(rs.getString(4)),
+                    counts.upvotes(), counts.downvotes(), date(rs, 7), date(rs, 8),
+                    rs.getObject(9) == null ? null : rs.getLong(9), rs.getString(10), now);
+        }, perkIds.toArray());
+    }
+
+    private void run() {
+        long backoff = 0;
+        while (running) {
+            try {
+                Thread.sleep(backoff > 0 ? backoff : publishIntervalMs);
+                publish();
+                backoff = 0;
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                backoff = Math.min(maxBackoffMs, Math.max(publishIntervalMs, backoff * 2));
+                log.warn("⚠ Perk state publishing failed ({} perks dirty), retrying in {} ms: {}",
+                        dirty.size(), backoff, e.getMessage());
+            }
+        }
+    }
+
+    private static LocalDate date(ResultSet rs, int column) throws SQLException {
+        Date date = rs.getDate(column);
+        return date == null ? null : date.toLocalDate();
+    }
+}
@@ -9,6 +9,7 @@ import com.example.perkmanager.event.UserRegisteredEvent;
 import com.example.perkmanager.model.AppUser;
 import com.example.perkmanager.model.Perk;
 import com.example.perkmanager.model.Profile;
+import com.example.perkmanager.projection.ReadModelUpdater;
 import com.example.perkmanager.repository.PerkRepository;
 import com.example.perkmanager.repository.ProfileRepository;
 import com.example.perkmanager.repository.UserRepository;
@@ -34,16 +35,19 @@ public class UserCommandHandler {
     private final PerkRepository perkRepository;
     private final EventPublisher eventPublisher;
     private final PasswordEncoder passwordEncoder;
+    private final ReadModelUpdater readModelUpdater;
 
     public UserCommandHandler(UserRepository userRepository,
                               ProfileRepository profileRepository,
                               EventPublisher eventPublisher,
-                              PasswordEncoder passwordEncoder, PerkRepository perkRepository) {
+                              PasswordEncoder passwordEncoder, PerkRepository perkRepository,
+                              ReadModelUpdater readModelUpdater) {
         this.userRepository = userRepository;
         this.profileRepository = profileRepository;
         this.eventPublisher = eventPublisher;
         this.passwordEncoder = passwordEncoder;
         this.perkRepository = perkRepository;
+        this.readModelUpdater = readModelUpdater;
     }
 
     /**
@@ -123,6 +127,7 @@ public class UserCommandHandler {
                 LocalDateTime.now()
         );
         eventPublisher.publishMembershipAdded(event);
+        AfterCommit.run(() -> readModelUpdater.apply(event));
 
         return savedProfile;
     }
@@ -168,9 +173,10 @@ public class UserCommandHandler {
         // Publish event
         PerkAddedEvent event = new PerkAddedEvent(
                 savedUser.getId(),
-                perk
+                perk.getId()
         );
         eventPublisher.publishPerkAdded(event);
+        AfterCommit.run(() -> readModelUpdater.apply(event));
 
         return savedUser;
     }
@@ -0,0 +1,276 @@
+package com.example.perkmanager.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Write Side: Write-behind vote counters
+ * Vote commands record per-perk deltas here instead of rewriting the Perk row, so concurrent
+ * votes on a hot perk neither serialize on that row nor overwrite each other's increments.
+ * Deltas live in LongAdders (striped cells, uncontended under many writer threads) and are
+ * flushed periodically as one JDBC batch of relative updates (upvotes = upvotes + ?), which
+ * also bump Perk's optimistic-lock version.
+ *
+ * Each perk's persisted counts are cached next to its deltas: loaded on the perk's first vote
+ * (which also rejects unknown perk ids) and re-read after every flush, so they pick up changes
+ * written by other nodes. Vote counts reported by commands are persisted + in-flight + pending.
+ * PerkVote rows stay authoritative: the perk counters are recomputed from them at startup,
+ * which recovers deltas that were still pending when the previous process stopped.
+ *
+ * Counts include deltas of transactions still in progress, so anything that copied them out
+ * (e.g. a perk state snapshot) may hold a vote that then rolls back: withdrawal listeners are
+ * told about every perk whose delta was withdrawn.
+ */
+@Component
+public class VoteCounterBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteCounterBuffer.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE perk SET upvotes = upvotes + ?, downvotes = downvotes + ?, version = version + 1 WHERE id = ?";
+
+    private static final String RECONCILE_SQL = """
+            UPDATE perk p SET
+                upvotes = (SELECT COUNT(*) FROM perk_vote v WHERE v.perk_id = p.id AND v.vote_type = 'UPVOTE'),
+                downvotes = (SELECT COUNT(*) FROM perk_vote v WHERE v.perk_id = p.id AND v.vote_type = 'DOWNVOTE'),
+                version = version + 1
+            """;
+
+    /**
+     * Vote counts of a perk as seen by the write side (persisted + pending)
+     */
+    public record Counts(int upvotes, int downvotes) {}
+
+    /**
+     * Counters of one perk. Pending deltas are added without locking; the persisted and
+     * in-flight parts only change under the monitor, together with the flush draining pending.
+     */
+    private static final class PerkCounters {
+        final LongAdder pendingUpvotes = new LongAdder();
+        final LongAdder pendingDownvotes = new LongAdder();
+        int persistedUpvotes;
+        int persistedDownvotes;
+        long inFlightUpvotes;
+        long inFlightDownvotes;
+
+        PerkCounters(int persistedUpvotes, int persistedDownvotes) {
+            this.persistedUpvotes = persistedUpvotes;
+            this.persistedDownvotes = persistedDownvotes;
+        }
+
+        synchronized Counts counts() {
+            return new Counts(
+                    (int) (persistedUpvotes + inFlightUpvotes + pendingUpvotes.sum()),
+                    (int) (persistedDownvotes + inFlightDownvotes + pendingDownvotes.sum()));
+        }
+
+        synchronized boolean drain() {
+            inFlightUpvotes = pendingUpvotes.sumThenReset();
+            inFlightDownvotes = pendingDownvotes.sumThenReset();
+            return inFlightUpvotes != 0 || inFlightDownvotes != 0;
+        }
+
+        synchronized void flushed(int upvotes, int downvotes) {
+            persistedUpvotes = upvotes;
+            persistedDownvotes = downvotes;
+            inFlightUpvotes = 0;
+            inFlightDownvotes = 0;
+        }
+
+        synchronized void restore() {
+            pendingUpvotes.add(inFlightUpvotes);
+            pendingDownvotes.add(inFlightDownvotes);
+            inFlightUpvotes = 0;
+            inFlightDownvotes = 0;
+        }
+
+        boolean isPending() {
+            return pendingUpvotes.sum() != 0 || pendingDownvotes.sum() != 0;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Map<Long, PerkCounters> counters = new ConcurrentHashMap<>();
+    private final List<Consumer<Long>> withdrawalListeners = new CopyOnWriteArrayList<>();
+
+    public VoteCounterBuffer(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${perk.votes.flush-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Current counts of a perk
+     *
+     * @throws IllegalArgumentException if the perk does not exist
+     */
+    public Counts counts(Long perkId) {
+        return countersOf(perkId).counts();
+    }
+
+    /**
+     * Current counts of a perk whose counters are loaded; for any other perk the perk table is
+     * current (counters are reconciled at startup and only loaded on a perk's first vote)
+     */
+    public Optional<Counts> loadedCounts(Long perkId) {
+        PerkCounters perkCounters = counters.get(perkId);
+        return perkCounters == null ? Optional.empty() : Optional.of(perkCounters.counts());
+    }
+
+    /**
+     * Call the listener with the perk id whenever a rolled back transaction's delta has been
+     * withdrawn from the counts
+     */
+    public void onWithdrawn(Consumer<Long> listener) {
+        withdrawalListeners.add(listener);
+    }
+
+    /**
+     * Record a vote delta for a perk within the current transaction.
+     * If that transaction rolls back, the delta is withdrawn again.
+     *
+     * @return the perk's counts including this and every other pending delta
+     * @throws IllegalArgumentException if the perk does not exist
+     */
+    public Counts record(Long perkId, int upvoteDelta, int downvoteDelta) {
+        PerkCounters perkCounters = add(perkId, upvoteDelta, downvoteDelta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        add(perkId, -upvoteDelta, -downvoteDelta);
+                        withdrawalListeners.forEach(listener -> listener.accept(perkId));
+                    }
+                }
+            });
+        }
+        return perkCounters.counts();
+    }
+
+    private PerkCounters add(Long perkId, long upvoteDelta, long downvoteDelta) {
+        PerkCounters perkCounters = countersOf(perkId);
+        if (upvoteDelta != 0) {
+            perkCounters.pendingUpvotes.add(upvoteDelta);
+        }
+        if (downvoteDelta != 0) {
+            perkCounters.pendingDownvotes.add(downvoteDelta);
+        }
+        return perkCounters;
+    }
+
+    private PerkCounters countersOf(Long perkId) {
+        PerkCounters perkCounters = counters.get(perkId);
+        return perkCounters != null ? perkCounters : counters.computeIfAbsent(perkId, this::load);
+    }
+
+    private PerkCounters load(Long perkId) {
+        List<PerkCounters> rows = jdbcTemplate.query("SELECT upvotes, downvotes FROM perk WHERE id = ?",
+                (rs, rowNum) -> new PerkCounters(rs.getInt(1), rs.getInt(2)), perkId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Perk not found: " + perkId);
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Write all pending deltas to the perk table in one transaction, then re-read the
+     * flushed perks' counts. Deltas recorded while a flush runs are kept for the next one;
+     * on failure the drained deltas are put back.
+     *
+     * @return number of perk rows updated
+     */
+    @Scheduled(fixedDelayString = "${perk.votes.flush-interval-ms:500}")
+    public synchronized int flush() {
+        Map<Long, PerkCounters> batch = new LinkedHashMap<>();
+        counters.forEach((perkId, perkCounters) -> {
+            if (perkCounters.drain()) {
+                batch.put(perkId, perkCounters);
+            }
+        });
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> perkIds = new ArrayList<>(batch.keySet());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, perkIds, batchSize, (ps, perkId) -> {
+                        PerkCounters perkCounters = batch.get(perkId);
+                        ps.setLong(1, perkCounters.inFlightUpvotes);
+                        ps.setLong(2, perkCounters.inFlightDownvotes);
+                        ps.setLong(3, perkId);
+                    }));
+        } catch (RuntimeException e) {
+            batch.values().forEach(PerkCounters::restore);
+            log.warn("Vote counter flush failed, {} perks kept pending: {}", batch.size(), e.getMessage());
+            return 0;
+        }
+
+        for (int from = 0; from < perkIds.size(); from += batchSize) {
+            List<Long> chunk = perkIds.subList(from, Math.min(from + batchSize, perkIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT id, upvotes, downvotes FROM perk WHERE id IN (" + placeholders + ")",
+                    rs -> {
+                        batch.get(rs.getLong(1)).flushed(rs.getInt(2), rs.getInt(3));
+                    },
+                    chunk.toArray());
+        }
+        log.debug("Flushed vote counters for {} perks", batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Number of perks with deltas not yet written (for monitoring)
+     */
+    public int pendingPerks() {
+        int count = 0;
+        for (PerkCounters perkCounters : counters.values()) {
+            if (perkCounters.isPending()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Recompute perk counters from the authoritative PerkVote rows.
+     * Runs before the read side bootstraps from the perk table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void reconcile() {
+        Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(RECONCILE_SQL));
+        counters.clear();
+        log.info("Reconciled vote counters of {} perks from perk_vote", updated);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
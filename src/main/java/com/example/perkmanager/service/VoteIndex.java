@@ -0,0 +1,184 @@
+package com.example.perkmanager.service;
+
+import com.example.perkmanager.enumerations.VoteType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write Side: In-memory index of who voted what
+ * (userId, perkId) -> VoteType, so vote commands resolve toggle/switch without reading
+ * perk_vote, and the UI can ask which of the listed perks a user voted on.
+ *
+ * Per user the votes are a sorted long[] of perk ids with a parallel byte[] of vote types,
+ * replaced copy-on-write: users vote on comparatively few perks, and lookups stay lock-free.
+ * Warmed from perk_vote at startup; users not seen yet (e.g. without votes) are loaded on
+ * first access, which is also where unknown user ids are rejected.
+ *
+ * The database stays authoritative. Vote statements are conditional on the indexed state;
+ * when one finds the index stale, the user's entry is dropped and reloaded on the next attempt.
+ */
+@Component
+public class VoteIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteIndex.class);
+
+    private static final VoteType[] VOTE_TYPES = VoteType.values();
+
+    /**
+     * One user's votes, sorted by perk id (immutable)
+     */
+    private record UserVotes(long[] perkIds, byte[] voteTypes) {
+
+        VoteType find(long perkId) {
+            int i = Arrays.binarySearch(perkIds, perkId);
+            return i >= 0 ? VOTE_TYPES[voteTypes[i]] : null;
+        }
+
+        UserVotes with(long perkId, VoteType voteType) {
+            int i = Arrays.binarySearch(perkIds, perkId);
+            if (i >= 0) {
+                byte[] types = voteTypes.clone();
+                types[i] = (byte) voteType.ordinal();
+                return new UserVotes(perkIds, types);
+            }
+            int at = -i - 1;
+            long[] ids = new long[perkIds.length + 1];
+            byte[] types = new byte[perkIds.length + 1];
+            System.arraycopy(perkIds, 0, ids, 0, at);
+            System.arraycopy(voteTypes, 0, types, 0, at);
+            ids[at] = perkId;
+            types[at] = (byte) voteType.ordinal();
+            System.arraycopy(perkIds, at, ids, at + 1, perkIds.length - at);
+            System.arraycopy(voteTypes, at, types, at + 1, perkIds.length - at);
+            return new UserVotes(ids, types);
+        }
+
+        UserVotes without(long perkId) {
+            int i = Arrays.binarySearch(perkIds, perkId);
+            if (i < 0) {
+                return this;
+            }
+            long[] ids = new long[perkIds.length - 1];
+            byte[] types = new byte[perkIds.length - 1];
+            System.arraycopy(perkIds, 0, ids, 0, i);
+            System.arraycopy(voteTypes, 0, types, 0, i);
+            System.arraycopy(perkIds, i + 1, ids, i, perkIds.length - i - 1);
+            System.arraycopy(voteTypes, i + 1, types, i, perkIds.length - i - 1);
+            return new UserVotes(ids, types);
+        }
+    }
+
+    /**
+     * Appends votes in perk id order (rows read with ORDER BY perk_id)
+     */
+    private static final class Builder {
+        private long[] perkIds = new long[8];
+        private byte[] voteTypes = new byte[8];
+        private int size;
+
+        void add(long perkId, VoteType voteType) {
+            if (size == perkIds.length) {
+                perkIds = Arrays.copyOf(perkIds, size * 2);
+                voteTypes = Arrays.copyOf(voteTypes, size * 2);
+            }
+            perkIds[size] = perkId;
+            voteTypes[size] = (byte) voteType.ordinal();
+            size++;
+        }
+
+        UserVotes build() {
+            return new UserVotes(Arrays.copyOf(perkIds, size), Arrays.copyOf(voteTypes, size));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, UserVotes> users = new ConcurrentHashMap<>();
+
+    public VoteIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Load every existing vote
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        Map<Long, Builder> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, perk_id, vote_type FROM perk_vote ORDER BY user_id, perk_id", rs -> {
+            loaded.computeIfAbsent(rs.getLong(1), id -> new Builder())
+                    .add(rs.getLong(2), VoteType.valueOf(rs.getString(3)));
+        });
+        loaded.forEach((userId, builder) -> users.putIfAbsent(userId, builder.build()));
+        log.info("Vote index warmed with {} voters", loaded.size());
+    }
+
+    /**
+     * The user's current vote on a perk
+     *
+     * @return the vote type, or null if the user has not voted on the perk
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public VoteType find(Long userId, Long perkId) {
+        return votesOf(userId).find(perkId);
+    }
+
+    /**
+     * The user's votes on the given perks (perks without a vote are left out)
+     *
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public Map<Long, VoteType> find(Long userId, Collection<Long> perkIds) {
+        UserVotes votes = votesOf(userId);
+        Map<Long, VoteType> result = new LinkedHashMap<>();
+        for (Long perkId : perkIds) {
+            VoteType voteType = votes.find(perkId);
+            if (voteType != null) {
+                result.put(perkId, voteType);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record a committed vote change (null = vote removed)
+     */
+    public void update(Long userId, Long perkId, VoteType voteType) {
+        users.computeIfPresent(userId, (id, votes) ->
+                voteType == null ? votes.without(perkId) : votes.with(perkId, voteType));
+    }
+
+    /**
+     * Forget a user's entry after the database disagreed with it
+     */
+    public void invalidate(Long userId) {
+        users.remove(userId);
+    }
+
+    private UserVotes votesOf(Long userId) {
+        UserVotes votes = users.get(userId);
+        return votes != null ? votes : users.computeIfAbsent(userId, this::load);
+    }
+
+    private UserVotes load(Long userId) {
+        Integer exists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM app_user WHERE id = ?", Integer.class, userId);
+        if (exists == null || exists == 0) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+        Builder votes = new Builder();
+        jdbcTemplate.query("SELECT perk_id, vote_type FROM perk_vote WHERE user_id = ? ORDER BY perk_id",
+                rs -> {
+                    votes.add(rs.getLong(1), VoteType.valueOf(rs.getString(2)));
+                },
+                userId);
+        return votes.build();
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.perkmanager.service;
+
+import com.example.perkmanager.command.DownvotePerkCommand;
+import com.example.perkmanager.command.UpvotePerkCommand;
+import com.example.perkmanager.command.VoteCommand;
+import com.example.perkmanager.dto.PerkVoteReadModel;
+import com.example.perkmanager.enumerations.VoteType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Command Ingestion: Streaming NDJSON votes
+ * Reads vote commands line by line from a request body (never buffering the whole body),
+ * applies them in micro-batches on the command bus's "vote" lane and writes one NDJSON result
+ * per input line as soon as its batch has been applied. Going through the lane keeps the
+ * shards the only writers of their perks: streamed votes queue behind (and are grouped with)
+ * the API's votes on the same perk instead of racing them. A full shard queue slows the
+ * stream down rather than failing its lines.
+ *
+ * Input line:  {"perkId":1,"userId":2,"type":"UPVOTE"}
+ * Output line: {"line":1,"status":"OK","perkId":1,"userId":2,"type":"UPVOTE","upvotes":3,...}
+ *          or  {"line":2,"status":"ERROR","message":"Perk not found: 9"}
+ *
+ * Parsing runs on a virtual thread ahead of the applying thread (bounded hand-off queue), so
+ * reading the next lines overlaps the current batch's transaction. A batch is whatever has been
+ * parsed by the time the applier is ready (up to the max batch size): small under a trickle,
+ * large in bursts.
+ */
+@Component
+public class VoteStreamIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteStreamIngestor.class);
+
+    private static final String OK = "OK";
+    private static final String ERROR = "ERROR";
+
+    /**
+     * Totals of one ingested stream
+     */
+    public record Summary(long lines, long applied, long failed) {}
+
+    /**
+     * One result line of the response stream
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Result(long line, String status, Long perkId, Long userId, VoteType type,
+                         Integer upvotes, Integer downvotes, Integer netScore, VoteType userVote,
+                         String message) {
+
+        static Result applied(long line, VoteCommand command, PerkVoteReadModel vote) {
+            return new Result(line, OK, command.getPerkId(), command.getUserId(), command.getVoteType(),
+                    vote.getUpvotes(), vote.getDownvotes(), vote.getNetScore(), vote.getUserVote(), null);
+        }
+
+        static Result failed(long line, String message) {
+            return new Result(line, ERROR, null, null, null, null, null, null, null, message);
+        }
+    }
+
+    private record Line(Long perkId, Long userId, VoteType type) {}
+
+    private record Parsed(long number, VoteCommand command, String error) {}
+
+    private static final Parsed END = new Parsed(-1, null, null);
+
+    private final CommandBus commandBus;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+
+    public VoteStreamIngestor(CommandBus commandBus,
+                              ObjectMapper objectMapper,
+                              @Value("${perk.votes.stream.max-batch-size:256}") int maxBatchSize) {
+        this.commandBus = commandBus;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Apply every vote line of the input and write the per-line results to the output
+     */
+    public Summary ingest(InputStream input, OutputStream output) throws IOException {
+        BlockingQueue<Parsed> parsed = new ArrayBlockingQueue<>(2 * maxBatchSize);
+        Thread parser = Thread.ofVirtual().name("vote-stream-parser").start(() -> parse(input, parsed));
+
+        OutputStream out = new BufferedOutputStream(output);
+        long[] totals = new long[3];
+        try {
+            List<Parsed> batch = new ArrayList<>(maxBatchSize);
+            boolean done = false;
+            while (!done) {
+                Parsed first = parsed.take();
+                if (first == END) {
+                    break;
+                }
+                batch.add(first);
+                parsed.drainTo(batch, maxBatchSize - 1);
+                if (batch.get(batch.size() - 1) == END) {
+                    batch.remove(batch.size() - 1);
+                    done = true;
+                }
+                applyBatch(batch, out, totals);
+                out.flush();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Vote stream interrupted");
+        } finally {
+            parser.interrupt();
+            out.flush();
+        }
+        return new Summary(totals[0], totals[1], totals[2]);
+    }
+
+    /**
+     * Parser thread: one Parsed per non-blank input line, then END
+     */
+    private void parse(InputStream input, BlockingQueue<Parsed> parsed) {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            long number = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                number++;
+                if (!text.isBlank()) {
+                    parsed.put(parseLine(number, text));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Vote stream read failed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            parsed.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Parsed parseLine(long number, String text) {
+        Line line;
+        try {
+            line = objectMapper.readValue(text, Line.class);
+        } catch (JsonProcessingException e) {
+            return new Parsed(number, null, "Invalid vote line: " + e.getOriginalMessage());
+        }
+        if (line.perkId() == null || line.userId() == null || line.type() == null) {
+            return new Parsed(number, null, "perkId, userId and type are required");
+        }
+        VoteCommand command = line.type() == VoteType.UPVOTE
+                ? new UpvotePerkCommand(line.perkId(), line.userId())
+                : new DownvotePerkCommand(line.perkId(), line.userId());
+        return new Parsed(number, command, null);
+    }
+
+    /**
+     * Apply a batch and write its results in input order
+     */
+    private void applyBatch(List<Parsed> batch, OutputStream out, long[] totals) throws IOException {
+        List<VoteCommand> commands = new ArrayList<>(batch.size());
+        for (Parsed line : batch) {
+            if (line.command() != null) {
+                commands.add(line.command());
+            }
+        }
+        Iterator<CommandBus.Outcome> outcomes = commands.isEmpty()
+                ? Collections.emptyIterator()
+                : commandBus.executeAll(commands).iterator();
+
+        for (Parsed line : batch) {
+            Result result;
+            if (line.command() == null) {
+                result = Result.failed(line.number(), line.error());
+            } else {
+                CommandBus.Outcome outcome = outcomes.next();
+                result = outcome.error() == null
+                        ? Result.applied(line.number(), line.command(), (PerkVoteReadModel) outcome.result())
+                        : Result.failed(line.number(), outcome.error().getMessage());
+            }
+            totals[0]++;
+            totals[OK.equals(result.status()) ? 1 : 2]++;
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.perkmanager.transport;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Event Transport: carries committed domain events from the outbox to the event consumers
+ * Selected with perk.events.transport:
+ * - kafka (default): KafkaEventTransport, consumed by the @KafkaListener containers;
+ * - in-process: InProcessEventTransport, which calls the same @KafkaListener methods directly
+ *   in this JVM, for single-node installs and tests without a broker.
+ */
+public interface EventTransport {
+
+    /**
+     * Kafka header carrying an event's outbox sequence (decimal), see projection.ConsistencyTracker
+     */
+    String SEQUENCE_HEADER = "perk.seq";
+
+    /**
+     * Hand an event to the transport
+     *
+     * @return completes once the transport took responsibility for the event (Kafka: broker
+     *         acknowledgement, in-process: consumers called), or exceptionally if it could not
+     */
+    CompletableFuture<?> send(String topic, String key, Object event);
+
+    /**
+     * Hand an event from the outbox to the transport, with its outbox sequence for the
+     * consistency tokens (in-process, the sequence is not needed: only this node's own events
+     * travel, and they were applied locally when they committed)
+     */
+    default CompletableFuture<?> send(String topic, String key, Object event, long sequence) {
+        return send(topic, key, event);
+    }
+
+    /**
+     * Push out events buffered by send (no-op for transports without client-side buffering)
+     */
+    default void flush() {
+    }
+}
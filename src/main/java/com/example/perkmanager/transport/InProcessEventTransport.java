@@ -0,0 +1,272 @@
+package com.example.perkmanager.transport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Event Transport: in-process bus
+ * Delivers events to the existing @KafkaListener consumer methods inside this JVM, without a
+ * broker. send() puts the event in a bounded lock-free RingBuffer (many producers, one
+ * consumer); a single dispatcher thread drains it in batches of up to
+ * perk.events.in-process.max-batch and calls the listeners subscribed to each event's topic,
+ * in send order. The Kafka listener containers are not started in this mode (see
+ * EventTransportConfig).
+ *
+ * A full buffer fails the send (the outbox relay keeps the event and backs off), so producers
+ * never block. The returned future completes after the listeners ran; a listener that throws is
+ * logged and skipped, as the Kafka error handler would.
+ *
+ * Listener parameters: the payload, plus the KafkaHeaders RECEIVED_KEY, RECEIVED_TOPIC,
+ * RECEIVED_PARTITION (always 0) and OFFSET (the bus sequence number) headers. Batch listeners
+ * (batch = "true", a List payload and nothing else) get all of their events from one drained
+ * batch in a single call, the way a Kafka poll hands them over.
+ *
+ * Metrics: perk.events.in-process.depth, perk.events.in-process.batch.size,
+ * perk.events.in-process.rejected, perk.events.dispatched (tag topic).
+ */
+@Component
+@ConditionalOnProperty(name = "perk.events.transport", havingValue = "in-process")
+public class InProcessEventTransport implements EventTransport, SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(InProcessEventTransport.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private record Envelope(String topic, String key, Object event, long offset, CompletableFuture<Void> done) {}
+
+    private enum Argument { PAYLOAD, KEY, TOPIC, PARTITION, OFFSET }
+
+    private record Subscriber(Object bean, Method method, Argument[] arguments, Class<?> payloadType, boolean batch) {
+
+        void invoke(Envelope envelope) throws Throwable {
+            Object[] values = new Object[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                values[i] = switch (arguments[i]) {
+                    case PAYLOAD -> envelope.event();
+                    case KEY -> envelope.key();
+                    case TOPIC -> envelope.topic();
+                    case PARTITION -> 0;
+                    case OFFSET -> envelope.offset();
+                };
+            }
+            call(values);
+        }
+
+        void invokeBatch(List<Object> events) throws Throwable {
+            call(new Object[]{events});
+        }
+
+        boolean accepts(Object event) {
+            return payloadType.isInstance(event);
+        }
+
+        private void call(Object[] values) throws Throwable {
+            try {
+                method.invoke(bean, values);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private final ListableBeanFactory beanFactory;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatch;
+
+    private final RingBuffer<Envelope> ring;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> dispatched = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Counter rejected;
+    private final DistributionSummary batchSizes;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private volatile Thread dispatcher;
+
+    public InProcessEventTransport(ListableBeanFactory beanFactory,
+                                   Environment environment,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${perk.events.in-process.capacity:8192}") int capacity,
+                                   @Value("${perk.events.in-process.max-batch:256}") int maxBatch) {
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.ring = new RingBuffer<>(capacity);
+        this.rejected = meterRegistry.counter("perk.events.in-process.rejected");
+        this.batchSizes = meterRegistry.summary("perk.events.in-process.batch.size");
+        meterRegistry.gauge("perk.events.in-process.depth", ring, RingBuffer::size);
+    }
+
+    /**
+     * Subscribe the @KafkaListener methods of every singleton bean, then start dispatching
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String name : beanFactory.getBeanNamesForType(Object.class, false, false)) {
+            Class<?> type = beanFactory.getType(name, false);
+            if (type == null) {
+                continue;
+            }
+            Map<Method, KafkaListener> listeners = MethodIntrospector.selectMethods(ClassUtils.getUserClass(type),
+                    (MethodIntrospector.MetadataLookup<KafkaListener>) method ->
+                            AnnotatedElementUtils.findMergedAnnotation(method, KafkaListener.class));
+            if (!listeners.isEmpty()) {
+                Object bean = beanFactory.getBean(name);
+                listeners.forEach((method, listener) -> subscribe(bean, method, listener));
+            }
+        }
+        running = true;
+        // A platform thread: listeners take monitors (the projection store) that would pin a virtual one
+        dispatcher = Thread.ofPlatform().name("in-process-events").daemon().start(this::run);
+        log.info("In-process event transport dispatching {} topics", subscribers.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread worker = dispatcher;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> send(String topic, String key, Object event) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!ring.offer(new Envelope(topic, key, event, sequence.getAndIncrement(), done))) {
+            rejected.increment();
+            done.completeExceptionally(new RejectedExecutionException(
+                    "In-process event bus is full (" + ring.capacity() + " events)"));
+            return done;
+        }
+        if (idle) {
+            LockSupport.unpark(dispatcher);
+        }
+        return done;
+    }
+
+    private void subscribe(Object bean, Method method, KafkaListener listener) {
+        Parameter[] parameters = method.getParameters();
+        Argument[] arguments = new Argument[parameters.length];
+        Class<?> payloadType = Object.class;
+        boolean batch = "true".equals(environment.resolvePlaceholders(listener.batch()));
+        for (int i = 0; i < parameters.length; i++) {
+            Header header = parameters[i].getAnnotation(Header.class);
+            if (header == null) {
+                arguments[i] = Argument.PAYLOAD;
+                ResolvableType type = ResolvableType.forMethodParameter(method, i);
+                batch |= List.class.isAssignableFrom(type.toClass());
+                payloadType = batch ? type.getGeneric(0).toClass() : type.toClass();
+                continue;
+            }
+            arguments[i] = switch (header.value().isEmpty() ? header.name() : header.value()) {
+                case KafkaHeaders.RECEIVED_KEY -> Argument.KEY;
+                case KafkaHeaders.RECEIVED_TOPIC -> Argument.TOPIC;
+                case KafkaHeaders.RECEIVED_PARTITION -> Argument.PARTITION;
+                case KafkaHeaders.OFFSET -> Argument.OFFSET;
+                default -> throw new IllegalStateException("Header " + header.value()
+                        + " is not available in-process: " + method);
+            };
+        }
+        if (batch && parameters.length != 1) {
+            throw new IllegalStateException("In-process batch listeners take only the event list: " + method);
+        }
+        if (listener.topics().length == 0) {
+            throw new IllegalStateException("Only listeners on named topics can run in-process: " + method);
+        }
+        method.setAccessible(true);
+        Subscriber subscriber = new Subscriber(bean, method, arguments, payloadType, batch);
+        for (String topic : listener.topics()) {
+            subscribers.computeIfAbsent(environment.resolveRequiredPlaceholders(topic), t -> new ArrayList<>())
+                    .add(subscriber);
+        }
+    }
+
+    private void run() {
+        List<Envelope> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            if (ring.drainTo(batch, maxBatch) == 0) {
+                idle = true;
+                if (ring.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                } else {
+                    Thread.onSpinWait(); // A producer claimed a slot and is about to publish it
+                }
+                idle = false;
+                continue;
+            }
+            batchSizes.record(batch.size());
+            dispatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Call the record listeners event by event, then each batch listener once with all of its
+     * events in the batch (as one Kafka poll would), then acknowledge the batch
+     */
+    private void dispatch(List<Envelope> batch) {
+        Map<Subscriber, List<Object>> batches = new LinkedHashMap<>();
+        for (Envelope envelope : batch) {
+            for (Subscriber subscriber : subscribers.getOrDefault(envelope.topic(), List.of())) {
+                if (!subscriber.accepts(envelope.event())) {
+                    continue;
+                }
+                if (subscriber.batch()) {
+                    batches.computeIfAbsent(subscriber, s -> new ArrayList<>()).add(envelope.event());
+                    continue;
+                }
+                try {
+                    subscriber.invoke(envelope);
+                } catch (Throwable e) {
+                    log.error("✗ In-process listener {} failed on {} event {}: {}", subscriber.method().getName(),
+                            envelope.topic(), envelope.offset(), e.getMessage(), e);
+                }
+            }
+        }
+        batches.forEach((subscriber, events) -> {
+            try {
+                subscriber.invokeBatch(events);
+            } catch (Throwable e) {
+                log.error("✗ In-process batch listener {} failed on {} events: {}", subscriber.method().getName(),
+                        events.size(), e.getMessage(), e);
+            }
+        });
+        for (Envelope envelope : batch) {
+            dispatched.computeIfAbsent(envelope.topic(),
+                    topic -> meterRegistry.counter("perk.events.dispatched", "topic", topic)).increment();
+            envelope.done().complete(null);
+        }
+    }
+}
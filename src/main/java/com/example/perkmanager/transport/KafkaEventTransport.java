@@ -0,0 +1,43 @@
+package com.example.perkmanager.transport;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Event Transport: Kafka
+ * Sends events with the KafkaTemplate (serialized by codec.EventSerializer); the
+ * @KafkaListener consumers receive them from the broker. Outbox events carry their outbox
+ * sequence in the perk.seq header.
+ */
+@Component
+@ConditionalOnProperty(name = "perk.events.transport", havingValue = "kafka", matchIfMissing = true)
+public class KafkaEventTransport implements EventTransport {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public KafkaEventTransport(KafkaTemplate<String, Object> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    @Override
+    public CompletableFuture<?> send(String topic, String key, Object event) {
+        return kafkaTemplate.send(topic, key, event);
+    }
+
+    @Override
+    public CompletableFuture<?> send(String topic, String key, Object event, long sequence) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, key, event);
+        record.headers().add(SEQUENCE_HEADER, Long.toString(sequence).getBytes(StandardCharsets.US_ASCII));
+        return kafkaTemplate.send(record);
+    }
+
+    @Override
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+}
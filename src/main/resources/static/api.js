@@ -1,4 +1,20 @@
 // Defines functions to communicate with the backend via AJAX requests
+
+// Read-your-writes: command responses carry a consistency token; the following queries send the
+// newest one so the server answers only once it has applied our write (or a short wait ran out)
+let consistencyToken = null;
+$(document).ajaxComplete((event, xhr) => {
+    const token = Number(xhr.getResponseHeader('X-Consistency-Token'));
+    if (token && (!consistencyToken || token > consistencyToken)) {
+        consistencyToken = token;
+    }
+});
+$.ajaxPrefilter((options, originalOptions, xhr) => {
+    if (consistencyToken && (options.type || 'GET').toUpperCase() === 'GET' && options.url.startsWith('/api/cqrs/')) {
+        xhr.setRequestHeader('X-Consistency-Token', consistencyToken);
+    }
+});
+
 const api = {
     // ============================================
     // LEGACY API (kept for backward compatibility)
@@ -66,6 +82,16 @@ const api = {
         dataType: 'json'
     }),
 
+    // Query: Full-text search on perk descriptions (optional membership/product filters)
+    searchPerks: (text, membership, product) => $.ajax({
+        url: '/api/cqrs/perks/search',
+        method: 'GET',
+        data: Object.assign({ q: text },
+            membership ? { membership } : {},
+            product ? { product } : {}),
+        dataType: 'json'
+    }),
+
     // Command: Create Perk (userId now in body, not path)
     createPerk: (userId, perk) => $.ajax({
         url: '/api/cqrs/perks',
@@ -138,6 +164,13 @@ const api = {
         dataType: 'json'
     }),
 
+    // Query: The user's votes on the given perks ({ perkId: 'UPVOTE' | 'DOWNVOTE' })
+    getUserVotes: (userId, perkIds) => $.ajax({
+        url: `/api/cqrs/users/${userId}/votes?perkIds=${perkIds.join(',')}`,
+        method: 'GET',
+        dataType: 'json'
+    }),
+
     // Command: Change password
     changePassword: (userId, currentPassword, newPassword) => $.ajax({
         url: `/api/perkmanager/${userId}/password`,
@@ -197,6 +197,22 @@ $(function() {
         api.getPerksByVotes().then(perks => ui.renderAllPerks(perks, currentUser));
     });
 
+    // --- Search perk descriptions (within the selected membership/product) ---
+    let searchTimer = null;
+    $('#searchPerks').on('input', function() {
+        clearTimeout(searchTimer);
+        const text = $(this).val().trim();
+        searchTimer = setTimeout(() => {
+            if (!text) {
+                api.getAllPerks().then(perks => ui.renderAllPerks(perks, currentUser));
+                return;
+            }
+            api.searchPerks(text, $('#filterMembership').val(), $('#filterProduct').val())
+                .then(perks => ui.renderAllPerks(perks, currentUser))
+                .catch(() => ui.showToast('Unable to search perks.', 'error'));
+        }, 250);
+    });
+
     $('#filterMembership').change(function() {
         const membership = $(this).val();
         if (!membership) {
@@ -2,6 +2,7 @@
 // Updated to work with CQRS Read Models + per-user voting
 const TOAST_TIMEOUT = 3600; // toast display duration in ms
 let toastTimer; // timer for hiding toast
+const VOTE_LOOKUP_CHUNK = 500; // perk ids per vote lookup (server allows 1000; keeps the URL short)
 
 const ui = {
     // Show a temporary toast message for user feedback
@@ -42,6 +43,7 @@ const ui = {
         }
 
         perksArray.forEach(perk => $grid.append(createPerkCard(perk, currentUser, { context: 'owned' })));
+        highlightVotes($grid, perksArray, currentUser);
     },
 
     /**
@@ -55,6 +57,7 @@ const ui = {
             return $grid.append('<p class="empty-state">No perks have been published yet.</p>');
         }
         perks.forEach(perk => $grid.append(createPerkCard(perk, currentUser, { context: 'all' })));
+        highlightVotes($grid, perks, currentUser);
     },
 
     renderProfile(memberships) {
@@ -94,7 +97,7 @@ const ui = {
 
 // Create a perk card element
 function createPerkCard(perk, currentUser, { context } = {}) {
-    const $card = $('<article class="perk-card">');
+    const $card = $('<article class="perk-card">').attr('data-perk-id', perk.id);
     const hasValidUser = currentUser && currentUser.id;
     const userPerks = hasValidUser && Array.isArray(currentUser.perks) ? currentUser.perks : [];
 
@@ -131,7 +134,7 @@ function createPerkCard(perk, currentUser, { context } = {}) {
             return;
         }
         api.upvotePerk(perk.id, currentUser.id)
-            .then(updated => updateVoteDisplay(updated, $counts, $score))
+            .then(updated => updateVoteDisplay(updated, $counts, $score, $card))
             .catch(() => ui.showToast('Failed to upvote perk.', 'error'));
     });
 
@@ -141,7 +144,7 @@ function createPerkCard(perk, currentUser, { context } = {}) {
             return;
         }
         api.downvotePerk(perk.id, currentUser.id)
-            .then(updated => updateVoteDisplay(updated, $counts, $score))
+            .then(updated => updateVoteDisplay(updated, $counts, $score, $card))
             .catch(() => ui.showToast('Failed to downvote perk.', 'error'));
     });
 
@@ -215,13 +218,35 @@ function fallbackCopy(text) {
 }
 
 // Update vote counts and score display
-function updateVoteDisplay(updated, $counts, $score) {
+function updateVoteDisplay(updated, $counts, $score, $card) {
     if (!updated) return;
     const upvotes = updated.upvotes ?? 0;
     const downvotes = updated.downvotes ?? 0;
     const net = updated.netScore ?? (upvotes - downvotes);
     $counts.text(`↑${upvotes} ↓${downvotes}`);
     $score.text(`Net ${net}`);
+    markVote($card, updated.userVote);
+}
+
+// Highlight the vote button matching the user's vote (null = no vote)
+function markVote($card, voteType) {
+    $card.find('.vote-btn.positive').toggleClass('voted', voteType === 'UPVOTE');
+    $card.find('.vote-btn.negative').toggleClass('voted', voteType === 'DOWNVOTE');
+}
+
+// Fetch the user's votes for the rendered perks (a request per chunk of ids) and highlight them
+function highlightVotes($grid, perks, currentUser) {
+    if (!currentUser || !currentUser.id || !perks.length) return;
+    const perkIds = perks.map(perk => perk.id);
+    for (let from = 0; from < perkIds.length; from += VOTE_LOOKUP_CHUNK) {
+        api.getUserVotes(currentUser.id, perkIds.slice(from, from + VOTE_LOOKUP_CHUNK))
+            .then(votes => {
+                Object.entries(votes || {}).forEach(([perkId, voteType]) => {
+                    markVote($grid.find(`[data-perk-id="${perkId}"]`), voteType);
+                });
+            })
+            .catch(() => { /* highlighting is cosmetic */ });
+    }
 }
 
 // Format start and end dates into a readable string
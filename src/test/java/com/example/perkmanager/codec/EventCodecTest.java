@@ -0,0 +1,130 @@
+package com.example.perkmanager.codec;
+
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.event.*;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCodecTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000);
+
+    @Test
+    void testEveryEventRoundTrips() {
+        PerkCreatedEvent created = new PerkCreatedEvent(42L, "Free coffee ☕", MembershipType.VISA,
+                ProductType.DINING, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), 7L, NOW);
+        created.setPostedByEmail("poster@example.com");
+        List<Object> events = List.of(
+                created,
+                new PerkUpvotedEvent(42L, 12, 3, NOW),
+                new PerkDownvotedEvent(42L, 4, 11, NOW),
+                new UserRegisteredEvent(7L, "user@example.com", NOW),
+                new MembershipAddedEvent(7L, 8L, "CAA", NOW),
+                new PerkAddedEvent(7L, 42L),
+                new PerkActivatedEvent(42L, NOW),
+                new PerkExpiredEvent(-1L, null),
+                new PerkSnapshotEvent(42L, "Free coffee ☕", MembershipType.VISA, ProductType.DINING, 12, 3,
+                        LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), 7L, "poster@example.com", NOW));
+
+        for (Object event : events) {
+            Object decoded = EventCodec.decode(EventCodec.encode(event));
+            assertEquals(event.getClass(), decoded.getClass());
+            assertEquals(fields(event), fields(decoded), event.getClass().getSimpleName());
+
+            Object fromJson = EventCodec.decodeJson(
+                    EventCodec.schemaId(EventCodec.schemaHeader(event)), EventCodec.encodeJson(event));
+            assertEquals(fields(event), fields(fromJson), event.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testVoteEventsAreMuchSmallerThanJson() {
+        PerkUpvotedEvent event = new PerkUpvotedEvent(1234L, 250, 17, NOW);
+
+        byte[] binary = EventCodec.encode(event);
+        byte[] json = EventCodec.encodeJson(event);
+
+        assertTrue(binary.length <= 20, "binary vote event was " + binary.length + " bytes");
+        assertTrue(binary.length * 4 < json.length);
+    }
+
+    @Test
+    void testReadersToleratePayloadsOfOtherSchemaVersions() {
+        byte[] current = EventCodec.encode(new PerkUpvotedEvent(5L, 2, 1, NOW));
+
+        // A newer writer appended a field this reader does not know: it is ignored
+        byte[] newer = Arrays.copyOf(current, current.length + 2);
+        newer[current.length] = 0x02;
+        newer[current.length + 1] = 0x03;
+        PerkUpvotedEvent fromNewer = (PerkUpvotedEvent) EventCodec.decode(newer);
+        assertEquals(2, fromNewer.getNewUpvoteCount());
+        assertEquals(NOW, fromNewer.getTimestamp());
+
+        // An older writer did not have the trailing fields yet: they read as defaults
+        EventWriter older = new EventWriter();
+        older.writeVarLong(2);
+        older.writeByte(1);
+        older.writeLong(5L);
+        older.writeInt(2);
+        PerkUpvotedEvent fromOlder = (PerkUpvotedEvent) EventCodec.decode(older.toByteArray());
+        assertEquals(5L, fromOlder.getPerkId());
+        assertEquals(2, fromOlder.getNewUpvoteCount());
+        assertEquals(0, fromOlder.getDownvoteCount());
+        assertNull(fromOlder.getTimestamp());
+    }
+
+    @Test
+    void testUnknownSchemasAndTypesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.encode("not an event"));
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.decode(new byte[]{0x63, 0x01}));
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.decode(new byte[0]));
+    }
+
+    @Test
+    void testKafkaSerdeSupportsBinaryJsonAndLegacyRecords() {
+        PerkDownvotedEvent event = new PerkDownvotedEvent(9L, 3, 1, NOW);
+        EventDeserializer deserializer = new EventDeserializer();
+
+        EventSerializer binary = new EventSerializer();
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        byte[] binaryBytes = binary.serialize("perk.downvoted", binaryHeaders, event);
+        assertNotNull(binaryHeaders.lastHeader(EventCodec.SCHEMA_HEADER));
+        assertEquals(fields(event), fields(deserializer.deserialize("perk.downvoted", binaryHeaders, binaryBytes)));
+
+        EventSerializer json = new EventSerializer();
+        json.configure(Map.of(EventSerializer.FORMAT_CONFIG, "json"), false);
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] jsonBytes = json.serialize("perk.downvoted", jsonHeaders, event);
+        assertTrue(new String(jsonBytes, StandardCharsets.UTF_8).contains("\"newDownvoteCount\":3"));
+        assertEquals(fields(event), fields(deserializer.deserialize("perk.downvoted", jsonHeaders, jsonBytes)));
+
+        RecordHeaders legacyHeaders = new RecordHeaders();
+        legacyHeaders.add("__TypeId__", PerkDownvotedEvent.class.getName().getBytes(StandardCharsets.UTF_8));
+        assertEquals(fields(event), fields(deserializer.deserialize("perk.downvoted", legacyHeaders, jsonBytes)));
+
+        RecordHeaders untrusted = new RecordHeaders();
+        untrusted.add("__TypeId__", "java.lang.ProcessBuilder".getBytes(StandardCharsets.UTF_8));
+        assertThrows(RuntimeException.class, () -> deserializer.deserialize("perk.downvoted", untrusted, jsonBytes));
+
+        // Already encoded (dead-lettered or replayed) records pass through with their headers
+        assertSame(jsonBytes, binary.serialize("perk.downvoted", jsonHeaders, jsonBytes));
+        assertEquals("json", new String(jsonHeaders.lastHeader(EventCodec.FORMAT_HEADER).value(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Events have no equals(); compare their JSON form instead
+     */
+    private static String fields(Object event) {
+        return new String(EventCodec.encodeJson(event), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.perkmanager.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit Test: KeyOrderedLanes
+ * Records with the same key keep their order across lanes, and the commit position never passes
+ * a record that is still being processed
+ */
+class KeyOrderedLanesTest {
+
+    private KeyOrderedLanes lanes;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (lanes != null) {
+            lanes.stop();
+        }
+    }
+
+    @Test
+    void testRecordsWithTheSameKeyStayInOrder() throws Exception {
+        lanes = new KeyOrderedLanes(new SimpleMeterRegistry(), Optional.empty(), 4, 16);
+        Map<String, List<Integer>> applied = new ConcurrentHashMap<>();
+        var listener = lanes.wrap((record, acknowledgment, consumer) ->
+                applied.computeIfAbsent((String) record.key(), k -> new CopyOnWriteArrayList<>())
+                        .add((Integer) record.value()));
+
+        int records = 400;
+        CountDownLatch acknowledged = new CountDownLatch(records);
+        for (int offset = 0; offset < records; offset++) {
+            listener.onMessage(new ConsumerRecord<>("perk.created", offset % 2, offset, "perk-" + offset % 10, offset),
+                    acknowledged::countDown, null);
+        }
+
+        assertTrue(acknowledged.await(5, TimeUnit.SECONDS));
+        assertEquals(10, applied.size());
+        for (List<Integer> values : applied.values()) {
+            assertEquals(records / 10, values.size());
+            assertEquals(values.stream().sorted().toList(), values);
+        }
+        assertEquals(0, lanes.commitLag());
+    }
+
+    @Test
+    void testCommitLagHoldsAtTheLowestUnfinishedRecord() throws Exception {
+        List<Long> deadLettered = new CopyOnWriteArrayList<>();
+        lanes = new KeyOrderedLanes(new SimpleMeterRegistry(),
+                Optional.of((record, e) -> deadLettered.add(record.offset())), 8, 16);
+        CountDownLatch release = new CountDownLatch(1);
+        var listener = lanes.wrap((record, acknowledgment, consumer) -> {
+            if ("slow".equals(record.key())) {
+                await(release);
+            } else if ("boom".equals(record.key())) {
+                throw new IllegalStateException("listener failure");
+            }
+        });
+
+        List<Long> acknowledged = new CopyOnWriteArrayList<>();
+        List<ConsumerRecord<Object, Object>> records = new ArrayList<>();
+        records.add(new ConsumerRecord<>("user.registered", 0, 0, "slow", "a"));
+        records.add(new ConsumerRecord<>("user.registered", 0, 1, "boom", "b"));
+        records.add(new ConsumerRecord<>("user.registered", 0, 2, "fast", "c"));
+        for (ConsumerRecord<Object, Object> record : records) {
+            listener.onMessage(record, acknowledgment(acknowledged, record.offset()), null);
+        }
+
+        // The later records finish (the failing one is dead-lettered), but offset 0 holds the commit back
+        waitFor(() -> acknowledged.size() == 2);
+        assertEquals(List.of(1L, 2L), acknowledged.stream().sorted().toList());
+        assertEquals(List.of(1L), deadLettered);
+        assertEquals(3, lanes.commitLag());
+
+        release.countDown();
+        waitFor(() -> acknowledged.size() == 3);
+        assertEquals(0, lanes.commitLag());
+    }
+
+    @Test
+    void testOnlyRecordListenersMoveOntoLanes() {
+        lanes = new KeyOrderedLanes(new SimpleMeterRegistry(), Optional.empty(), 2, 16);
+        ConcurrentMessageListenerContainer<Object, Object> records = container();
+        records.setupMessageListener((AcknowledgingConsumerAwareMessageListener<Object, Object>) (r, a, c) -> { });
+        ConcurrentMessageListenerContainer<Object, Object> batches = container();
+        batches.setupMessageListener((BatchMessageListener<Object, Object>) polled -> { });
+        ConcurrentMessageListenerContainer<Object, Object> retries = new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(Map.of()), new ContainerProperties("perk.created-retry-1000"));
+        retries.setupMessageListener((AcknowledgingConsumerAwareMessageListener<Object, Object>) (r, a, c) -> { });
+
+        lanes.install(records);
+        lanes.install(batches);
+        lanes.install(retries);
+
+        assertEquals(ContainerProperties.AckMode.MANUAL, records.getContainerProperties().getAckMode());
+        assertTrue(records.getContainerProperties().isAsyncAcks());
+        assertEquals(ContainerProperties.AckMode.BATCH, batches.getContainerProperties().getAckMode());
+        assertFalse(batches.getContainerProperties().isAsyncAcks());
+        assertEquals(ContainerProperties.AckMode.BATCH, retries.getContainerProperties().getAckMode());
+
+        // Disabled: containers are left alone
+        KeyOrderedLanes disabled = new KeyOrderedLanes(new SimpleMeterRegistry(), Optional.empty(), 0, 16);
+        ConcurrentMessageListenerContainer<Object, Object> untouched = container();
+        untouched.setupMessageListener((AcknowledgingConsumerAwareMessageListener<Object, Object>) (r, a, c) -> { });
+        disabled.install(untouched);
+        assertFalse(disabled.isEnabled());
+        assertEquals(ContainerProperties.AckMode.BATCH, untouched.getContainerProperties().getAckMode());
+    }
+
+    private static ConcurrentMessageListenerContainer<Object, Object> container() {
+        return new ConcurrentMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(Map.of()),
+                new ContainerProperties("perk.created"));
+    }
+
+    private static Acknowledgment acknowledgment(List<Long> acknowledged, long offset) {
+        return () -> acknowledged.add(offset);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+}
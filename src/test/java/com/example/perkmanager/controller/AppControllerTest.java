@@ -1,16 +1,22 @@
 package com.example.perkmanager.controller;
 
+import com.example.perkmanager.command.UpvotePerkCommand;
+import com.example.perkmanager.dto.PerkVoteReadModel;
+import com.example.perkmanager.enumerations.VoteType;
 import com.example.perkmanager.model.AppUser;
 import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.projection.ConsistencyTracker;
 import com.example.perkmanager.repository.PerkRepository;
 import com.example.perkmanager.repository.ProfileRepository;
 import com.example.perkmanager.repository.UserRepository;
+import com.example.perkmanager.service.CommandBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
@@ -23,6 +29,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.when;
 
 import java.util.Optional;
@@ -45,6 +52,13 @@ class AppControllerTest {
     @MockBean
     private PasswordEncoder passwordEncoder;
 
+    // Needed by the ConsistencyInterceptor the web slice picks up
+    @MockBean
+    private ConsistencyTracker consistencyTracker;
+
+    @MockBean
+    private CommandBus commandBus;
+
     private AppUser testUser;
     private Perk testPerk;
 
@@ -151,4 +165,32 @@ class AppControllerTest {
                         .content("{\"currentPassword\":\"oldPassword\",\"newPassword\":\"newPassword\"}"))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUpvotePerk_GoesThroughVoteCommand() throws Exception {
+        when(commandBus.execute(argThat(command -> command instanceof UpvotePerkCommand upvote
+                && upvote.getPerkId() == 1L && upvote.getUserId() == 2L)))
+                .thenReturn(new PerkVoteReadModel(1L, 4, 1, VoteType.UPVOTE));
+
+        mockMvc.perform(post("/api/perkmanager/perks/1/upvote").param("userId", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upvotes").value(4))
+                .andExpect(jsonPath("$.userVote").value("UPVOTE"));
+    }
+
+    @Test
+    void testUpvotePerk_UnknownPerk() throws Exception {
+        when(commandBus.execute(any())).thenThrow(new IllegalArgumentException("Perk not found"));
+
+        mockMvc.perform(post("/api/perkmanager/perks/999/upvote").param("userId", "2"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testUpvotePerk_Conflict() throws Exception {
+        when(commandBus.execute(any())).thenThrow(new OptimisticLockingFailureException("Vote kept conflicting"));
+
+        mockMvc.perform(post("/api/perkmanager/perks/1/upvote").param("userId", "2"))
+                .andExpect(status().isConflict());
+    }
+}
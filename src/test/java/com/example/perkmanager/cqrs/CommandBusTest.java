@@ -0,0 +1,254 @@
+package com.example.perkmanager.cqrs;
+
+import com.example.perkmanager.command.DownvotePerkCommand;
+import com.example.perkmanager.command.UpvotePerkCommand;
+import com.example.perkmanager.config.CommandBusConfig;
+import com.example.perkmanager.dto.CommandStatusReadModel;
+import com.example.perkmanager.dto.PerkVoteReadModel;
+import com.example.perkmanager.enumerations.VoteType;
+import com.example.perkmanager.service.CommandBus;
+import com.example.perkmanager.service.PerkBatchCommandHandler;
+import com.example.perkmanager.service.PerkCommandHandler;
+import com.example.perkmanager.service.UserCommandHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit Test: Command bus lanes
+ * Synchronous and asynchronous execution, bounded queues and their metrics
+ */
+class CommandBusTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CommandBus bus = new CommandBus(meterRegistry, Duration.ofMinutes(10));
+
+    @AfterEach
+    void tearDown() {
+        bus.close();
+    }
+
+    @Test
+    void testExecuteReturnsResultAndRethrowsHandlerErrors() {
+        bus.register(String.class, "echo", 2, 10, command -> {
+            if (command.isEmpty()) {
+                throw new IllegalArgumentException("Empty command");
+            }
+            return command.toUpperCase();
+        });
+
+        assertEquals("HELLO", bus.execute("hello"));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> bus.execute(""));
+        assertEquals("Empty command", error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> bus.execute(42));
+        assertEquals(1, meterRegistry.get("perk.commands.execution")
+                .tags("command", "echo", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    void testInterruptedWaitIsABusFailureNotAnInvalidCommand() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        bus.register(String.class, "stuck", 1, 10, command -> {
+            started.countDown();
+            await(release);
+            return command;
+        });
+
+        // When: The thread waiting for a command is interrupted
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread caller = Thread.ofVirtual().start(() -> {
+            try {
+                bus.execute("waiting");
+            } catch (RuntimeException e) {
+                failures.add(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(5000);
+        release.countDown();
+
+        // Then: It fails as the bus's failure, which is not answered as a bad request
+        assertEquals(1, failures.size());
+        assertInstanceOf(CommandBus.BusException.class, failures.get(0));
+        assertFalse(failures.get(0) instanceof IllegalStateException);
+    }
+
+    @Test
+    void testSubmittedCommandsAreTrackedUntilTheyFinish() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        bus.register(String.class, "slow", 1, 10, command -> {
+            await(release);
+            return command.length();
+        });
+
+        CommandStatusReadModel accepted = bus.submit("four");
+        assertNotNull(accepted.getCommandId());
+        assertEquals("slow", accepted.getCommand());
+        assertNotEquals(CommandBus.State.SUCCEEDED, accepted.getStatus());
+
+        release.countDown();
+        CommandStatusReadModel finished = waitForCompletion(accepted);
+        assertEquals(CommandBus.State.SUCCEEDED, finished.getStatus());
+        assertEquals(4, finished.getResult());
+        assertNotNull(finished.getCompletedAt());
+    }
+
+    @Test
+    void testFullQueueRejectsCommands() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        bus.register(String.class, "busy", 1, 2, command -> {
+            started.countDown();
+            await(release);
+            return command;
+        });
+
+        // One command running, two waiting: the queue is full
+        bus.submit("running");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        bus.submit("queued-1");
+        CommandStatusReadModel last = bus.submit("queued-2");
+        assertEquals(2.0, meterRegistry.get("perk.commands.queue.depth").tag("command", "busy").gauge().value());
+
+        assertThrows(RejectedExecutionException.class, () -> bus.submit("rejected"));
+        assertEquals(1.0, meterRegistry.get("perk.commands.rejected").tag("command", "busy").counter().count());
+
+        release.countDown();
+        assertEquals("queued-2", waitForCompletion(last).getResult());
+        assertEquals("after", bus.execute("after"));
+        assertEquals(4, meterRegistry.get("perk.commands.wait").tag("command", "busy").timer().count());
+    }
+
+    @Test
+    void testShardedLaneOrdersAndGroupsCommandsPerKey() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        bus.<String>registerSharded(List.of(String.class), "keyed", 4, 100, 10,
+                command -> command.charAt(0),
+                commands -> {
+                    batches.add(List.copyOf(commands));
+                    started.countDown();
+                    await(release);
+                    return commands.stream().map(command -> CommandBus.Outcome.success(command + "!")).toList();
+                });
+
+        // While the first command of key "a" runs, more of them queue up behind it
+        CommandStatusReadModel first = bus.submit("a1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        bus.submit("a2");
+        bus.submit("a3");
+        CommandStatusReadModel last = bus.submit("a4");
+        release.countDown();
+
+        // Then: They run after it, in order, as one group
+        assertEquals("a1!", waitForCompletion(first).getResult());
+        assertEquals("a4!", waitForCompletion(last).getResult());
+        List<List<String>> keyA = batches.stream().filter(batch -> batch.get(0).startsWith("a")).toList();
+        assertEquals(List.of(List.of("a1"), List.of("a2", "a3", "a4")), keyA);
+        assertEquals(3.0, meterRegistry.get("perk.commands.batch.size").tag("command", "keyed").summary().max());
+    }
+
+    @Test
+    void testExecuteAllWaitsForRoomAndKeepsOrderPerKey() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        bus.<String>registerSharded(List.of(String.class), "bulk", 2, 2, 10,
+                command -> command.charAt(0),
+                commands -> {
+                    started.countDown();
+                    await(release);
+                    applied.addAll(commands);
+                    return commands.stream().map(command -> command.endsWith("x")
+                            ? CommandBus.Outcome.failure(new IllegalArgumentException("Bad " + command))
+                            : CommandBus.Outcome.success(command + "!")).toList();
+                });
+
+        // Given: Key "a"'s shard is busy and its queue of 2 is full
+        bus.submit("a0");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        bus.submit("a1");
+        bus.submit("a2");
+        assertThrows(RejectedExecutionException.class, () -> bus.submit("a3"));
+
+        // When: A group is executed, it waits for room instead of being rejected
+        Thread releaser = Thread.ofVirtual().start(() -> {
+            sleep(200);
+            release.countDown();
+        });
+        List<CommandBus.Outcome> outcomes = bus.executeAll(List.of("a4", "b1", "a5x", "a6"));
+        releaser.join();
+
+        // Then: One outcome per command, in order, and key "a" kept its order
+        assertEquals(List.of("a4!", "b1!"), outcomes.subList(0, 2).stream().map(CommandBus.Outcome::result).toList());
+        assertInstanceOf(IllegalArgumentException.class, outcomes.get(2).error());
+        assertEquals("a6!", outcomes.get(3).result());
+        assertEquals(List.of("a0", "a1", "a2", "a4", "a5x", "a6"),
+                applied.stream().filter(command -> command.startsWith("a")).toList());
+    }
+
+    @Test
+    void testVoteLaneKeepsTheExceptionAVoteFailedWith() {
+        PerkCommandHandler perkCommandHandler = Mockito.mock(PerkCommandHandler.class);
+        when(perkCommandHandler.handle(anyList())).thenAnswer(invocation -> {
+            List<?> commands = invocation.getArgument(0);
+            return commands.stream().map(command -> command instanceof UpvotePerkCommand
+                    ? new PerkCommandHandler.VoteOutcome(new PerkVoteReadModel(1L, 1, 0, VoteType.UPVOTE), null)
+                    : new PerkCommandHandler.VoteOutcome(null,
+                            new OptimisticLockingFailureException("Vote kept conflicting"))).toList();
+        });
+        try (CommandBus votes = new CommandBusConfig(new MockEnvironment()).commandBus(meterRegistry,
+                perkCommandHandler, Mockito.mock(PerkBatchCommandHandler.class), Mockito.mock(UserCommandHandler.class))) {
+
+            assertInstanceOf(PerkVoteReadModel.class, votes.execute(new UpvotePerkCommand(1L, 1L)));
+            // A conflict stays a conflict (answered 409), not a rejected command (400)
+            assertThrows(ConcurrencyFailureException.class, () -> votes.execute(new DownvotePerkCommand(1L, 1L)));
+        }
+    }
+
+    private CommandStatusReadModel waitForCompletion(CommandStatusReadModel accepted) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            CommandStatusReadModel status = bus.status(accepted.getCommandId()).orElseThrow();
+            if (status.getStatus() == CommandBus.State.SUCCEEDED || status.getStatus() == CommandBus.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Command did not finish: " + accepted.getCommandId());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
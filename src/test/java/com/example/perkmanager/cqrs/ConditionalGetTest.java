@@ -0,0 +1,97 @@
+package com.example.perkmanager.cqrs;
+
+import com.example.perkmanager.command.CreatePerkCommand;
+import com.example.perkmanager.command.CreateUserCommand;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.model.AppUser;
+import com.example.perkmanager.query.GetAllPerksQuery;
+import com.example.perkmanager.service.PerkCommandHandler;
+import com.example.perkmanager.service.PerkQueryHandler;
+import com.example.perkmanager.service.UserCommandHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration Test: Conditional GET on the perk queries
+ * ETags follow the projection version of what a query reads; a client holding the current one
+ * gets 304 without the query being run
+ */
+@SpringBootTest(properties = "perk.events.transport=in-process")
+@AutoConfigureMockMvc
+@DirtiesContext
+public class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserCommandHandler userCommandHandler;
+
+    @Autowired
+    private PerkCommandHandler perkCommandHandler;
+
+    @SpyBean
+    private PerkQueryHandler perkQueryHandler;
+
+    @Test
+    public void testUnchangedPerksAnswerNotModified() throws Exception {
+        // Given: A perk and the ETags of the full list and of another membership's list
+        AppUser user = userCommandHandler.handle(new CreateUserCommand("etag@example.com", "password123"));
+        createPerk(user, MembershipType.VISA);
+        String all = etag("/api/cqrs/perks", null);
+        String amex = etag("/api/cqrs/perks/by-membership/AMEX", null);
+        String allGzip = etag("/api/cqrs/perks", "gzip");
+        assertNotEquals(all, allGzip);
+
+        // Then: The current ETag answers 304, without running the query
+        clearInvocations(perkQueryHandler);
+        mockMvc.perform(get("/api/cqrs/perks").header(HttpHeaders.IF_NONE_MATCH, all))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, all))
+                .andExpect(content().bytes(new byte[0]));
+        verify(perkQueryHandler, never()).handleEncoded(any(GetAllPerksQuery.class));
+
+        // When: Another VISA perk is created
+        createPerk(user, MembershipType.VISA);
+
+        // Then: The full list changed, the AMEX list did not
+        mockMvc.perform(get("/api/cqrs/perks").header(HttpHeaders.IF_NONE_MATCH, all))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/cqrs/perks/by-membership/AMEX").header(HttpHeaders.IF_NONE_MATCH, amex))
+                .andExpect(status().isNotModified());
+    }
+
+    private void createPerk(AppUser user, MembershipType membership) {
+        perkCommandHandler.handle(new CreatePerkCommand(user.getId(), "Conditional GET perk", membership,
+                ProductType.HOTELS, LocalDate.now(), LocalDate.now().plusMonths(1)));
+    }
+
+    private String etag(String url, String acceptEncoding) throws Exception {
+        var request = get(url);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        String etag = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+}
@@ -1,46 +1,56 @@
 package com.example.perkmanager.cqrs;
 
+import com.example.perkmanager.command.AddMembershipCommand;
 import com.example.perkmanager.command.CreatePerkCommand;
+import com.example.perkmanager.command.CreatePerksBatchCommand;
 import com.example.perkmanager.command.CreateUserCommand;
+import com.example.perkmanager.command.DownvotePerkCommand;
 import com.example.perkmanager.command.UpvotePerkCommand;
+import com.example.perkmanager.dto.CommandStatusReadModel;
+import com.example.perkmanager.dto.PerkBatchResultReadModel;
 import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.dto.PerkVoteReadModel;
 import com.example.perkmanager.enumerations.MembershipType;
 import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.enumerations.VoteType;
 import com.example.perkmanager.event.PerkCreatedEvent;
 import com.example.perkmanager.model.AppUser;
 import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.projection.ConsistencyTracker;
 import com.example.perkmanager.query.GetAllPerksQuery;
 import com.example.perkmanager.query.GetPerksByVotesQuery;
+import com.example.perkmanager.query.GetPerksMatchingProfileQuery;
+import com.example.perkmanager.query.GetUserVotesQuery;
+import com.example.perkmanager.repository.PerkRepository;
 import com.example.perkmanager.service.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
- * Integration Test: CQRS + Kafka
+ * Integration Test: CQRS + event transport
  * Tests the complete flow: Command -> Handler -> Event -> Consumer -> Query
  *
- * Uses embedded Kafka for testing without external dependencies
+ * Events travel over the in-process transport, so no broker is needed
  */
-@SpringBootTest
+@SpringBootTest(properties = "perk.events.transport=in-process")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
-@EmbeddedKafka(
-        partitions = 1,
-        topics = {
-                "perk.created",
-                "perk.upvoted",
-                "perk.downvoted",
-                "user.registered",
-                "membership.added"
-        }
-)
 public class CqrsIntegrationTest {
 
     @Autowired
@@ -49,9 +59,36 @@ public class CqrsIntegrationTest {
     @Autowired
     private PerkCommandHandler perkCommandHandler;
 
+    @Autowired
+    private PerkBatchCommandHandler perkBatchCommandHandler;
+
     @Autowired
     private PerkQueryHandler perkQueryHandler;
 
+    @Autowired
+    private VoteCounterBuffer voteCounterBuffer;
+
+    @Autowired
+    private PerkRepository perkRepository;
+
+    @Autowired
+    private VoteStreamIngestor voteStreamIngestor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CommandBus commandBus;
+
+    @Autowired
+    private ConsistencyTracker consistencyTracker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     public void testCompleteUserCreationFlow() {
         // Given: A create user command
@@ -155,6 +192,216 @@ public class CqrsIntegrationTest {
     }
 
 
+    @Test
+    public void testEventsAreRelayedFromOutboxToConsumers() throws InterruptedException {
+        // Given: A user and a perk
+        AppUser user = userCommandHandler.handle(new CreateUserCommand("outbox@example.com", "password123"));
+        Perk perk = perkCommandHandler.handle(new CreatePerkCommand(user.getId(), "Outbox perk",
+                MembershipType.VISA, ProductType.DINING, LocalDate.now(), LocalDate.now().plusMonths(1)));
+
+        // When: The user votes, and a vote on an unknown perk is rejected
+        perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), user.getId()));
+        perkCommandHandler.handle(new DownvotePerkCommand(perk.getId(), user.getId()));
+        assertThrows(IllegalArgumentException.class,
+                () -> perkCommandHandler.handle(new UpvotePerkCommand(999_999L, user.getId())));
+
+        // Then: The relay drains the outbox ...
+        for (int i = 0; i < 100 && countOutbox() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, countOutbox());
+
+        // ... and every committed command's event reached the consumers once, the rejected one none
+        assertEquals(1, dispatched("user.registered"));
+        assertEquals(1, dispatched("perk.created"));
+        assertEquals(1, dispatched("perk.upvoted"));
+        assertEquals(1, dispatched("perk.downvoted"));
+    }
+
+    private int countOutbox() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event", Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    private double dispatched(String topic) {
+        return meterRegistry.get("perk.events.dispatched").tag("topic", topic).counter().count();
+    }
+
+    @Test
+    public void testVoteCountersAreFlushedToPerkRow() {
+        // Given: A perk and three voters
+        AppUser poster = userCommandHandler.handle(new CreateUserCommand("flush-poster@example.com", "password123"));
+        Perk perk = perkCommandHandler.handle(new CreatePerkCommand(
+                poster.getId(),
+                "Airport lounge access with Visa",
+                MembershipType.VISA,
+                ProductType.FLIGHTS,
+                LocalDate.now(),
+                LocalDate.now().plusMonths(1)
+        ));
+        AppUser first = userCommandHandler.handle(new CreateUserCommand("flush-1@example.com", "password123"));
+        AppUser second = userCommandHandler.handle(new CreateUserCommand("flush-2@example.com", "password123"));
+        AppUser third = userCommandHandler.handle(new CreateUserCommand("flush-3@example.com", "password123"));
+
+        // When: They vote, one of them switching sides
+        perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), first.getId()));
+        perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), second.getId()));
+        perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), third.getId()));
+        PerkVoteReadModel latest = perkCommandHandler.handle(new DownvotePerkCommand(perk.getId(), third.getId()));
+
+        // Then: Commands report persisted + pending counts
+        assertEquals(2, latest.getUpvotes());
+        assertEquals(1, latest.getDownvotes());
+        assertEquals(VoteType.DOWNVOTE, latest.getUserVote());
+
+        // And: After a flush the perk row holds the same counts
+        voteCounterBuffer.flush();
+        assertEquals(0, voteCounterBuffer.pendingPerks());
+        Perk stored = perkRepository.findById(perk.getId()).orElseThrow();
+        assertEquals(2, stored.getUpvotes());
+        assertEquals(1, stored.getDownvotes());
+    }
+
+    @Test
+    public void testUserVotesQueryFollowsVotes() {
+        // Given: Three perks and a voter
+        AppUser poster = userCommandHandler.handle(new CreateUserCommand("votes-poster@example.com", "password123"));
+        List<Long> perkIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            perkIds.add(perkCommandHandler.handle(new CreatePerkCommand(
+                    poster.getId(),
+                    "Vote lookup perk " + i,
+                    MembershipType.CAA,
+                    ProductType.CARS,
+                    LocalDate.now(),
+                    LocalDate.now().plusMonths(1)
+            )).getId());
+        }
+        AppUser voter = userCommandHandler.handle(new CreateUserCommand("votes-voter@example.com", "password123"));
+
+        // When: The voter upvotes the first, downvotes the second and toggles the third off again
+        perkCommandHandler.handle(new UpvotePerkCommand(perkIds.get(0), voter.getId()));
+        perkCommandHandler.handle(new DownvotePerkCommand(perkIds.get(1), voter.getId()));
+        perkCommandHandler.handle(new UpvotePerkCommand(perkIds.get(2), voter.getId()));
+        PerkVoteReadModel removed = perkCommandHandler.handle(new UpvotePerkCommand(perkIds.get(2), voter.getId()));
+
+        // Then: The batch lookup returns only the remaining votes
+        assertNull(removed.getUserVote());
+        Map<Long, VoteType> votes = perkQueryHandler.handle(new GetUserVotesQuery(voter.getId(), perkIds));
+        assertEquals(Map.of(perkIds.get(0), VoteType.UPVOTE, perkIds.get(1), VoteType.DOWNVOTE), votes);
+
+        // And: Unknown users and perks are rejected
+        assertThrows(IllegalArgumentException.class,
+                () -> perkQueryHandler.handle(new GetUserVotesQuery(999_999L, perkIds)));
+        assertThrows(IllegalArgumentException.class,
+                () -> perkCommandHandler.handle(new UpvotePerkCommand(999_999L, voter.getId())));
+    }
+
+    @Test
+    public void testCreatePerksBatchReportsPerItemFailures() {
+        // Given: A partner and a catalog with one invalid entry
+        AppUser partner = userCommandHandler.handle(new CreateUserCommand("partner@example.com", "password123"));
+        List<CreatePerksBatchCommand.Item> items = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            items.add(new CreatePerksBatchCommand.Item("Catalog perk " + i, MembershipType.AIRMILES,
+                    ProductType.FLIGHTS, LocalDate.now(), LocalDate.now().plusMonths(3)));
+        }
+        items.set(7, new CreatePerksBatchCommand.Item(" ", MembershipType.AIRMILES, null,
+                LocalDate.now(), LocalDate.now().plusMonths(3)));
+
+        // When: The catalog is created in one command
+        PerkBatchResultReadModel result = perkBatchCommandHandler.handle(
+                new CreatePerksBatchCommand(partner.getId(), items));
+
+        // Then: Every valid item is created and the invalid one is reported by position
+        assertEquals(250, result.getRequested());
+        assertEquals(249, result.getCreated().size());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(7, result.getFailures().get(0).index());
+        assertTrue(result.getFailures().get(0).message().contains("Description is required"));
+        assertTrue(result.getFailures().get(0).message().contains("Product type is required"));
+
+        // And: The new perks are readable and owned by the partner
+        Long lastId = result.getCreated().get(248).perkId();
+        assertTrue(perkQueryHandler.handle(new GetAllPerksQuery()).stream()
+                .anyMatch(p -> p.getId().equals(lastId) && "partner@example.com".equals(p.getPostedByEmail())));
+        assertEquals(249, perkRepository.findByPostedBy(partner).size());
+
+        // And: Unknown users are rejected
+        assertThrows(IllegalArgumentException.class, () -> perkBatchCommandHandler.handle(
+                new CreatePerksBatchCommand(999_999L, items)));
+    }
+
+    @Test
+    public void testVoteStreamReportsEveryLine() throws Exception {
+        // Given: A perk and a voter
+        AppUser poster = userCommandHandler.handle(new CreateUserCommand("stream-poster@example.com", "password123"));
+        AppUser voter = userCommandHandler.handle(new CreateUserCommand("stream-voter@example.com", "password123"));
+        Perk perk = perkCommandHandler.handle(new CreatePerkCommand(poster.getId(), "Streamed perk",
+                MembershipType.VISA, ProductType.DINING, LocalDate.now(), LocalDate.now().plusMonths(1)));
+        String vote = "{\"perkId\":" + perk.getId() + ",\"userId\":" + voter.getId() + ",\"type\":\"%s\"}\n";
+        double laneVotes = meterRegistry.get("perk.commands.batch.size").tag("command", "vote").summary().totalAmount();
+
+        // When: A stream mixes votes, a repeated click, a blank line and bad lines
+        String body = vote.formatted("UPVOTE")
+                + vote.formatted("DOWNVOTE")
+                + "\n"
+                + "not json\n"
+                + "{\"perkId\":999999,\"userId\":" + voter.getId() + ",\"type\":\"UPVOTE\"}\n"
+                + vote.formatted("DOWNVOTE");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VoteStreamIngestor.Summary summary = voteStreamIngestor.ingest(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        // Then: Every non-blank line gets a result, in input order
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        assertEquals(5, summary.lines());
+        assertEquals(3, summary.applied());
+        assertEquals(2, summary.failed());
+        assertEquals(List.of(1, 2, 4, 5, 6), results.stream().map(r -> r.get("line").asInt()).toList());
+        assertEquals(List.of("OK", "OK", "ERROR", "ERROR", "OK"),
+                results.stream().map(r -> r.get("status").asText()).toList());
+
+        // And: Votes on the same perk were applied in order (upvote, switch, toggle off)
+        assertEquals("UPVOTE", results.get(0).get("userVote").asText());
+        assertEquals("DOWNVOTE", results.get(1).get("userVote").asText());
+        assertEquals(1, results.get(1).get("downvotes").asInt());
+        assertFalse(results.get(4).has("userVote"));
+        assertEquals(0, results.get(4).get("downvotes").asInt());
+        assertTrue(results.get(3).get("message").asText().contains("Perk not found"));
+
+        // And: The parsed votes were applied by the vote lane's shard workers
+        assertEquals(laneVotes + 4,
+                meterRegistry.get("perk.commands.batch.size").tag("command", "vote").summary().totalAmount());
+    }
+
+    @Test
+    public void testMatchingPerksViewFollowsCommands() {
+        // Given: Two users, one with a membership
+        AppUser viewer = userCommandHandler.handle(new CreateUserCommand("viewer@example.com", "password123"));
+        AppUser poster = userCommandHandler.handle(new CreateUserCommand("poster@example.com", "password123"));
+        userCommandHandler.handle(new AddMembershipCommand(viewer.getId(), "VISA"));
+
+        // And: The view is materialized before any perk exists
+        GetPerksMatchingProfileQuery query = new GetPerksMatchingProfileQuery(viewer.getId());
+        assertTrue(perkQueryHandler.handle(query).get("Your Perks").isEmpty());
+
+        // When: Perks are posted by the viewer and by someone else
+        Perk own = perkCommandHandler.handle(new CreatePerkCommand(viewer.getId(), "Own perk",
+                MembershipType.VISA, ProductType.DINING, LocalDate.now(), LocalDate.now().plusMonths(1)));
+        Perk other = perkCommandHandler.handle(new CreatePerkCommand(poster.getId(), "Other perk",
+                MembershipType.VISA, ProductType.HOTELS, LocalDate.now(), LocalDate.now().plusMonths(1)));
+
+        // Then: The view is patched without being rebuilt
+        Map<String, Set<PerkReadModel>> view = perkQueryHandler.handle(query);
+        assertTrue(view.get("Your Perks").stream().anyMatch(p -> p.getId().equals(own.getId())));
+        assertTrue(view.get("VISA").stream().anyMatch(p -> p.getId().equals(other.getId())));
+        assertTrue(view.get("VISA").stream().noneMatch(p -> p.getId().equals(own.getId())));
+    }
+
     @Test
     public void testCommandValidation() {
         // Given: Invalid command (null email)
@@ -165,6 +412,33 @@ public class CqrsIntegrationTest {
         // Here we test the business logic validation
     }
 
+    @Test
+    public void testCommandsReturnConsistencyTokens() throws InterruptedException {
+        // Given: A user
+        AppUser user = userCommandHandler.handle(new CreateUserCommand("token@example.com", "password123"));
+
+        // When: A perk is created and voted on through the command bus
+        CommandBus.Executed created = commandBus.executeWithToken(new CreatePerkCommand(user.getId(), "Token perk",
+                MembershipType.VISA, ProductType.DINING, LocalDate.now().minusDays(1), LocalDate.now().plusMonths(1)));
+        PerkReadModel perk = (PerkReadModel) created.result();
+        CommandBus.Executed voted = commandBus.executeWithToken(new UpvotePerkCommand(perk.getId(), user.getId()));
+
+        // Then: Each command has a token, later commands a higher one, and both are applied here
+        assertNotNull(created.consistencyToken());
+        assertTrue(voted.consistencyToken() > created.consistencyToken());
+        assertTrue(consistencyTracker.await(voted.consistencyToken()));
+
+        // And: Asynchronous commands report their token with their status
+        CommandStatusReadModel submitted = commandBus.submit(new DownvotePerkCommand(perk.getId(), user.getId()));
+        CommandStatusReadModel status = submitted;
+        for (int i = 0; i < 100 && status.getStatus() != CommandBus.State.SUCCEEDED; i++) {
+            Thread.sleep(20);
+            status = commandBus.status(submitted.getCommandId()).orElseThrow();
+        }
+        assertEquals(CommandBus.State.SUCCEEDED, status.getStatus());
+        assertTrue(status.getConsistencyToken() > voted.consistencyToken());
+    }
+
     @Test
     public void testEventualConsistency() throws InterruptedException {
         // This test demonstrates eventual consistency
@@ -198,4 +472,22 @@ public class CqrsIntegrationTest {
         perks = perkQueryHandler.handle(query);
         assertTrue(perks.size() >= 5);
     }
+
+    @Test
+    public void testEncodedPerkListsMatchTheReadModels() throws Exception {
+        // Given: A perk
+        AppUser user = userCommandHandler.handle(new CreateUserCommand("encoded@example.com", "password123"));
+        Perk perk = perkCommandHandler.handle(new CreatePerkCommand(user.getId(), "Encoded perk",
+                MembershipType.AMEX, ProductType.CARS, LocalDate.now(), LocalDate.now().plusMonths(1)));
+
+        // Then: The pre-encoded body is what the application's JSON mapper writes for the list
+        GetAllPerksQuery query = new GetAllPerksQuery();
+        assertArrayEquals(objectMapper.writeValueAsBytes(perkQueryHandler.handle(query)),
+                perkQueryHandler.handleEncoded(query).json());
+
+        // And: It follows votes
+        perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), user.getId()));
+        JsonNode perks = objectMapper.readTree(perkQueryHandler.handleEncoded(query).json());
+        assertEquals(1, perks.get(perks.size() - 1).get("upvotes").asInt());
+    }
 }
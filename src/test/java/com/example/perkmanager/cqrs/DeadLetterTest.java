@@ -0,0 +1,83 @@
+package com.example.perkmanager.cqrs;
+
+import com.example.perkmanager.consumer.DeadLetterReplayer;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.event.PerkCreatedEvent;
+import com.example.perkmanager.projection.PerkProjectionStore;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Dead-letter topics
+ * A record the projection cannot read is parked in its dead-letter topic without holding up the
+ * records behind it, and can be replayed from there
+ */
+@SpringBootTest(properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+@DirtiesContext
+@EmbeddedKafka
+public class DeadLetterTest {
+
+    private static final long PERK_ID = 999_001L;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private PerkProjectionStore perkProjectionStore;
+
+    @Autowired
+    private DeadLetterReplayer deadLetterReplayer;
+
+    @Test
+    public void testUnreadableRecordIsDeadLetteredAndReplayable() throws Exception {
+        // Given: An unreadable record (unknown schema id) ahead of a valid event on the same key
+        kafkaTemplate.send("perk.created", String.valueOf(PERK_ID), new byte[] {(byte) 0x7f, 1, 2, 3}).get();
+        kafkaTemplate.send("perk.created", String.valueOf(PERK_ID), new PerkCreatedEvent(PERK_ID,
+                "Behind a poison record", MembershipType.VISA, ProductType.MOVIES, LocalDate.now().minusDays(1),
+                LocalDate.now().plusMonths(1), null, LocalDateTime.now())).get();
+
+        // Then: The valid event still reaches the projection
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (perkProjectionStore.get(PERK_ID).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals("Behind a poison record", perkProjectionStore.get(PERK_ID).orElseThrow().getDescription());
+
+        // And: The unreadable record is parked and can be sent back (once)
+        DeadLetterReplayer.Replay replay = replay(1);
+        assertEquals("perk.created-dlt", replay.deadLetterTopic());
+        assertEquals(1, replay.replayed());
+        assertEquals(0, replay.remaining());
+
+        // And: Replay rejects topics that are not event topics
+        assertThrows(IllegalArgumentException.class, () -> deadLetterReplayer.replay("perk.state", 10));
+    }
+
+    /**
+     * Replay until the expected records were parked (dead-lettering is asynchronous)
+     */
+    private DeadLetterReplayer.Replay replay(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        int replayed = 0;
+        DeadLetterReplayer.Replay replay;
+        do {
+            replay = deadLetterReplayer.replay("perk.created", 10);
+            replayed += replay.replayed();
+            if (replayed < expected) {
+                Thread.sleep(200);
+            }
+        } while (replayed < expected && System.currentTimeMillis() < deadline);
+        return new DeadLetterReplayer.Replay(replay.deadLetterTopic(), replayed, replay.remaining());
+    }
+}
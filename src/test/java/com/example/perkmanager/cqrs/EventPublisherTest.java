@@ -8,7 +8,6 @@ import com.example.perkmanager.service.EventPublisher;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.test.annotation.DirtiesContext;
 
 import java.time.LocalDate;
@@ -18,14 +17,10 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 
 /**
  * Unit Test: EventPublisher
- * Tests event publishing to Kafka
+ * Tests event publishing through the outbox (in-process transport, no broker)
  */
-@SpringBootTest
+@SpringBootTest(properties = "perk.events.transport=in-process")
 @DirtiesContext
-@EmbeddedKafka(
-        partitions = 1,
-        topics = {"perk.created", "perk.upvoted"}
-)
 public class EventPublisherTest {
 
     @Autowired
@@ -0,0 +1,178 @@
+package com.example.perkmanager.cqrs;
+
+import com.example.perkmanager.codec.EventCodec;
+import com.example.perkmanager.event.PerkUpvotedEvent;
+import com.example.perkmanager.service.EventSpool;
+import com.example.perkmanager.service.OutboxRelay;
+import com.example.perkmanager.transport.EventTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit Test: EventSpool and the outbox relay's spooling
+ * Spooled events survive a restart, and a transport outage is ridden out without losing or
+ * reordering events
+ */
+public class EventSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSpooledEventsSurviveRestart() throws IOException {
+        Path file = directory.resolve("outbox.spool");
+        EventSpool spool = open(file, 1 << 20);
+        assertTrue(spool.append(List.of(entry(1), entry(2), entry(3))));
+        spool.remove(1);
+        spool.close();
+
+        EventSpool reopened = open(file, 1 << 20);
+        assertEquals(2, reopened.size());
+        assertEquals(List.of(2L, 3L), reopened.peek(10).stream().map(EventSpool.Entry::id).toList());
+        EventSpool.Entry first = reopened.peek(1).get(0);
+        assertEquals("perk.upvoted", first.topic());
+        assertEquals("2", first.key());
+        assertEquals(2, ((PerkUpvotedEvent) EventCodec.decode(first.payload())).getNewUpvoteCount());
+        reopened.close();
+    }
+
+    @Test
+    public void testTornAppendIsDroppedOnOpen() throws IOException {
+        Path file = directory.resolve("outbox.spool");
+        EventSpool spool = open(file, 1 << 20);
+        spool.append(List.of(entry(1), entry(2)));
+        long end = 32 + spool.bytes();
+        spool.close();
+
+        // Flip a byte in the last record, as if the machine died while it was written
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, end - 2);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~last.get(0)}), end - 2);
+        }
+
+        EventSpool reopened = open(file, 1 << 20);
+        assertEquals(List.of(1L), reopened.peek(10).stream().map(EventSpool.Entry::id).toList());
+        reopened.close();
+    }
+
+    @Test
+    public void testFullSpoolRejectsAndReclaimsDrainedSpace() throws IOException {
+        EventSpool spool = open(directory.resolve("outbox.spool"), 2048);
+        List<EventSpool.Entry> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(entry(i));
+        }
+        assertTrue(spool.append(batch));
+        int appended = 10;
+        while (spool.append(List.of(entry(appended)))) {
+            appended++;
+        }
+        int full = spool.size();
+
+        // Once most of it is drained, the live tail moves to the front and appends fit again
+        spool.remove(full - 2);
+        assertTrue(spool.append(List.of(entry(1000))));
+        assertEquals(List.of((long) appended - 2, (long) appended - 1, 1000L),
+                spool.peek(10).stream().map(EventSpool.Entry::id).toList());
+        spool.close();
+    }
+
+    @Test
+    public void testRelayRidesOutTransportOutageInOrder() throws IOException {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            jdbcTemplate.execute("CREATE TABLE outbox_event (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "topic VARCHAR(255), event_key VARCHAR(255), event_type VARCHAR(255), payload BLOB, "
+                    + "created_at TIMESTAMP)");
+            FlakyTransport transport = new FlakyTransport();
+            EventSpool spool = open(directory.resolve("outbox.spool"), 1 << 20);
+            OutboxRelay relay = new OutboxRelay(jdbcTemplate, transport, spool, new SimpleMeterRegistry(),
+                    100, 0, 1000, 1000, 1000, 0);
+
+            // Given: The transport is down while three events are committed
+            transport.up = false;
+            insert(jdbcTemplate, 1, 2, 3);
+
+            // When: The relay runs, the events move from the outbox to the spool
+            assertThrows(IllegalStateException.class, relay::relay);
+            assertEquals(0, countOutbox(jdbcTemplate));
+            assertEquals(3, spool.size());
+
+            // And: Newer events queue up behind them, even once the transport is back
+            insert(jdbcTemplate, 4, 5);
+            transport.up = true;
+            assertEquals(5, relay.relay());
+
+            // Then: Every event arrived exactly once, in commit order
+            assertEquals(List.of("1", "2", "3", "4", "5"), transport.delivered);
+            assertTrue(spool.isEmpty());
+            assertEquals(0, countOutbox(jdbcTemplate));
+            assertEquals(0, relay.relay());
+            spool.close();
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    private static class FlakyTransport implements EventTransport {
+        final List<String> delivered = new ArrayList<>();
+        volatile boolean up = true;
+
+        @Override
+        public CompletableFuture<?> send(String topic, String key, Object event) {
+            if (!up) {
+                return CompletableFuture.failedFuture(new IllegalStateException("broker unavailable"));
+            }
+            delivered.add(key);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static EventSpool open(Path file, int maxBytes) {
+        EventSpool spool = new EventSpool(new SimpleMeterRegistry(), true, file.toString(), maxBytes);
+        assertTrue(spool.isEnabled());
+        return spool;
+    }
+
+    private static EventSpool.Entry entry(long id) {
+        byte[] payload = EventCodec.encode(new PerkUpvotedEvent(id, (int) id, 0, LocalDateTime.now()));
+        return new EventSpool.Entry(id, "perk.upvoted", String.valueOf(id), payload, LocalDateTime.now());
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, long... perkIds) {
+        for (long perkId : perkIds) {
+            EventSpool.Entry entry = entry(perkId);
+            jdbcTemplate.update("INSERT INTO outbox_event (topic, event_key, event_type, payload, created_at) "
+                            + "VALUES (?, ?, ?, ?, ?)", entry.topic(), entry.key(), "PerkUpvotedEvent",
+                    entry.payload(), Timestamp.valueOf(entry.createdAt()));
+        }
+    }
+
+    private static int countOutbox(JdbcTemplate jdbcTemplate) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event", Integer.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.perkmanager.cqrs;
+
+import com.example.perkmanager.command.CreatePerkCommand;
+import com.example.perkmanager.command.CreateUserCommand;
+import com.example.perkmanager.command.UpvotePerkCommand;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.model.AppUser;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.service.PerkCommandHandler;
+import com.example.perkmanager.service.UserCommandHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Transactional outbox relay
+ * With a reachable broker, committed events leave the outbox and reach Kafka
+ */
+@SpringBootTest(properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+@DirtiesContext
+@EmbeddedKafka(
+        partitions = 1,
+        topics = {"perk.created", "perk.upvoted", "user.registered"}
+)
+public class OutboxRelayTest {
+
+    @Autowired
+    private UserCommandHandler userCommandHandler;
+
+    @Autowired
+    private PerkCommandHandler perkCommandHandler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testCommittedEventsAreRelayedAndRemoved() throws InterruptedException {
+        // Given: Commands that publish three events
+        AppUser user = userCommandHandler.handle(new CreateUserCommand("relay@example.com", "password123"));
+        Perk perk = perkCommandHandler.handle(new CreatePerkCommand(user.getId(), "Relayed perk",
+                MembershipType.CAA, ProductType.CARS, LocalDate.now(), LocalDate.now().plusMonths(1)));
+        perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), user.getId()));
+
+        // When: The relay catches up
+        for (int i = 0; i < 100 && countOutbox() > 0; i++) {
+            Thread.sleep(100);
+        }
+
+        // Then: The outbox is empty and every event was acknowledged by Kafka
+        assertEquals(0, countOutbox());
+        assertTrue(meterRegistry.get("perk.outbox.sent").counter().count() >= 3);
+        assertTrue(meterRegistry.get("perk.outbox.lag").timer().count() >= 3);
+    }
+
+    private int countOutbox() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event", Integer.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.perkmanager.cqrs;
+
+import com.example.perkmanager.command.CreatePerkCommand;
+import com.example.perkmanager.command.CreateUserCommand;
+import com.example.perkmanager.command.UpvotePerkCommand;
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.model.AppUser;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.projection.MatchingPerksView;
+import com.example.perkmanager.projection.PerkProjectionStore;
+import com.example.perkmanager.projection.PerkStateLoader;
+import com.example.perkmanager.projection.ReadModelUpdater;
+import com.example.perkmanager.repository.PerkRepository;
+import com.example.perkmanager.service.PerkCommandHandler;
+import com.example.perkmanager.service.PerkStatePublisher;
+import com.example.perkmanager.service.UserCommandHandler;
+import com.example.perkmanager.service.VoteCounterBuffer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Compacted perk state topic
+ * Committed perk changes are published as full snapshots, and a new read node bootstraps its
+ * projection from them without replaying any delta event
+ */
+@SpringBootTest(properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+@DirtiesContext
+@EmbeddedKafka
+public class PerkStateTopicTest {
+
+    @Autowired
+    private UserCommandHandler userCommandHandler;
+
+    @Autowired
+    private PerkCommandHandler perkCommandHandler;
+
+    @Autowired
+    private PerkStatePublisher perkStatePublisher;
+
+    @Autowired
+    private VoteCounterBuffer voteCounterBuffer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ConsumerFactory<?, ?> consumerFactory;
+
+    @Test
+    public void testNewReadNodeBootstrapsFromSnapshots() {
+        // Given: A perk with a vote, committed on this node
+        AppUser user = userCommandHandler.handle(new CreateUserCommand("state@example.com", "password123"));
+        Perk perk = perkCommandHandler.handle(new CreatePerkCommand(user.getId(), "Snapshot perk",
+                MembershipType.AIRMILES, ProductType.FLIGHTS, LocalDate.now().minusDays(1),
+                LocalDate.now().plusMonths(1)));
+        perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), user.getId()));
+
+        // When: The dirty perks are published (the background publisher may have done it already)
+        perkStatePublisher.publish();
+
+        // Then: A node with an empty projection loading the state topic holds the perk's latest full state
+        PerkReadModel loaded = bootstrap().get(perk.getId()).orElseThrow();
+        assertEquals("Snapshot perk", loaded.getDescription());
+        assertEquals(MembershipType.AIRMILES, loaded.getMembership());
+        assertEquals(1, loaded.getUpvotes());
+        assertEquals("state@example.com", loaded.getPostedByEmail());
+        assertTrue(loaded.isActive());
+    }
+
+    @Test
+    public void testRolledBackVoteDoesNotStayInTheSnapshot() {
+        // Given: A perk without votes
+        AppUser user = userCommandHandler.handle(new CreateUserCommand("rollback@example.com", "password123"));
+        Perk perk = perkCommandHandler.handle(new CreatePerkCommand(user.getId(), "Rolled back perk",
+                MembershipType.VISA, ProductType.HOTELS, LocalDate.now().minusDays(1),
+                LocalDate.now().plusMonths(1)));
+        perkStatePublisher.publish();
+
+        // When: A snapshot is taken while a vote is pending in a transaction that then rolls back
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            voteCounterBuffer.record(perk.getId(), 1, 0);
+            perkStatePublisher.changed(perk.getId());
+            perkStatePublisher.publish();
+            status.setRollbackOnly();
+        });
+
+        // Then: The perk was marked dirty again, and its next snapshot has no vote
+        perkStatePublisher.publish();
+        assertEquals(0, bootstrap().get(perk.getId()).orElseThrow().getUpvotes());
+    }
+
+    /**
+     * A node with an empty projection that loaded the state topic
+     */
+    private PerkProjectionStore bootstrap() {
+        PerkProjectionStore store = new PerkProjectionStore(Mockito.mock(PerkRepository.class), List.of());
+        ReadModelUpdater updater = new ReadModelUpdater(store, Mockito.mock(MatchingPerksView.class));
+        PerkStateLoader loader = new PerkStateLoader(consumerFactory, updater, "perk.state", true, 30_000);
+        assertTrue(loader.load() >= 1);
+        return store;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.perkmanager.cqrs;
+
+import com.example.perkmanager.command.CreatePerkCommand;
+import com.example.perkmanager.command.CreateUserCommand;
+import com.example.perkmanager.command.DownvotePerkCommand;
+import com.example.perkmanager.command.UpvotePerkCommand;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.model.AppUser;
+import com.example.perkmanager.model.Perk;
+import com.example.perkmanager.repository.PerkRepository;
+import com.example.perkmanager.service.CommandBus;
+import com.example.perkmanager.service.PerkCommandHandler;
+import com.example.perkmanager.service.UserCommandHandler;
+import com.example.perkmanager.service.VoteCounterBuffer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency Test: vote counters under many concurrent writers
+ * Verifies that no vote is lost or double-counted, whether votes call the handler directly or
+ * go through the command bus: after a flush, the perk row's counters must equal the
+ * authoritative PerkVote rows.
+ */
+@SpringBootTest(properties = {"perk.write.retry.max-attempts=50", "perk.events.transport=in-process"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class VoteConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private UserCommandHandler userCommandHandler;
+
+    @Autowired
+    private PerkCommandHandler perkCommandHandler;
+
+    @Autowired
+    private VoteCounterBuffer voteCounterBuffer;
+
+    @Autowired
+    private CommandBus commandBus;
+
+    @Autowired
+    private PerkRepository perkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testConcurrentVotersLoseNoUpdates() throws Exception {
+        // Given: One perk and many distinct voters
+        Perk perk = createPerk("concurrent");
+        List<AppUser> voters = new ArrayList<>();
+        for (int i = 0; i < 96; i++) {
+            voters.add(userCommandHandler.handle(new CreateUserCommand("voter" + i + "@example.com", "password123")));
+        }
+
+        // When: Every voter upvotes at the same time, every third one then switches to a downvote
+        List<Callable<Object>> votes = new ArrayList<>();
+        for (int i = 0; i < voters.size(); i++) {
+            Long userId = voters.get(i).getId();
+            boolean switches = i % 3 == 0;
+            votes.add(() -> {
+                perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), userId));
+                if (switches) {
+                    perkCommandHandler.handle(new DownvotePerkCommand(perk.getId(), userId));
+                }
+                return null;
+            });
+        }
+        runConcurrently(votes);
+
+        // Then: The flushed counters equal the vote rows
+        voteCounterBuffer.flush();
+        Perk stored = perkRepository.findById(perk.getId()).orElseThrow();
+        int switched = (voters.size() + 2) / 3;
+        assertEquals(voters.size() - switched, stored.getUpvotes());
+        assertEquals(switched, stored.getDownvotes());
+        assertEquals(countVotes(perk, "UPVOTE"), stored.getUpvotes());
+        assertEquals(countVotes(perk, "DOWNVOTE"), stored.getDownvotes());
+    }
+
+    @Test
+    public void testConcurrentClicksOfOneUserStayConsistent() throws Exception {
+        // Given: One perk and one user hammering the vote buttons from many threads
+        Perk perk = createPerk("same-user");
+        AppUser user = userCommandHandler.handle(new CreateUserCommand("clicker@example.com", "password123"));
+
+        // When: The clicks race each other (inserts, deletes and switches of the same vote row)
+        List<Callable<Object>> clicks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            boolean up = i % 2 == 0;
+            clicks.add(() -> up
+                    ? perkCommandHandler.handle(new UpvotePerkCommand(perk.getId(), user.getId()))
+                    : perkCommandHandler.handle(new DownvotePerkCommand(perk.getId(), user.getId())));
+        }
+        runConcurrently(clicks);
+
+        // Then: At most one vote exists and the counters agree with it
+        voteCounterBuffer.flush();
+        Perk stored = perkRepository.findById(perk.getId()).orElseThrow();
+        int upvoteRows = countVotes(perk, "UPVOTE");
+        int downvoteRows = countVotes(perk, "DOWNVOTE");
+        assertTrue(upvoteRows + downvoteRows <= 1);
+        assertEquals(upvoteRows, stored.getUpvotes());
+        assertEquals(downvoteRows, stored.getDownvotes());
+    }
+
+    @Test
+    public void testConcurrentVotesThroughShardedLanesStayConsistent() throws Exception {
+        // Given: Two perks and voters clicking on both through the command bus
+        Perk first = createPerk("lane-a");
+        Perk second = createPerk("lane-b");
+        List<AppUser> voters = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            voters.add(userCommandHandler.handle(new CreateUserCommand("lane" + i + "@example.com", "password123")));
+        }
+
+        // When: Every voter upvotes both perks and then downvotes the first (a switch)
+        List<Callable<Object>> votes = new ArrayList<>();
+        for (AppUser voter : voters) {
+            votes.add(() -> {
+                commandBus.execute(new UpvotePerkCommand(first.getId(), voter.getId()));
+                commandBus.execute(new UpvotePerkCommand(second.getId(), voter.getId()));
+                return commandBus.execute(new DownvotePerkCommand(first.getId(), voter.getId()));
+            });
+        }
+        runConcurrently(votes);
+
+        // Then: Each perk's counters equal its vote rows
+        voteCounterBuffer.flush();
+        Perk storedFirst = perkRepository.findById(first.getId()).orElseThrow();
+        Perk storedSecond = perkRepository.findById(second.getId()).orElseThrow();
+        assertEquals(0, storedFirst.getUpvotes());
+        assertEquals(voters.size(), storedFirst.getDownvotes());
+        assertEquals(voters.size(), storedSecond.getUpvotes());
+        assertEquals(countVotes(first, "DOWNVOTE"), storedFirst.getDownvotes());
+        assertEquals(countVotes(second, "UPVOTE"), storedSecond.getUpvotes());
+    }
+
+    private Perk createPerk(String name) {
+        AppUser poster = userCommandHandler.handle(new CreateUserCommand(name + "-poster@example.com", "password123"));
+        return perkCommandHandler.handle(new CreatePerkCommand(
+                poster.getId(),
+                "Concurrency test perk " + name,
+                MembershipType.VISA,
+                ProductType.DINING,
+                LocalDate.now(),
+                LocalDate.now().plusMonths(1)
+        ));
+    }
+
+    private int countVotes(Perk perk, String voteType) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM perk_vote WHERE perk_id = ? AND vote_type = ?",
+                Integer.class, perk.getId(), voteType);
+        return count == null ? 0 : count;
+    }
+
+    private void runConcurrently(List<Callable<Object>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<Object> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Object> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.transport.EventTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit Test: ConsistencyTracker
+ * A token is satisfied once its event was applied, a query waits for it only up to the bound,
+ * and Kafka records report their outbox sequence once their listener returned
+ */
+class ConsistencyTrackerTest {
+
+    @Test
+    void testAwaitReturnsOnceTheTokenIsApplied() throws Exception {
+        ConsistencyTracker tracker = new ConsistencyTracker(new SimpleMeterRegistry(), 5_000);
+        tracker.applied(7);
+        assertTrue(tracker.await(7));
+
+        // A query waiting for a later event is released when it arrives
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> tracker.await(12));
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+        tracker.applied(9);
+        tracker.applied(12);
+        assertTrue(waiting.get(2, TimeUnit.SECONDS));
+        assertFalse(tracker.isApplied(10), "Sequences are tracked exactly, not as a watermark");
+    }
+
+    @Test
+    void testAwaitIsBounded() {
+        ConsistencyTracker tracker = new ConsistencyTracker(new SimpleMeterRegistry(), 50);
+        long started = System.nanoTime();
+        assertFalse(tracker.await(42));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2_000);
+    }
+
+    @Test
+    void testKafkaRecordsReportTheirSequenceOnceApplied() {
+        ConsistencyTracker tracker = new ConsistencyTracker(new SimpleMeterRegistry(), 0);
+        var listener = tracker.track((record, acknowledgment, consumer) -> {
+            if ("boom".equals(record.key())) {
+                throw new IllegalStateException("listener failure");
+            }
+        });
+
+        listener.onMessage(record("ok", 100), null, null);
+        assertThrows(IllegalStateException.class, () -> listener.onMessage(record("boom", 101), null, null));
+        listener.onMessage(new ConsumerRecord<>("perk.created", 0, 2, "no-header", "event"), null, null);
+
+        assertTrue(tracker.isApplied(100));
+        assertFalse(tracker.isApplied(101), "A failed record is retried, not applied");
+    }
+
+    private static ConsumerRecord<Object, Object> record(String key, long sequence) {
+        ConsumerRecord<Object, Object> record = new ConsumerRecord<>("perk.created", 0, sequence, key, "event");
+        record.headers().add(EventTransport.SEQUENCE_HEADER,
+                Long.toString(sequence).getBytes(StandardCharsets.US_ASCII));
+        return record;
+    }
+}
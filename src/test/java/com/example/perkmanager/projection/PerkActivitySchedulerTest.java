@@ -0,0 +1,55 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.event.PerkActivatedEvent;
+import com.example.perkmanager.event.PerkExpiredEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerkActivitySchedulerTest {
+
+    private PerkReadModel perk(long id, LocalDate start, LocalDate end) {
+        return new PerkReadModel(id, "Perk " + id, MembershipType.VISA, ProductType.HOTELS, 0, 0, 0,
+                start, end, null, null, PerkReadModel.isActiveOn(start, end, LocalDate.now()));
+    }
+
+    @Test
+    void testActivationAndExpiryAreEmittedAtBoundaries() {
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        PerkActivityScheduler scheduler = new PerkActivityScheduler(publisher);
+        LocalDate today = LocalDate.now();
+        scheduler.onPerkAdded(perk(1L, today.plusDays(2), today.plusDays(5)));
+
+        assertEquals(2, scheduler.pendingBoundaries());
+        assertEquals(0, scheduler.tick(today.plusDays(2)));
+
+        assertEquals(1, scheduler.tick(today.plusDays(3)));
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(publisher).publishEvent(events.capture());
+        assertInstanceOf(PerkActivatedEvent.class, events.getValue());
+
+        assertEquals(1, scheduler.tick(today.plusDays(6)));
+        verify(publisher, times(2)).publishEvent(events.capture());
+        assertInstanceOf(PerkExpiredEvent.class, events.getValue());
+        assertEquals(0, scheduler.pendingBoundaries());
+    }
+
+    @Test
+    void testPastBoundariesAreNotQueued() {
+        PerkActivityScheduler scheduler = new PerkActivityScheduler(mock(ApplicationEventPublisher.class));
+        LocalDate today = LocalDate.now();
+        scheduler.onPerkAdded(perk(1L, today.minusDays(10), today.minusDays(2)));
+        scheduler.onPerkAdded(perk(2L, today.minusDays(10), today.plusDays(2)));
+
+        // Only perk 2's expiry is still ahead
+        assertEquals(1, scheduler.pendingBoundaries());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkFacetIndexTest {
+
+    private PerkFacetIndex index;
+    private PerkReadModel expired;
+
+    private PerkReadModel perk(long id, MembershipType membership, ProductType product, boolean active) {
+        return new PerkReadModel(id, "Perk " + id, membership, product, 0, 0, 0,
+                LocalDate.now(), LocalDate.now().plusDays(1), null, null, active);
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new PerkFacetIndex();
+        expired = perk(3L, MembershipType.VISA, ProductType.HOTELS, false);
+        index.onPerkAdded(perk(1L, MembershipType.VISA, ProductType.HOTELS, true));
+        index.onPerkAdded(perk(2L, MembershipType.CAA, ProductType.HOTELS, true));
+        index.onPerkAdded(expired);
+        index.onPerkAdded(perk(4L, MembershipType.VISA, ProductType.DINING, true));
+    }
+
+    @Test
+    void testCombinedFilter() {
+        PerkFacetIndex.Result result = index.filter(
+                EnumSet.of(MembershipType.VISA), EnumSet.of(ProductType.HOTELS), true);
+
+        assertEquals(List.of(1L), result.perkIds());
+        // Counts for each facet ignore that facet's own filter
+        assertEquals(1, result.membershipCounts().get(MembershipType.VISA));
+        assertEquals(1, result.membershipCounts().get(MembershipType.CAA));
+        assertEquals(1, result.productCounts().get(ProductType.DINING));
+        assertEquals(1, result.activeCount());
+        assertEquals(1, result.inactiveCount());
+    }
+
+    @Test
+    void testOrWithinFacetAndNoFilter() {
+        assertEquals(List.of(1L, 2L, 3L, 4L),
+                index.filter(Set.of(), Set.of(), null).perkIds());
+        assertEquals(List.of(1L, 2L, 3L),
+                index.filter(EnumSet.of(MembershipType.VISA, MembershipType.CAA), EnumSet.of(ProductType.HOTELS), null).perkIds());
+        assertEquals(List.of(3L),
+                index.filter(Set.of(), Set.of(), false).perkIds());
+    }
+
+    @Test
+    void testActiveFlagFollowsUpdates() {
+        index.onPerkUpdated(expired, expired.withActive(true));
+        assertEquals(List.of(1L, 3L),
+                index.filter(EnumSet.of(MembershipType.VISA), EnumSet.of(ProductType.HOTELS), true).perkIds());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.enumerations.VoteMetric;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkLeaderboardTest {
+
+    private PerkReadModel perk(long id, MembershipType membership, ProductType product, int up, int down) {
+        return new PerkReadModel(id, "Perk " + id, membership, product, up, down, up - down,
+                LocalDate.now(), LocalDate.now().plusDays(1), null, null, true);
+    }
+
+    @Test
+    void testTopKAndRankRangeInBothDirections() {
+        PerkLeaderboard leaderboard = new PerkLeaderboard();
+        leaderboard.onPerkAdded(perk(1L, MembershipType.VISA, ProductType.HOTELS, 5, 0));
+        leaderboard.onPerkAdded(perk(2L, MembershipType.CAA, ProductType.HOTELS, 9, 8));
+        leaderboard.onPerkAdded(perk(3L, MembershipType.VISA, ProductType.DINING, 2, 0));
+
+        assertEquals(List.of(2L, 1L, 3L),
+                leaderboard.range(VoteMetric.UPVOTES, true, 0, 10, null, null));
+        assertEquals(List.of(3L, 1L),
+                leaderboard.range(VoteMetric.UPVOTES, false, 0, 2, null, null));
+        assertEquals(List.of(1L, 3L),
+                leaderboard.range(VoteMetric.UPVOTES, true, 1, 2, null, null));
+        assertEquals(List.of(1L, 3L, 2L),
+                leaderboard.range(VoteMetric.NET_SCORE, true, 0, 10, null, null));
+        assertEquals(List.of(2L, 1L),
+                leaderboard.range(VoteMetric.UPVOTES, true, 0, 10, null, ProductType.HOTELS));
+        assertEquals(List.of(1L),
+                leaderboard.range(VoteMetric.UPVOTES, true, 0, 10, MembershipType.VISA, ProductType.HOTELS));
+        assertTrue(leaderboard.range(VoteMetric.UPVOTES, true, 5, 10, null, null).isEmpty());
+    }
+
+    @Test
+    void testUpdatesMoveEntries() {
+        PerkLeaderboard leaderboard = new PerkLeaderboard();
+        PerkReadModel first = perk(1L, MembershipType.VISA, ProductType.HOTELS, 1, 0);
+        leaderboard.onPerkAdded(first);
+        leaderboard.onPerkAdded(perk(2L, MembershipType.VISA, ProductType.HOTELS, 3, 0));
+
+        leaderboard.onPerkUpdated(first, first.withVotes(4, 0));
+
+        assertEquals(List.of(1L, 2L),
+                leaderboard.range(VoteMetric.UPVOTES, true, 0, 10, MembershipType.VISA, null));
+        assertEquals(2, leaderboard.size(null, null));
+    }
+
+    @Test
+    void testMatchesFullSortUnderRandomUpdates() {
+        PerkLeaderboard leaderboard = new PerkLeaderboard();
+        Random random = new Random(42);
+        Map<Long, PerkReadModel> perks = new HashMap<>();
+        for (long id = 1; id <= 200; id++) {
+            PerkReadModel model = perk(id, MembershipType.values()[(int) (id % 5)], ProductType.HOTELS,
+                    random.nextInt(20), random.nextInt(20));
+            perks.put(id, model);
+            leaderboard.onPerkAdded(model);
+        }
+        for (int i = 0; i < 2000; i++) {
+            long id = 1 + random.nextInt(200);
+            PerkReadModel previous = perks.get(id);
+            PerkReadModel current = previous.withVotes(random.nextInt(50), random.nextInt(50));
+            perks.put(id, current);
+            leaderboard.onPerkUpdated(previous, current);
+        }
+
+        List<Long> expected = perks.values().stream()
+                .sorted(Comparator.comparingInt(PerkReadModel::getNetScore).reversed()
+                        .thenComparing(PerkReadModel::getId))
+                .map(PerkReadModel::getId)
+                .toList();
+        assertEquals(expected, leaderboard.range(VoteMetric.NET_SCORE, true, 0, 500, null, null));
+        assertEquals(expected.subList(37, 57), leaderboard.range(VoteMetric.NET_SCORE, true, 37, 20, null, null));
+
+        List<Long> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        assertEquals(reversed.subList(10, 15), leaderboard.range(VoteMetric.NET_SCORE, false, 10, 5, null, null));
+    }
+}
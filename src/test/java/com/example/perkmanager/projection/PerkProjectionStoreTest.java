@@ -0,0 +1,170 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.event.PerkCreatedEvent;
+import com.example.perkmanager.event.PerkDownvotedEvent;
+import com.example.perkmanager.event.PerkSnapshotEvent;
+import com.example.perkmanager.event.PerkUpvotedEvent;
+import com.example.perkmanager.repository.PerkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkProjectionStoreTest {
+
+    private PerkProjectionStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new PerkProjectionStore(Mockito.mock(PerkRepository.class), List.of());
+    }
+
+    private PerkCreatedEvent created(long id, MembershipType membership, ProductType product) {
+        return new PerkCreatedEvent(
+                id,
+                "Perk " + id,
+                membership,
+                product,
+                LocalDate.now().minusDays(1),
+                LocalDate.now().plusDays(10),
+                1L,
+                LocalDateTime.now()
+        );
+    }
+
+    @Test
+    void testCreatedEventsAreIndexedByMembershipAndProduct() {
+        store.apply(created(1L, MembershipType.VISA, ProductType.HOTELS));
+        store.apply(created(2L, MembershipType.CAA, ProductType.HOTELS));
+        store.apply(created(3L, MembershipType.VISA, ProductType.DINING));
+
+        assertEquals(3, store.findAll().size());
+        assertEquals(List.of(1L, 3L), store.findByMembership(MembershipType.VISA).stream()
+                .map(PerkReadModel::getId).toList());
+        assertEquals(List.of(1L, 2L), store.findByProduct(ProductType.HOTELS).stream()
+                .map(PerkReadModel::getId).toList());
+        assertTrue(store.findByMembership(MembershipType.AMEX).isEmpty());
+        assertTrue(store.get(1L).orElseThrow().isActive());
+    }
+
+    @Test
+    void testVoteEventsReplaceCounts() {
+        store.apply(created(1L, MembershipType.VISA, ProductType.HOTELS));
+        PerkReadModel before = store.get(1L).orElseThrow();
+
+        LocalDateTime now = LocalDateTime.now();
+        store.apply(new PerkUpvotedEvent(1L, 3, 1, now));
+        store.apply(new PerkDownvotedEvent(1L, 2, 3, now.plusSeconds(1)));
+
+        PerkReadModel after = store.get(1L).orElseThrow();
+        assertEquals(3, after.getUpvotes());
+        assertEquals(2, after.getDownvotes());
+        assertEquals(1, after.getNetScore());
+
+        // Previously returned read models are never mutated
+        assertEquals(0, before.getUpvotes());
+    }
+
+    @Test
+    void testVoteBatchesCollapseToNewestCountsPerPerk() {
+        List<Long> updated = new ArrayList<>();
+        PerkProjectionStore counted = new PerkProjectionStore(Mockito.mock(PerkRepository.class),
+                List.of(new PerkProjectionListener() {
+                    @Override
+                    public void onPerkUpdated(PerkReadModel previous, PerkReadModel current) {
+                        updated.add(current.getId());
+                    }
+                }));
+        ReadModelUpdater updater = new ReadModelUpdater(counted, Mockito.mock(MatchingPerksView.class));
+        counted.apply(created(1L, MembershipType.VISA, ProductType.HOTELS));
+        counted.apply(created(2L, MembershipType.CAA, ProductType.CARS));
+
+        // A storm on perk 1 (one event arriving late) and a single vote on perk 2
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> poll = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            poll.add(new PerkUpvotedEvent(1L, i, 0, now.plusNanos(i * 1000L)));
+        }
+        poll.add(new PerkDownvotedEvent(1L, 7, 50, now.plusNanos(60_000)));
+        poll.add(new PerkUpvotedEvent(1L, 49, 0, now.plusNanos(49_000)));
+        poll.add(new PerkDownvotedEvent(2L, 1, 0, now));
+
+        assertEquals(2, updater.applyVotes(poll));
+
+        // One projection update per perk, with the newest counts
+        assertEquals(List.of(1L, 2L), updated);
+        assertEquals(50, counted.get(1L).orElseThrow().getUpvotes());
+        assertEquals(7, counted.get(1L).orElseThrow().getDownvotes());
+        assertEquals(1, counted.get(2L).orElseThrow().getDownvotes());
+        assertThrows(IllegalArgumentException.class, () -> updater.applyVotes(List.of("not a vote")));
+    }
+
+    @Test
+    void testStaleAndDuplicateEventsAreIgnored() {
+        store.apply(created(1L, MembershipType.VISA, ProductType.HOTELS));
+        LocalDateTime now = LocalDateTime.now();
+
+        store.apply(new PerkUpvotedEvent(1L, 5, 0, now));
+        store.apply(new PerkUpvotedEvent(1L, 4, 0, now.minusSeconds(1)));
+        store.apply(created(1L, MembershipType.VISA, ProductType.HOTELS));
+
+        assertEquals(5, store.get(1L).orElseThrow().getUpvotes());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testSnapshotsSeedPerksAndOnlyNewerVotesApplyOnTop() {
+        LocalDateTime now = LocalDateTime.now();
+        store.applySnapshots(List.of(new PerkSnapshotEvent(1L, "Perk 1", MembershipType.CAA, ProductType.CARS,
+                7, 2, LocalDate.now().minusDays(1), LocalDate.now().plusDays(10), 3L, "poster@example.com", now)));
+
+        PerkReadModel seeded = store.get(1L).orElseThrow();
+        assertEquals(5, seeded.getNetScore());
+        assertTrue(seeded.isActive());
+        assertEquals(List.of(seeded), store.findByMembership(MembershipType.CAA));
+
+        // A delta from before the snapshot is already part of it; a later one applies
+        store.apply(new PerkUpvotedEvent(1L, 6, 2, now.minusSeconds(1)));
+        assertEquals(7, store.get(1L).orElseThrow().getUpvotes());
+        store.apply(new PerkUpvotedEvent(1L, 8, 2, now.plusSeconds(1)));
+        assertEquals(8, store.get(1L).orElseThrow().getUpvotes());
+
+        // An older snapshot of a known perk does not roll it back
+        store.applySnapshots(List.of(new PerkSnapshotEvent(1L, "Perk 1", MembershipType.CAA, ProductType.CARS,
+                7, 2, null, null, 3L, "poster@example.com", now)));
+        assertEquals(8, store.get(1L).orElseThrow().getUpvotes());
+    }
+
+    @Test
+    void testVotesForUnknownPerkAreIgnored() {
+        store.apply(new PerkUpvotedEvent(42L, 1, 0, LocalDateTime.now()));
+        assertTrue(store.get(42L).isEmpty());
+    }
+
+    @Test
+    void testVersionsCountChangesPerMembershipAndProduct() {
+        store.apply(created(1L, MembershipType.VISA, ProductType.HOTELS));
+        store.apply(created(2L, MembershipType.CAA, ProductType.DINING));
+        long visa = store.version(MembershipType.VISA);
+        long dining = store.version(ProductType.DINING);
+
+        store.apply(new PerkUpvotedEvent(1L, 1, 0, LocalDateTime.now()));
+
+        assertEquals(3, store.version());
+        assertEquals(visa + 1, store.version(MembershipType.VISA));
+        assertEquals(dining, store.version(ProductType.DINING));
+
+        // Unchanged counts are no change
+        store.apply(new PerkUpvotedEvent(1L, 1, 0, LocalDateTime.now()));
+        assertEquals(3, store.version());
+    }
+}
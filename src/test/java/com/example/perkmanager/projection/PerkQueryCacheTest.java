@@ -0,0 +1,183 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import com.example.perkmanager.enumerations.VoteMetric;
+import com.example.perkmanager.event.PerkCreatedEvent;
+import com.example.perkmanager.event.PerkUpvotedEvent;
+import com.example.perkmanager.repository.PerkRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkQueryCacheTest {
+
+    private final ObjectMapper json = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private SimpleMeterRegistry registry;
+    private PerkQueryCache cache;
+    private PerkProjectionStore store;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new PerkQueryCache(registry, json, 1000);
+        store = new PerkProjectionStore(Mockito.mock(PerkRepository.class), List.of(cache));
+        store.apply(created(1L, MembershipType.VISA, ProductType.HOTELS));
+        store.apply(created(2L, MembershipType.CAA, ProductType.DINING));
+    }
+
+    private PerkCreatedEvent created(long id, MembershipType membership, ProductType product) {
+        return new PerkCreatedEvent(id, "Perk " + id, membership, product,
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(10), 1L, LocalDateTime.now());
+    }
+
+    private List<PerkReadModel> byMembership(MembershipType membership, AtomicInteger loads) {
+        return cache.get(new PerkQueryCache.ByMembership(membership), () -> {
+            loads.incrementAndGet();
+            return store.findByMembership(membership);
+        });
+    }
+
+    private double gets(String query, String result) {
+        return registry.get("perk.query.cache.gets").tags("query", query, "result", result).counter().count();
+    }
+
+    @Test
+    void testRepeatedQueryIsServedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        List<PerkReadModel> first = byMembership(MembershipType.VISA, loads);
+        List<PerkReadModel> second = byMembership(MembershipType.VISA, loads);
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals(1, gets("by-membership", "miss"));
+        assertEquals(1, gets("by-membership", "hit"));
+        assertThrows(UnsupportedOperationException.class, () -> first.add(first.get(0)));
+    }
+
+    @Test
+    void testVoteInvalidatesOnlyQueriesThePerkCanAppearIn() {
+        AtomicInteger loads = new AtomicInteger();
+        PerkQueryCache.Key visaHotels = new PerkQueryCache.ByVotes(
+                VoteMetric.UPVOTES, true, MembershipType.VISA, ProductType.HOTELS, 0, 10);
+        PerkQueryCache.Key caaDining = new PerkQueryCache.ByVotes(
+                VoteMetric.UPVOTES, true, MembershipType.CAA, ProductType.DINING, 0, 10);
+        PerkQueryCache.Key anyHotels = new PerkQueryCache.ByVotes(
+                VoteMetric.UPVOTES, true, null, ProductType.HOTELS, 0, 10);
+        for (PerkQueryCache.Key key : List.of(visaHotels, caaDining, anyHotels,
+                new PerkQueryCache.ByMembership(MembershipType.CAA), new PerkQueryCache.AllPerks(false))) {
+            cache.get(key, store::findAll);
+        }
+        assertEquals(5, cache.size());
+
+        // When: A VISA/HOTELS perk is upvoted
+        store.apply(new PerkUpvotedEvent(1L, 1, 0, LocalDateTime.now()));
+
+        // Then: Only the queries it can appear in are recomputed
+        assertEquals(2, cache.size());
+        cache.get(caaDining, () -> fail("CAA/DINING ranking should still be cached"));
+        byMembership(MembershipType.CAA, loads);
+        assertEquals(0, loads.get());
+        assertEquals(2, registry.get("perk.query.cache.invalidations").tags("query", "by-votes").counter().count());
+    }
+
+    @Test
+    void testLeastRecentlyReadEntriesAreEvictedPastTheWeight() {
+        SimpleMeterRegistry smallRegistry = new SimpleMeterRegistry();
+        PerkQueryCache small = new PerkQueryCache(smallRegistry, json, 6);
+        List<PerkReadModel> two = store.findAll();
+
+        small.get(new PerkQueryCache.ByProduct(ProductType.HOTELS), () -> two);
+        small.get(new PerkQueryCache.ByProduct(ProductType.DINING), () -> two);
+        small.get(new PerkQueryCache.ByProduct(ProductType.HOTELS), () -> fail("should be cached"));
+        small.get(new PerkQueryCache.ByProduct(ProductType.MOVIES), () -> two);
+
+        // HOTELS was read more recently than DINING, so DINING made room for MOVIES
+        assertEquals(2, small.size());
+        small.get(new PerkQueryCache.ByProduct(ProductType.HOTELS), () -> fail("should be cached"));
+        assertEquals(1, smallRegistry.get("perk.query.cache.evictions").tags("query", "by-product").counter().count());
+        assertEquals(6, smallRegistry.get("perk.query.cache.weight").gauge().value());
+    }
+
+    @Test
+    void testResultComputedDuringAChangeIsNotKept() {
+        AtomicInteger loads = new AtomicInteger();
+
+        // When: The perk changes while its query is being computed
+        cache.get(new PerkQueryCache.ByMembership(MembershipType.VISA), () -> {
+            List<PerkReadModel> stale = store.findByMembership(MembershipType.VISA);
+            store.apply(new PerkUpvotedEvent(1L, 5, 0, LocalDateTime.now()));
+            return stale;
+        });
+
+        // Then: The next read computes it again and sees the change
+        assertEquals(5, byMembership(MembershipType.VISA, loads).get(0).getUpvotes());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testChangeBetweenLoadAndPutIsNotMissed() {
+        AtomicInteger loads = new AtomicInteger();
+        List<PerkReadModel> stale = store.findByMembership(MembershipType.VISA);
+
+        // When: The perk changes after the loader returned, while the entry is being built
+        // (sizing the result is the first thing done with it)
+        cache.get(new PerkQueryCache.ByMembership(MembershipType.VISA), () -> new ArrayList<>(stale) {
+            private boolean changed;
+
+            @Override
+            public int size() {
+                if (!changed) {
+                    changed = true;
+                    store.apply(new PerkUpvotedEvent(1L, 7, 0, LocalDateTime.now()));
+                }
+                return super.size();
+            }
+        });
+
+        // Then: The stale result was not kept
+        assertEquals(7, byMembership(MembershipType.VISA, loads).get(0).getUpvotes());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEncodedBodyIsBuiltOncePerCachedResult() throws IOException {
+        PerkQueryCache.Key visa = new PerkQueryCache.ByMembership(MembershipType.VISA);
+
+        PerkQueryCache.Encoded first = cache.encoded(visa, () -> store.findByMembership(MembershipType.VISA));
+        PerkQueryCache.Encoded second = cache.encoded(visa, () -> fail("should be cached"));
+
+        assertSame(first, second);
+        assertArrayEquals(json.writeValueAsBytes(store.findByMembership(MembershipType.VISA)), first.json());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), gzip.readAllBytes());
+        }
+
+        // When: The perk changes, its bodies go with the cached result
+        store.apply(new PerkUpvotedEvent(1L, 3, 0, LocalDateTime.now()));
+        PerkQueryCache.Encoded changed = cache.encoded(visa, () -> store.findByMembership(MembershipType.VISA));
+
+        assertEquals(3, json.readTree(changed.json()).get(0).get("upvotes").asInt());
+        assertEquals(2, registry.get("perk.query.cache.encodings").tags("query", "by-membership").counter().count());
+    }
+}
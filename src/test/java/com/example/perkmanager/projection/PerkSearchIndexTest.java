@@ -0,0 +1,58 @@
+package com.example.perkmanager.projection;
+
+import com.example.perkmanager.dto.PerkReadModel;
+import com.example.perkmanager.enumerations.MembershipType;
+import com.example.perkmanager.enumerations.ProductType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkSearchIndexTest {
+
+    private PerkSearchIndex index;
+
+    private void add(long id, String description, MembershipType membership, ProductType product) {
+        index.onPerkAdded(new PerkReadModel(id, description, membership, product, 0, 0, 0,
+                LocalDate.now(), LocalDate.now().plusDays(1), null, null, true));
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new PerkSearchIndex();
+        add(1L, "Free hotel upgrade with Mastercard", MembershipType.MASTERCARD, ProductType.HOTELS);
+        add(2L, "50% off at Cineplex with Aeroplan", MembershipType.AIRMILES, ProductType.MOVIES);
+        add(3L, "Hotel breakfast included, hotel parking free", MembershipType.VISA, ProductType.HOTELS);
+        add(4L, "Hotels.com 10% cashback", MembershipType.VISA, ProductType.HOTELS);
+    }
+
+    @Test
+    void testAllTermsMustMatch() {
+        assertEquals(List.of(1L), index.search("free upgrade", null, null, 10));
+        assertTrue(index.search("free cineplex", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void testPrefixMatchingAndRanking() {
+        List<Long> results = index.search("hotel", null, null, 10);
+        // Exact term matches rank above the prefix expansion "hotels", repeated terms rank highest
+        assertEquals(List.of(3L, 1L, 4L), results);
+        assertEquals(List.of(2L), index.search("cine", null, null, 10));
+    }
+
+    @Test
+    void testFiltersAndLimit() {
+        assertEquals(List.of(3L, 4L), index.search("hotel", MembershipType.VISA, null, 10));
+        assertEquals(List.of(2L), index.search("with", null, ProductType.MOVIES, 10));
+        assertEquals(1, index.search("hotel", null, null, 1).size());
+    }
+
+    @Test
+    void testTokenizer() {
+        assertEquals(List.of("hotels", "com", "10", "cashback"), PerkSearchIndex.tokenize("Hotels.com 10% CASHBACK"));
+        assertTrue(index.search("  ", null, null, 10).isEmpty());
+    }
+}
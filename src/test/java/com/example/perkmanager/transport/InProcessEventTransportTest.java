@@ -0,0 +1,157 @@
+package com.example.perkmanager.transport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessEventTransportTest {
+
+    static class Listener {
+        final List<String> received = new CopyOnWriteArrayList<>();
+
+        @KafkaListener(topics = "${topic.greeting}")
+        public void onGreeting(@Payload String greeting,
+                               @Header(KafkaHeaders.RECEIVED_KEY) String key,
+                               @Header(KafkaHeaders.OFFSET) long offset) {
+            if ("boom".equals(greeting)) {
+                throw new IllegalStateException("listener failure");
+            }
+            received.add(key + ":" + greeting + "@" + offset);
+        }
+
+        final List<List<Integer>> polls = new CopyOnWriteArrayList<>();
+
+        @KafkaListener(topics = {"odd", "even"}, batch = "true")
+        public void onNumbers(@Payload List<Integer> numbers) {
+            polls.add(List.copyOf(numbers));
+        }
+    }
+
+    @Test
+    void testRingBufferIsBoundedAndFifo() {
+        RingBuffer<Integer> ring = new RingBuffer<>(3);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, ring.drainTo(drained, 3));
+        assertTrue(ring.offer(4));
+        assertEquals(2, ring.drainTo(drained, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void testRingBufferKeepsEveryProducersOrder() throws Exception {
+        RingBuffer<long[]> ring = new RingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            executor.submit(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    while (!ring.offer(new long[]{producer, i})) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+
+        long[] next = new long[producers];
+        List<long[]> batch = new ArrayList<>();
+        int total = 0;
+        while (total < producers * perProducer) {
+            batch.clear();
+            int drained = ring.drainTo(batch, 16);
+            if (drained == 0) {
+                Thread.yield();
+            }
+            total += drained;
+            for (long[] element : batch) {
+                assertEquals(next[(int) element[0]]++, element[1]);
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void testEventsReachListenerMethodsInOrder() throws Exception {
+        Listener listener = new Listener();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InProcessEventTransport transport = new InProcessEventTransport(
+                new StaticListableBeanFactory(Map.of("listener", listener)),
+                new MockEnvironment().withProperty("topic.greeting", "greetings"),
+                meterRegistry, 16, 4);
+        transport.afterSingletonsInstantiated();
+        try {
+            List<CompletableFuture<?>> sent = new ArrayList<>();
+            for (String greeting : List.of("hello", "boom", "bonjour", "hallo")) {
+                sent.add(transport.send("greetings", "k", greeting));
+            }
+            sent.add(transport.send("unrelated", "k", "ignored"));
+            CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            // A failing listener call is skipped; the later events still arrive, in send order
+            assertEquals(List.of("k:hello@0", "k:bonjour@2", "k:hallo@3"), listener.received);
+            assertEquals(4, meterRegistry.get("perk.events.dispatched").tag("topic", "greetings").counter().count());
+        } finally {
+            transport.stop();
+        }
+    }
+
+    @Test
+    void testBatchListenersGetEachDrainedBatchInOneCall() throws Exception {
+        Listener listener = new Listener();
+        InProcessEventTransport transport = new InProcessEventTransport(
+                new StaticListableBeanFactory(Map.of("listener", listener)),
+                new MockEnvironment().withProperty("topic.greeting", "greetings"),
+                new SimpleMeterRegistry(), 16, 4);
+        // Queue everything before dispatching starts, so the batches are deterministic
+        List<CompletableFuture<?>> sent = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            sent.add(transport.send(i % 2 == 0 ? "even" : "odd", "k", i));
+        }
+        sent.add(transport.send("greetings", "k", "hello"));
+        transport.afterSingletonsInstantiated();
+        try {
+            CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            // Both topics of the listener share a call per batch of 4, in send order
+            assertEquals(List.of(List.of(1, 2, 3, 4), List.of(5, 6)), listener.polls);
+            assertEquals(List.of("k:hello@6"), listener.received);
+        } finally {
+            transport.stop();
+        }
+    }
+
+    @Test
+    void testFullBusRejectsInsteadOfBlocking() {
+        InProcessEventTransport transport = new InProcessEventTransport(
+                new StaticListableBeanFactory(), new MockEnvironment(), new SimpleMeterRegistry(), 2, 1);
+        // Not started: nothing drains the bus
+        assertFalse(transport.send("t", "k", "a").isDone());
+        assertFalse(transport.send("t", "k", "b").isDone());
+
+        CompletableFuture<?> rejected = transport.send("t", "k", "c");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+}